@@ -2,8 +2,10 @@ package it.polimi.gpplib.eforms_gpp_service;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+@EnableScheduling
 public class EformsGppServiceApplication {
 	public static void main(String[] args) {
 		SpringApplication.run(EformsGppServiceApplication.class, args);
@@ -3,7 +3,12 @@ package it.polimi.gpplib.eforms_gpp_service.config;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.stereotype.Component;
 
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 @Component
 @ConfigurationProperties(prefix = "app")
@@ -11,6 +16,17 @@ public class AppConfig {
 
     private Cors cors = new Cors();
     private Api api = new Api();
+    private Cache cache = new Cache();
+    private Analyzer analyzer = new Analyzer();
+    private Batch batch = new Batch();
+    private Requests requests = new Requests();
+    private Resilience resilience = new Resilience();
+    private Jobs jobs = new Jobs();
+    private RateLimit rateLimit = new RateLimit();
+    private Warmup warmup = new Warmup();
+    private Criteria criteria = new Criteria();
+    private Validation validation = new Validation();
+    private Corpus corpus = new Corpus();
 
     public Cors getCors() {
         return cors;
@@ -28,6 +44,94 @@ public class AppConfig {
         this.api = api;
     }
 
+    public Cache getCache() {
+        return cache;
+    }
+
+    public void setCache(Cache cache) {
+        this.cache = cache;
+    }
+
+    public Analyzer getAnalyzer() {
+        return analyzer;
+    }
+
+    public void setAnalyzer(Analyzer analyzer) {
+        this.analyzer = analyzer;
+    }
+
+    public Batch getBatch() {
+        return batch;
+    }
+
+    public void setBatch(Batch batch) {
+        this.batch = batch;
+    }
+
+    public Requests getRequests() {
+        return requests;
+    }
+
+    public void setRequests(Requests requests) {
+        this.requests = requests;
+    }
+
+    public Resilience getResilience() {
+        return resilience;
+    }
+
+    public void setResilience(Resilience resilience) {
+        this.resilience = resilience;
+    }
+
+    public Jobs getJobs() {
+        return jobs;
+    }
+
+    public void setJobs(Jobs jobs) {
+        this.jobs = jobs;
+    }
+
+    public RateLimit getRateLimit() {
+        return rateLimit;
+    }
+
+    public void setRateLimit(RateLimit rateLimit) {
+        this.rateLimit = rateLimit;
+    }
+
+    public Warmup getWarmup() {
+        return warmup;
+    }
+
+    public void setWarmup(Warmup warmup) {
+        this.warmup = warmup;
+    }
+
+    public Criteria getCriteria() {
+        return criteria;
+    }
+
+    public void setCriteria(Criteria criteria) {
+        this.criteria = criteria;
+    }
+
+    public Validation getValidation() {
+        return validation;
+    }
+
+    public void setValidation(Validation validation) {
+        this.validation = validation;
+    }
+
+    public Corpus getCorpus() {
+        return corpus;
+    }
+
+    public void setCorpus(Corpus corpus) {
+        this.corpus = corpus;
+    }
+
     public static class Cors {
         private List<String> allowedOrigins = List.of("*");
         private List<String> allowedMethods = List.of("GET", "POST", "PUT", "DELETE", "OPTIONS");
@@ -60,6 +164,9 @@ public class AppConfig {
 
     public static class Api {
         private String tedApiKey;
+        private String tedBaseUrl = "https://api.ted.europa.eu";
+        private Duration connectTimeout = Duration.ofSeconds(5);
+        private Duration readTimeout = Duration.ofSeconds(60);
 
         public String getTedApiKey() {
             return tedApiKey;
@@ -68,5 +175,751 @@ public class AppConfig {
         public void setTedApiKey(String tedApiKey) {
             this.tedApiKey = tedApiKey;
         }
+
+        public String getTedBaseUrl() {
+            return tedBaseUrl;
+        }
+
+        public void setTedBaseUrl(String tedBaseUrl) {
+            this.tedBaseUrl = tedBaseUrl;
+        }
+
+        public Duration getConnectTimeout() {
+            return connectTimeout;
+        }
+
+        public void setConnectTimeout(Duration connectTimeout) {
+            this.connectTimeout = connectTimeout;
+        }
+
+        public Duration getReadTimeout() {
+            return readTimeout;
+        }
+
+        public void setReadTimeout(Duration readTimeout) {
+            this.readTimeout = readTimeout;
+        }
+    }
+
+    public static class Analyzer {
+        private int poolSize = Runtime.getRuntime().availableProcessors();
+        private int parallelSuggestMinLots = 0;
+        private int parallelSuggestChunkSize = 4;
+
+        public int getPoolSize() {
+            return poolSize;
+        }
+
+        public void setPoolSize(int poolSize) {
+            this.poolSize = poolSize;
+        }
+
+        public int getParallelSuggestMinLots() {
+            return parallelSuggestMinLots;
+        }
+
+        public void setParallelSuggestMinLots(int parallelSuggestMinLots) {
+            this.parallelSuggestMinLots = parallelSuggestMinLots;
+        }
+
+        public int getParallelSuggestChunkSize() {
+            return parallelSuggestChunkSize;
+        }
+
+        public void setParallelSuggestChunkSize(int parallelSuggestChunkSize) {
+            this.parallelSuggestChunkSize = parallelSuggestChunkSize;
+        }
+    }
+
+    public static class Corpus {
+        private String directory;
+        private long maxSegmentBytes = 256L * 1024 * 1024;
+        private boolean fsync = true;
+        private Duration compactionInterval = Duration.ofMinutes(10);
+        private double compactionThreshold = 0.5;
+
+        public String getDirectory() {
+            return directory;
+        }
+
+        public void setDirectory(String directory) {
+            this.directory = directory;
+        }
+
+        public long getMaxSegmentBytes() {
+            return maxSegmentBytes;
+        }
+
+        public void setMaxSegmentBytes(long maxSegmentBytes) {
+            this.maxSegmentBytes = maxSegmentBytes;
+        }
+
+        public boolean isFsync() {
+            return fsync;
+        }
+
+        public void setFsync(boolean fsync) {
+            this.fsync = fsync;
+        }
+
+        public Duration getCompactionInterval() {
+            return compactionInterval;
+        }
+
+        public void setCompactionInterval(Duration compactionInterval) {
+            this.compactionInterval = compactionInterval;
+        }
+
+        public double getCompactionThreshold() {
+            return compactionThreshold;
+        }
+
+        public void setCompactionThreshold(double compactionThreshold) {
+            this.compactionThreshold = compactionThreshold;
+        }
+    }
+
+    public static class Validation {
+        private String local = "precheck";
+        private String schemaDirectory;
+        private int maxErrors = 50;
+
+        public String getLocal() {
+            return local;
+        }
+
+        public void setLocal(String local) {
+            this.local = local;
+        }
+
+        public String getSchemaDirectory() {
+            return schemaDirectory;
+        }
+
+        public void setSchemaDirectory(String schemaDirectory) {
+            this.schemaDirectory = schemaDirectory;
+        }
+
+        public int getMaxErrors() {
+            return maxErrors;
+        }
+
+        public void setMaxErrors(int maxErrors) {
+            this.maxErrors = maxErrors;
+        }
+    }
+
+    public static class Criteria {
+        private String file;
+        private String idField = "id";
+        private String cpvField = "cpvCodes";
+        private Duration maxAge = Duration.ofMinutes(1);
+
+        public String getFile() {
+            return file;
+        }
+
+        public void setFile(String file) {
+            this.file = file;
+        }
+
+        public String getIdField() {
+            return idField;
+        }
+
+        public void setIdField(String idField) {
+            this.idField = idField;
+        }
+
+        public String getCpvField() {
+            return cpvField;
+        }
+
+        public void setCpvField(String cpvField) {
+            this.cpvField = cpvField;
+        }
+
+        public Duration getMaxAge() {
+            return maxAge;
+        }
+
+        public void setMaxAge(Duration maxAge) {
+            this.maxAge = maxAge;
+        }
+    }
+
+    public static class Warmup {
+        private boolean enabled = true;
+        private int iterations = 20;
+        private String notices = "classpath*:example_notices/*.xml";
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public int getIterations() {
+            return iterations;
+        }
+
+        public void setIterations(int iterations) {
+            this.iterations = iterations;
+        }
+
+        public String getNotices() {
+            return notices;
+        }
+
+        public void setNotices(String notices) {
+            this.notices = notices;
+        }
+    }
+
+    public static class Batch {
+        private int parallelism = Runtime.getRuntime().availableProcessors();
+        private int queueCapacity = 64;
+        private int maxBatchSize = 1000;
+        private long maxRequestBytes = 64L * 1024 * 1024;
+
+        public int getParallelism() {
+            return parallelism;
+        }
+
+        public void setParallelism(int parallelism) {
+            this.parallelism = parallelism;
+        }
+
+        public int getQueueCapacity() {
+            return queueCapacity;
+        }
+
+        public void setQueueCapacity(int queueCapacity) {
+            this.queueCapacity = queueCapacity;
+        }
+
+        public int getMaxBatchSize() {
+            return maxBatchSize;
+        }
+
+        public void setMaxBatchSize(int maxBatchSize) {
+            this.maxBatchSize = maxBatchSize;
+        }
+
+        public long getMaxRequestBytes() {
+            return maxRequestBytes;
+        }
+
+        public void setMaxRequestBytes(long maxRequestBytes) {
+            this.maxRequestBytes = maxRequestBytes;
+        }
+    }
+
+    public static class Jobs {
+        private int workers = 4;
+        private int queueCapacity = 100;
+        private Duration ttl = Duration.ofHours(1);
+        private Duration maxWait = Duration.ofSeconds(30);
+        private String store = "memory";
+        private String directory;
+
+        public int getWorkers() {
+            return workers;
+        }
+
+        public void setWorkers(int workers) {
+            this.workers = workers;
+        }
+
+        public int getQueueCapacity() {
+            return queueCapacity;
+        }
+
+        public void setQueueCapacity(int queueCapacity) {
+            this.queueCapacity = queueCapacity;
+        }
+
+        public Duration getTtl() {
+            return ttl;
+        }
+
+        public void setTtl(Duration ttl) {
+            this.ttl = ttl;
+        }
+
+        public Duration getMaxWait() {
+            return maxWait;
+        }
+
+        public void setMaxWait(Duration maxWait) {
+            this.maxWait = maxWait;
+        }
+
+        public String getStore() {
+            return store;
+        }
+
+        public void setStore(String store) {
+            this.store = store;
+        }
+
+        public String getDirectory() {
+            return directory;
+        }
+
+        public void setDirectory(String directory) {
+            this.directory = directory;
+        }
+    }
+
+    public static class RateLimit {
+        private boolean enabled = true;
+        private String clientHeader = "X-API-Key";
+        private Set<String> apiKeys = new LinkedHashSet<>();
+        private int maxConcurrentRequests = 200;
+        private Limit defaults = new Limit(100, 20);
+        private Map<String, Limit> endpoints = new LinkedHashMap<>();
+        private Duration idleTimeout = Duration.ofMinutes(10);
+        private long maxClients = 100_000;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public String getClientHeader() {
+            return clientHeader;
+        }
+
+        public void setClientHeader(String clientHeader) {
+            this.clientHeader = clientHeader;
+        }
+
+        public Set<String> getApiKeys() {
+            return apiKeys;
+        }
+
+        public void setApiKeys(Set<String> apiKeys) {
+            this.apiKeys = apiKeys;
+        }
+
+        public int getMaxConcurrentRequests() {
+            return maxConcurrentRequests;
+        }
+
+        public void setMaxConcurrentRequests(int maxConcurrentRequests) {
+            this.maxConcurrentRequests = maxConcurrentRequests;
+        }
+
+        public Limit getDefaults() {
+            return defaults;
+        }
+
+        public void setDefaults(Limit defaults) {
+            this.defaults = defaults;
+        }
+
+        public Map<String, Limit> getEndpoints() {
+            return endpoints;
+        }
+
+        public void setEndpoints(Map<String, Limit> endpoints) {
+            this.endpoints = endpoints;
+        }
+
+        public Duration getIdleTimeout() {
+            return idleTimeout;
+        }
+
+        public void setIdleTimeout(Duration idleTimeout) {
+            this.idleTimeout = idleTimeout;
+        }
+
+        public long getMaxClients() {
+            return maxClients;
+        }
+
+        public void setMaxClients(long maxClients) {
+            this.maxClients = maxClients;
+        }
+
+        public static class Limit {
+            private int capacity;
+            private double refillPerSecond;
+
+            public Limit() {
+            }
+
+            public Limit(int capacity, double refillPerSecond) {
+                this.capacity = capacity;
+                this.refillPerSecond = refillPerSecond;
+            }
+
+            public int getCapacity() {
+                return capacity;
+            }
+
+            public void setCapacity(int capacity) {
+                this.capacity = capacity;
+            }
+
+            public double getRefillPerSecond() {
+                return refillPerSecond;
+            }
+
+            public void setRefillPerSecond(double refillPerSecond) {
+                this.refillPerSecond = refillPerSecond;
+            }
+        }
+    }
+
+    public static class Requests {
+        private long maxInflatedBytes = 64L * 1024 * 1024;
+
+        public long getMaxInflatedBytes() {
+            return maxInflatedBytes;
+        }
+
+        public void setMaxInflatedBytes(long maxInflatedBytes) {
+            this.maxInflatedBytes = maxInflatedBytes;
+        }
+    }
+
+    public static class Resilience {
+        private Bulkhead bulkhead = new Bulkhead();
+        private CircuitBreaker circuitBreaker = new CircuitBreaker();
+        private Retry retry = new Retry();
+
+        public Bulkhead getBulkhead() {
+            return bulkhead;
+        }
+
+        public void setBulkhead(Bulkhead bulkhead) {
+            this.bulkhead = bulkhead;
+        }
+
+        public CircuitBreaker getCircuitBreaker() {
+            return circuitBreaker;
+        }
+
+        public void setCircuitBreaker(CircuitBreaker circuitBreaker) {
+            this.circuitBreaker = circuitBreaker;
+        }
+
+        public Retry getRetry() {
+            return retry;
+        }
+
+        public void setRetry(Retry retry) {
+            this.retry = retry;
+        }
+
+        public static class Bulkhead {
+            private int maxConcurrentCalls = 20;
+            private Duration maxWaitDuration = Duration.ofMillis(500);
+
+            public int getMaxConcurrentCalls() {
+                return maxConcurrentCalls;
+            }
+
+            public void setMaxConcurrentCalls(int maxConcurrentCalls) {
+                this.maxConcurrentCalls = maxConcurrentCalls;
+            }
+
+            public Duration getMaxWaitDuration() {
+                return maxWaitDuration;
+            }
+
+            public void setMaxWaitDuration(Duration maxWaitDuration) {
+                this.maxWaitDuration = maxWaitDuration;
+            }
+        }
+
+        public static class CircuitBreaker {
+            private float failureRateThreshold = 50;
+            private int slidingWindowSize = 20;
+            private int minimumNumberOfCalls = 10;
+            private Duration slowCallDurationThreshold = Duration.ofSeconds(30);
+            private float slowCallRateThreshold = 80;
+            private Duration waitDurationInOpenState = Duration.ofSeconds(30);
+            private int permittedNumberOfCallsInHalfOpenState = 3;
+
+            public float getFailureRateThreshold() {
+                return failureRateThreshold;
+            }
+
+            public void setFailureRateThreshold(float failureRateThreshold) {
+                this.failureRateThreshold = failureRateThreshold;
+            }
+
+            public int getSlidingWindowSize() {
+                return slidingWindowSize;
+            }
+
+            public void setSlidingWindowSize(int slidingWindowSize) {
+                this.slidingWindowSize = slidingWindowSize;
+            }
+
+            public int getMinimumNumberOfCalls() {
+                return minimumNumberOfCalls;
+            }
+
+            public void setMinimumNumberOfCalls(int minimumNumberOfCalls) {
+                this.minimumNumberOfCalls = minimumNumberOfCalls;
+            }
+
+            public Duration getSlowCallDurationThreshold() {
+                return slowCallDurationThreshold;
+            }
+
+            public void setSlowCallDurationThreshold(Duration slowCallDurationThreshold) {
+                this.slowCallDurationThreshold = slowCallDurationThreshold;
+            }
+
+            public float getSlowCallRateThreshold() {
+                return slowCallRateThreshold;
+            }
+
+            public void setSlowCallRateThreshold(float slowCallRateThreshold) {
+                this.slowCallRateThreshold = slowCallRateThreshold;
+            }
+
+            public Duration getWaitDurationInOpenState() {
+                return waitDurationInOpenState;
+            }
+
+            public void setWaitDurationInOpenState(Duration waitDurationInOpenState) {
+                this.waitDurationInOpenState = waitDurationInOpenState;
+            }
+
+            public int getPermittedNumberOfCallsInHalfOpenState() {
+                return permittedNumberOfCallsInHalfOpenState;
+            }
+
+            public void setPermittedNumberOfCallsInHalfOpenState(int permittedNumberOfCallsInHalfOpenState) {
+                this.permittedNumberOfCallsInHalfOpenState = permittedNumberOfCallsInHalfOpenState;
+            }
+        }
+
+        public static class Retry {
+            private int maxAttempts = 3;
+            private Duration initialBackoff = Duration.ofMillis(200);
+            private double backoffMultiplier = 2.0;
+            private double randomizationFactor = 0.5;
+            private Duration maxDuration = Duration.ofSeconds(10);
+
+            public int getMaxAttempts() {
+                return maxAttempts;
+            }
+
+            public void setMaxAttempts(int maxAttempts) {
+                this.maxAttempts = maxAttempts;
+            }
+
+            public Duration getInitialBackoff() {
+                return initialBackoff;
+            }
+
+            public void setInitialBackoff(Duration initialBackoff) {
+                this.initialBackoff = initialBackoff;
+            }
+
+            public double getBackoffMultiplier() {
+                return backoffMultiplier;
+            }
+
+            public void setBackoffMultiplier(double backoffMultiplier) {
+                this.backoffMultiplier = backoffMultiplier;
+            }
+
+            public double getRandomizationFactor() {
+                return randomizationFactor;
+            }
+
+            public void setRandomizationFactor(double randomizationFactor) {
+                this.randomizationFactor = randomizationFactor;
+            }
+
+            public Duration getMaxDuration() {
+                return maxDuration;
+            }
+
+            public void setMaxDuration(Duration maxDuration) {
+                this.maxDuration = maxDuration;
+            }
+        }
+    }
+
+    public static class Cache {
+        private Notices notices = new Notices();
+        private Analysis analysis = new Analysis();
+        private Ted ted = new Ted();
+        private Responses responses = new Responses();
+
+        public Notices getNotices() {
+            return notices;
+        }
+
+        public void setNotices(Notices notices) {
+            this.notices = notices;
+        }
+
+        public Analysis getAnalysis() {
+            return analysis;
+        }
+
+        public void setAnalysis(Analysis analysis) {
+            this.analysis = analysis;
+        }
+
+        public Ted getTed() {
+            return ted;
+        }
+
+        public void setTed(Ted ted) {
+            this.ted = ted;
+        }
+
+        public Responses getResponses() {
+            return responses;
+        }
+
+        public void setResponses(Responses responses) {
+            this.responses = responses;
+        }
+
+        public static class Notices {
+            private long maxWeightBytes = 256L * 1024 * 1024;
+            private Duration ttl = Duration.ofMinutes(30);
+            private int maxIdleCopies = 2;
+
+            public long getMaxWeightBytes() {
+                return maxWeightBytes;
+            }
+
+            public void setMaxWeightBytes(long maxWeightBytes) {
+                this.maxWeightBytes = maxWeightBytes;
+            }
+
+            public Duration getTtl() {
+                return ttl;
+            }
+
+            public void setTtl(Duration ttl) {
+                this.ttl = ttl;
+            }
+
+            public int getMaxIdleCopies() {
+                return maxIdleCopies;
+            }
+
+            public void setMaxIdleCopies(int maxIdleCopies) {
+                this.maxIdleCopies = maxIdleCopies;
+            }
+        }
+
+        public static class Analysis {
+            private long maxEntries = 10_000;
+            private Duration ttl = Duration.ofHours(1);
+
+            public long getMaxEntries() {
+                return maxEntries;
+            }
+
+            public void setMaxEntries(long maxEntries) {
+                this.maxEntries = maxEntries;
+            }
+
+            public Duration getTtl() {
+                return ttl;
+            }
+
+            public void setTtl(Duration ttl) {
+                this.ttl = ttl;
+            }
+        }
+
+        public static class Responses {
+            private long maxWeightBytes = 64L * 1024 * 1024;
+            private long criteriaMaxWeightBytes = 8L * 1024 * 1024;
+            private Duration ttl = Duration.ofHours(1);
+            private int gzipMinBytes = 2048;
+
+            public long getMaxWeightBytes() {
+                return maxWeightBytes;
+            }
+
+            public void setMaxWeightBytes(long maxWeightBytes) {
+                this.maxWeightBytes = maxWeightBytes;
+            }
+
+            public long getCriteriaMaxWeightBytes() {
+                return criteriaMaxWeightBytes;
+            }
+
+            public void setCriteriaMaxWeightBytes(long criteriaMaxWeightBytes) {
+                this.criteriaMaxWeightBytes = criteriaMaxWeightBytes;
+            }
+
+            public Duration getTtl() {
+                return ttl;
+            }
+
+            public void setTtl(Duration ttl) {
+                this.ttl = ttl;
+            }
+
+            public int getGzipMinBytes() {
+                return gzipMinBytes;
+            }
+
+            public void setGzipMinBytes(int gzipMinBytes) {
+                this.gzipMinBytes = gzipMinBytes;
+            }
+        }
+
+        public static class Ted {
+            private long maxWeightBytes = 64L * 1024 * 1024;
+            private Duration ttl = Duration.ofHours(24);
+            private String directory;
+            private int maxStreamedEntryBytes = 2 * 1024 * 1024;
+
+            public long getMaxWeightBytes() {
+                return maxWeightBytes;
+            }
+
+            public void setMaxWeightBytes(long maxWeightBytes) {
+                this.maxWeightBytes = maxWeightBytes;
+            }
+
+            public Duration getTtl() {
+                return ttl;
+            }
+
+            public void setTtl(Duration ttl) {
+                this.ttl = ttl;
+            }
+
+            public String getDirectory() {
+                return directory;
+            }
+
+            public void setDirectory(String directory) {
+                this.directory = directory;
+            }
+
+            public int getMaxStreamedEntryBytes() {
+                return maxStreamedEntryBytes;
+            }
+
+            public void setMaxStreamedEntryBytes(int maxStreamedEntryBytes) {
+                this.maxStreamedEntryBytes = maxStreamedEntryBytes;
+            }
+        }
     }
 }
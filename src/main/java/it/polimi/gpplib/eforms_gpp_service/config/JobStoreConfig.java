@@ -0,0 +1,34 @@
+package it.polimi.gpplib.eforms_gpp_service.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import it.polimi.gpplib.eforms_gpp_service.service.FileJobStore;
+import it.polimi.gpplib.eforms_gpp_service.service.InMemoryJobStore;
+import it.polimi.gpplib.eforms_gpp_service.service.JobStore;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+@Configuration
+public class JobStoreConfig {
+
+    @Autowired
+    private AppConfig appConfig;
+
+    @Bean
+    public JobStore jobStore(ObjectMapper objectMapper) throws IOException {
+        AppConfig.Jobs config = appConfig.getJobs();
+        return switch (config.getStore()) {
+            case "memory" -> new InMemoryJobStore();
+            case "file" -> {
+                if (config.getDirectory() == null || config.getDirectory().isBlank()) {
+                    throw new IllegalStateException("app.jobs.directory must be set when app.jobs.store=file");
+                }
+                yield new FileJobStore(Path.of(config.getDirectory()), objectMapper);
+            }
+            default -> throw new IllegalStateException("Unknown app.jobs.store: " + config.getStore());
+        };
+    }
+}
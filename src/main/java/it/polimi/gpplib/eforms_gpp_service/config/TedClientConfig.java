@@ -0,0 +1,47 @@
+package it.polimi.gpplib.eforms_gpp_service.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.http.client.JdkClientHttpRequestFactory;
+import org.springframework.web.client.RestClient;
+
+import java.net.http.HttpClient;
+import java.util.concurrent.Executors;
+
+@Slf4j
+@Configuration
+public class TedClientConfig {
+
+    @Autowired
+    private AppConfig appConfig;
+
+    // One client for the whole service, so connections (and TLS sessions) to TED are reused
+    @Bean
+    public HttpClient tedHttpClient(Environment environment) {
+        HttpClient.Builder builder = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_2)
+                .connectTimeout(appConfig.getApi().getConnectTimeout())
+                .followRedirects(HttpClient.Redirect.NORMAL);
+        if (Threading.VIRTUAL.isActive(environment)) {
+            // response handling then runs on virtual threads too, instead of a cached platform pool
+            log.info("Using virtual threads for TED API calls");
+            builder.executor(Executors.newVirtualThreadPerTaskExecutor());
+        }
+        return builder.build();
+    }
+
+    // The auto-configured builder records http.client.requests metrics for every call
+    @Bean
+    public RestClient tedRestClient(RestClient.Builder builder, HttpClient tedHttpClient) {
+        JdkClientHttpRequestFactory requestFactory = new JdkClientHttpRequestFactory(tedHttpClient);
+        requestFactory.setReadTimeout(appConfig.getApi().getReadTimeout());
+        return builder
+                .baseUrl(appConfig.getApi().getTedBaseUrl())
+                .requestFactory(requestFactory)
+                .build();
+    }
+}
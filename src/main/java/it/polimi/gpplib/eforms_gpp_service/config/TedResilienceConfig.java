@@ -0,0 +1,102 @@
+package it.polimi.gpplib.eforms_gpp_service.config;
+
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.bulkhead.BulkheadConfig;
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerConfig;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.github.resilience4j.core.IntervalFunction;
+import io.github.resilience4j.micrometer.tagged.TaggedBulkheadMetrics;
+import io.github.resilience4j.micrometer.tagged.TaggedCircuitBreakerMetrics;
+import io.github.resilience4j.micrometer.tagged.TaggedRetryMetrics;
+import io.github.resilience4j.retry.Retry;
+import io.github.resilience4j.retry.RetryConfig;
+import io.github.resilience4j.retry.RetryRegistry;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.ResourceAccessException;
+
+import java.net.ConnectException;
+import java.net.NoRouteToHostException;
+import java.net.UnknownHostException;
+import java.net.http.HttpConnectTimeoutException;
+import java.util.function.Predicate;
+
+@Configuration
+public class TedResilienceConfig {
+
+    public static final String TED = "ted";
+
+    // Only TED-side trouble counts: 4xx responses mean the notice or request is wrong
+    private static final Predicate<Throwable> TED_FAILURE = e -> e instanceof HttpServerErrorException
+            || e instanceof ResourceAccessException;
+
+    // A read timeout already waited the full app.api.read-timeout, and retrying it would hold
+    // the bulkhead permit several times as long; only failures that return quickly are retried
+    private static final Predicate<Throwable> TED_RETRYABLE = e -> e instanceof HttpServerErrorException
+            || e instanceof ResourceAccessException && isConnectFailure(e);
+
+    static boolean isConnectFailure(Throwable e) {
+        for (Throwable cause = e.getCause(); cause != null; cause = cause.getCause()) {
+            if (cause instanceof ConnectException || cause instanceof HttpConnectTimeoutException
+                    || cause instanceof UnknownHostException || cause instanceof NoRouteToHostException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Autowired
+    private AppConfig appConfig;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Bean
+    public CircuitBreaker tedCircuitBreaker() {
+        AppConfig.Resilience.CircuitBreaker config = appConfig.getResilience().getCircuitBreaker();
+        CircuitBreakerRegistry registry = CircuitBreakerRegistry.of(CircuitBreakerConfig.custom()
+                .slidingWindowType(CircuitBreakerConfig.SlidingWindowType.COUNT_BASED)
+                .slidingWindowSize(config.getSlidingWindowSize())
+                .minimumNumberOfCalls(config.getMinimumNumberOfCalls())
+                .failureRateThreshold(config.getFailureRateThreshold())
+                .slowCallDurationThreshold(config.getSlowCallDurationThreshold())
+                .slowCallRateThreshold(config.getSlowCallRateThreshold())
+                .waitDurationInOpenState(config.getWaitDurationInOpenState())
+                .permittedNumberOfCallsInHalfOpenState(config.getPermittedNumberOfCallsInHalfOpenState())
+                .automaticTransitionFromOpenToHalfOpenEnabled(true)
+                .recordException(TED_FAILURE)
+                .build());
+        TaggedCircuitBreakerMetrics.ofCircuitBreakerRegistry(registry).bindTo(meterRegistry);
+        return registry.circuitBreaker(TED);
+    }
+
+    @Bean
+    public Bulkhead tedBulkhead() {
+        AppConfig.Resilience.Bulkhead config = appConfig.getResilience().getBulkhead();
+        BulkheadRegistry registry = BulkheadRegistry.of(BulkheadConfig.custom()
+                .maxConcurrentCalls(config.getMaxConcurrentCalls())
+                .maxWaitDuration(config.getMaxWaitDuration())
+                .build());
+        TaggedBulkheadMetrics.ofBulkheadRegistry(registry).bindTo(meterRegistry);
+        return registry.bulkhead(TED);
+    }
+
+    // Render and validate have no side effects on TED, so retrying them is safe
+    @Bean
+    public Retry tedRetry() {
+        AppConfig.Resilience.Retry config = appConfig.getResilience().getRetry();
+        RetryRegistry registry = RetryRegistry.of(RetryConfig.custom()
+                .maxAttempts(config.getMaxAttempts())
+                .intervalFunction(IntervalFunction.ofExponentialRandomBackoff(config.getInitialBackoff(),
+                        config.getBackoffMultiplier(), config.getRandomizationFactor()))
+                .retryOnException(TED_RETRYABLE)
+                .build());
+        TaggedRetryMetrics.ofRetryRegistry(registry).bindTo(meterRegistry);
+        return registry.retry(TED);
+    }
+}
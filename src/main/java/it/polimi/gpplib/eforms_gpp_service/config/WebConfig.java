@@ -1,8 +1,10 @@
 package it.polimi.gpplib.eforms_gpp_service.config;
 
+import it.polimi.gpplib.eforms_gpp_service.controller.GppController;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpHeaders;
 import org.springframework.web.servlet.config.annotation.CorsRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 
@@ -20,7 +22,8 @@ public class WebConfig {
                 registry.addMapping("/**")
                         .allowedOrigins(appConfig.getCors().getAllowedOrigins().toArray(new String[0]))
                         .allowedMethods(appConfig.getCors().getAllowedMethods().toArray(new String[0]))
-                        .allowedHeaders(appConfig.getCors().getAllowedHeaders().toArray(new String[0]));
+                        .allowedHeaders(appConfig.getCors().getAllowedHeaders().toArray(new String[0]))
+                        .exposedHeaders(GppController.NOTICE_HANDLE_HEADER, HttpHeaders.ETAG);
             }
         };
     }
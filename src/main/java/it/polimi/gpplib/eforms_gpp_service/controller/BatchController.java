@@ -0,0 +1,198 @@
+package it.polimi.gpplib.eforms_gpp_service.controller;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.extern.slf4j.Slf4j;
+import it.polimi.gpplib.eforms_gpp_service.controller.GppController.AnalyzeNoticeRequest;
+import it.polimi.gpplib.eforms_gpp_service.service.BatchAnalysisService;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+
+@Slf4j
+@RestController
+@RequestMapping("/api/v1")
+@Tag(name = "eForms GPP Batch Controller", description = "API for analyzing many eForms notices in one request")
+public class BatchController {
+
+    @Autowired
+    private BatchAnalysisService batchAnalysisService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private NoticeBatchReader noticeBatchReader;
+
+    @Operation(summary = "Analyze a batch of procurement notices for GPP criteria", description = "Analyzes many eForms XML notices in parallel. "
+            +
+            "Every notice gets its own result or error, so a single invalid notice does not fail the batch. "
+            +
+            "Notices are sent as noticeXml; noticeHandle is not supported in batches.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Batch processed (check each item for errors)", content = @Content(mediaType = "application/json", schema = @Schema(implementation = AnalyzeNoticesResponse.class))),
+            @ApiResponse(responseCode = "400", description = "No notices provided, a notice sent as noticeHandle, or malformed JSON"),
+            @ApiResponse(responseCode = "413", description = "Batch exceeds the configured maximum number of notices or request size")
+    })
+    @io.swagger.v3.oas.annotations.parameters.RequestBody(description = "Request containing the eForms XML notices to analyze", required = true, content = @Content(mediaType = "application/json", schema = @Schema(implementation = AnalyzeNoticesRequest.class)))
+    @PostMapping(value = "/analyze-notices", consumes = MediaType.APPLICATION_JSON_VALUE, produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<AnalyzeNoticesResponse> analyzeNotices(HttpServletRequest request) {
+
+        // read here rather than bound by @RequestBody, so an oversized batch is rejected before it is in memory
+        List<String> noticeXmls = noticeBatchReader.read(request);
+
+        log.info("Received analyze-notices request with {} notices", noticeXmls.size());
+
+        List<BatchAnalysisService.ItemResult> results = batchAnalysisService.analyzeAll(noticeXmls);
+        return ResponseEntity.ok(new AnalyzeNoticesResponse(results));
+    }
+
+    @Operation(summary = "Analyze a stream of procurement notices for GPP criteria", description = "Streaming variant of the batch analysis: "
+            +
+            "the request body holds one AnalyzeNoticeRequest JSON object per line and the response streams one result per line as soon as each analysis completes. "
+            +
+            "Results arrive out of order, use their index to correlate them with the input lines. "
+            +
+            "A line with a noticeHandle instead of noticeXml ends the stream like a malformed line.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Results are streamed as newline-delimited JSON", content = @Content(mediaType = MediaType.APPLICATION_NDJSON_VALUE, schema = @Schema(implementation = BatchAnalysisService.ItemResult.class)))
+    })
+    @PostMapping(value = "/analyze-notices", consumes = MediaType.APPLICATION_NDJSON_VALUE, produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> analyzeNoticesStream(HttpServletRequest request) throws IOException {
+
+        log.info("Received streaming analyze-notices request");
+
+        InputStream body = request.getInputStream();
+        StreamingResponseBody stream = out -> {
+            NdjsonNotices notices = new NdjsonNotices(
+                    objectMapper.readerFor(AnalyzeNoticeRequest.class).readValues(body));
+            batchAnalysisService.analyzeEach(notices, item -> writeLine(out, item));
+            if (notices.error != null) {
+                writeLine(out, BatchAnalysisService.ItemResult.failure(notices.count,
+                        null, "Malformed NDJSON input, stopped reading: " + notices.error.getMessage()));
+            }
+            log.info("Streamed {} analysis results", notices.count);
+        };
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(stream);
+    }
+
+    private void writeLine(OutputStream out, BatchAnalysisService.ItemResult item) {
+        try {
+            out.write(objectMapper.writeValueAsBytes(item));
+            out.write('\n');
+            out.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // Adapts the NDJSON lines to notice XMLs, ending the stream at the first malformed line
+    private static class NdjsonNotices implements Iterator<String> {
+        private final MappingIterator<AnalyzeNoticeRequest> lines;
+        private AnalyzeNoticeRequest next;
+        private int count;
+        private Exception error;
+
+        NdjsonNotices(MappingIterator<AnalyzeNoticeRequest> lines) {
+            this.lines = lines;
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (next != null) {
+                return true;
+            }
+            if (error != null) {
+                return false;
+            }
+            try {
+                // read ahead so that malformed lines surface here rather than in next()
+                if (lines.hasNextValue()) {
+                    next = lines.nextValue();
+                    if (next != null && next.getNoticeHandle() != null) {
+                        next = null;
+                        error = new IllegalArgumentException("noticeHandle is not supported in batches, send noticeXml");
+                    }
+                }
+            } catch (IOException | RuntimeException e) {
+                error = e;
+            }
+            return next != null;
+        }
+
+        @Override
+        public String next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            String noticeXml = next.getNoticeXml();
+            next = null;
+            count++;
+            return noticeXml;
+        }
+    }
+
+    @Schema(description = "Request to analyze a batch of eForms notices for GPP criteria")
+    public static class AnalyzeNoticesRequest {
+        @Schema(description = "Notices to analyze, each with its noticeXml; noticeHandle is not supported")
+        private List<AnalyzeNoticeRequest> notices;
+
+        public List<AnalyzeNoticeRequest> getNotices() {
+            return notices;
+        }
+
+        public void setNotices(List<AnalyzeNoticeRequest> notices) {
+            this.notices = notices;
+        }
+    }
+
+    @Schema(description = "Response containing one analysis outcome per notice, in request order")
+    public static class AnalyzeNoticesResponse {
+        @Schema(description = "Per-notice results")
+        private List<BatchAnalysisService.ItemResult> results;
+        @Schema(description = "Number of notices analyzed successfully")
+        private int succeeded;
+        @Schema(description = "Number of notices that could not be analyzed")
+        private int failed;
+
+        public AnalyzeNoticesResponse(List<BatchAnalysisService.ItemResult> results) {
+            this.results = results;
+            this.failed = (int) results.stream().filter(item -> item.getError() != null).count();
+            this.succeeded = results.size() - failed;
+        }
+
+        public List<BatchAnalysisService.ItemResult> getResults() {
+            return results;
+        }
+
+        public int getSucceeded() {
+            return succeeded;
+        }
+
+        public int getFailed() {
+            return failed;
+        }
+    }
+}
@@ -0,0 +1,179 @@
+package it.polimi.gpplib.eforms_gpp_service.controller;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.server.ResponseStatusException;
+import lombok.extern.slf4j.Slf4j;
+import it.polimi.gpplib.eforms_gpp_service.config.AppConfig;
+import it.polimi.gpplib.eforms_gpp_service.service.CorpusService;
+import it.polimi.gpplib.eforms_gpp_service.service.CorpusStore;
+import it.polimi.gpplib.eforms_gpp_service.service.Job;
+import it.polimi.gpplib.eforms_gpp_service.service.JobService;
+
+import java.io.InputStream;
+import java.net.URI;
+import java.util.List;
+import java.util.Map;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+
+@Slf4j
+@RestController
+@RequestMapping("/api/v1/corpus")
+@Tag(name = "eForms GPP Corpus Controller", description = "API for storing a corpus of notices on disk and re-analyzing it in place")
+public class CorpusController {
+
+    @Autowired
+    private CorpusStore corpusStore;
+
+    @Autowired
+    private CorpusService corpusService;
+
+    @Autowired
+    private JobService jobService;
+
+    @Autowired
+    private AppConfig appConfig;
+
+    @Operation(summary = "Get corpus statistics", description = "Returns the number of stored notices and results and the size of the store")
+    @GetMapping(produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<Map<String, Object>> getStats() {
+        Map<String, Object> stats = corpusStore.stats();
+        stats.put("reanalyzing", corpusService.isReanalyzing());
+        return ResponseEntity.ok(stats);
+    }
+
+    @Operation(summary = "Ingest notices into the corpus", description = "Appends notices to the corpus store. "
+            +
+            "A notice whose id already holds the same content is not stored again; new content for an existing id replaces it. "
+            +
+            "Notices are stored in order: if a write fails with 500, the notices before it stay stored, and sending the batch again stores only the rest.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Notices stored", content = @Content(mediaType = "application/json", schema = @Schema(implementation = IngestResponse.class))),
+            @ApiResponse(responseCode = "400", description = "No notices or a notice without XML provided"),
+            @ApiResponse(responseCode = "404", description = "The corpus store is not configured"),
+            @ApiResponse(responseCode = "413", description = "Batch exceeds the configured maximum size"),
+            @ApiResponse(responseCode = "500", description = "A write failed; the message tells how many notices were stored before it")
+    })
+    @PostMapping(value = "/notices", consumes = MediaType.APPLICATION_JSON_VALUE, produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<IngestResponse> ingestNotices(
+            @Parameter(description = "Request containing the notices to store", required = true) @RequestBody IngestRequest request) {
+
+        List<CorpusStore.NoticeInput> notices = request.getNotices();
+        if (notices == null || notices.isEmpty()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "At least one notice must be provided");
+        }
+        int maxBatchSize = appConfig.getBatch().getMaxBatchSize();
+        if (notices.size() > maxBatchSize) {
+            throw new ResponseStatusException(HttpStatus.PAYLOAD_TOO_LARGE,
+                    "Batch contains " + notices.size() + " notices, the maximum is " + maxBatchSize);
+        }
+        if (notices.stream().anyMatch(notice -> notice.noticeXml() == null || notice.noticeXml().isBlank())) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Every notice must have noticeXml");
+        }
+
+        log.info("Ingesting {} notices into the corpus", notices.size());
+        return ResponseEntity.ok(new IngestResponse(corpusStore.ingest(notices)));
+    }
+
+    @Operation(summary = "Get a corpus notice", description = "Returns the XML of a notice in the corpus store")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "The notice XML", content = @Content(mediaType = "application/xml")),
+            @ApiResponse(responseCode = "404", description = "Unknown notice")
+    })
+    @GetMapping(value = "/notices/{noticeId}", produces = MediaType.APPLICATION_XML_VALUE)
+    public ResponseEntity<String> getNotice(@Parameter(description = "Notice id") @PathVariable String noticeId) {
+        return corpusStore.notice(noticeId)
+                .map(ResponseEntity::ok)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Unknown corpus notice: " + noticeId));
+    }
+
+    @Operation(summary = "Get the analysis result of a corpus notice", description = "Returns the result stored by the last re-analysis of the notice, "
+            +
+            "with its ETag; it is stale when the ETag differs from that of a fresh analyze-notice call")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "The stored analysis result", content = @Content(mediaType = "application/json")),
+            @ApiResponse(responseCode = "404", description = "Unknown notice, or not analyzed yet")
+    })
+    @GetMapping(value = "/notices/{noticeId}/result", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> getResult(@Parameter(description = "Notice id") @PathVariable String noticeId) {
+        CorpusStore.StoredResult result = corpusStore.openResult(noticeId)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "No analysis result for corpus notice: " + noticeId));
+        return ResponseEntity.ok()
+                .eTag(result.etag())
+                .body(out -> {
+                    try (InputStream content = result.content()) {
+                        content.transferTo(out);
+                    }
+                });
+    }
+
+    @Operation(summary = "Re-analyze the corpus", description = "Queues a job that analyzes every corpus notice whose stored result is missing or was produced by another library build, "
+            +
+            "or every notice with force=true. The job result summarizes the run.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "202", description = "Job queued, poll the Location header for its status", content = @Content(mediaType = "application/json", schema = @Schema(implementation = Job.class))),
+            @ApiResponse(responseCode = "404", description = "The corpus store is not configured"),
+            @ApiResponse(responseCode = "409", description = "A re-analysis is already running"),
+            @ApiResponse(responseCode = "503", description = "Too many queued jobs")
+    })
+    @PostMapping(value = "/reanalyze", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<Job> reanalyze(
+            @Parameter(description = "Re-analyze notices with a current result too (default: false)") @RequestParam(name = "force", required = false, defaultValue = "false") boolean force) {
+
+        if (!corpusStore.isEnabled()) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "The corpus store is not configured (app.corpus.directory)");
+        }
+        if (!corpusService.tryStartReanalysis()) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, "A corpus re-analysis is already running");
+        }
+        Job job;
+        try {
+            job = jobService.submit("reanalyze", () -> corpusService.runStartedReanalysis(force));
+        } catch (RuntimeException e) {
+            corpusService.abandonReanalysis();
+            throw e;
+        }
+        return ResponseEntity.accepted()
+                .location(URI.create("/api/v1/jobs/" + job.id()))
+                .body(job);
+    }
+
+    @Schema(description = "Request to store notices in the corpus")
+    public static class IngestRequest {
+        @Schema(description = "Notices to store; noticeId defaults to the notice's content hash")
+        private List<CorpusStore.NoticeInput> notices;
+
+        public List<CorpusStore.NoticeInput> getNotices() {
+            return notices;
+        }
+
+        public void setNotices(List<CorpusStore.NoticeInput> notices) {
+            this.notices = notices;
+        }
+    }
+
+    @Schema(description = "Outcome of storing notices in the corpus")
+    public static class IngestResponse {
+        @Schema(description = "One entry per notice, in request order; stored is false if the notice was already in the corpus")
+        private List<CorpusStore.Ingested> notices;
+
+        public IngestResponse(List<CorpusStore.Ingested> notices) {
+            this.notices = notices;
+        }
+
+        public List<CorpusStore.Ingested> getNotices() {
+            return notices;
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package it.polimi.gpplib.eforms_gpp_service.controller;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.server.ResponseStatusException;
+import lombok.extern.slf4j.Slf4j;
+import it.polimi.gpplib.eforms_gpp_service.config.AppConfig;
+import it.polimi.gpplib.eforms_gpp_service.service.AnalysisResultCache;
+import it.polimi.gpplib.eforms_gpp_service.service.CriteriaCatalog;
+import it.polimi.gpplib.eforms_gpp_service.service.CriteriaIndex;
+import it.polimi.gpplib.eforms_gpp_service.service.SerializedResponseCache;
+import it.polimi.gpplib.eforms_gpp_service.service.SerializedResponseCache.SerializedResponse;
+
+import java.util.List;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+
+@Slf4j
+@RestController
+@RequestMapping("/api/v1/criteria")
+@Tag(name = "eForms GPP Criteria Controller", description = "API for looking up GPP criteria in the criteria index")
+public class CriteriaController {
+
+    @Autowired
+    private CriteriaCatalog criteriaCatalog;
+
+    @Autowired
+    private SerializedResponseCache serializedResponseCache;
+
+    @Autowired
+    private AppConfig appConfig;
+
+    @Operation(summary = "Look up GPP criteria", description = "Returns the criteria that apply to any of the given CPV codes, "
+            +
+            "including criteria for their parent codes (a criterion for 39100000 applies to 39111000). Without cpv, returns all criteria. "
+            +
+            "Responses are cached per criteria index version and normalized CPV codes, and carry an ETag and Cache-Control; send the ETag back in If-None-Match to get 304 Not Modified.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Matching criteria", content = @Content(mediaType = "application/json", schema = @Schema(implementation = CriteriaResponse.class))),
+            @ApiResponse(responseCode = "304", description = "The criteria matching If-None-Match are still current")
+    })
+    @GetMapping(produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<byte[]> findCriteria(
+            @Parameter(description = "CPV codes, with or without check digit (e.g. 39111000-3)") @RequestParam(name = "cpv", required = false) List<String> cpvs,
+            @Parameter(description = "ETag of a previously returned response") @RequestHeader(name = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+            @Parameter(hidden = true) @RequestHeader(name = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+
+        CriteriaIndex index = criteriaCatalog.current();
+        boolean all = cpvs == null || cpvs.isEmpty();
+        List<String> codes = all ? List.of() : CriteriaIndex.normalize(cpvs);
+        // the index is immutable, so its version and the normalized query identify the response
+        String query = all ? "*" : String.join(",", codes);
+        SerializedResponse response = serializedResponseCache.criteria(index.version(), query,
+                () -> new CriteriaResponse(index.version(), all ? index.all() : index.forCpvs(codes)));
+        return respond(response, ifNoneMatch, acceptEncoding);
+    }
+
+    @Operation(summary = "Get a GPP criterion", description = "Returns a single criterion by its id, cacheable like the criteria lookup")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "The criterion", content = @Content(mediaType = "application/json")),
+            @ApiResponse(responseCode = "304", description = "The criterion matching If-None-Match is still current"),
+            @ApiResponse(responseCode = "404", description = "Unknown criterion")
+    })
+    @GetMapping(value = "/{id}", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<byte[]> getCriterion(@Parameter(description = "Criterion id") @PathVariable String id,
+            @Parameter(description = "ETag of a previously returned response") @RequestHeader(name = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+            @Parameter(hidden = true) @RequestHeader(name = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        CriteriaIndex index = criteriaCatalog.current();
+        JsonNode criterion = index.byId(id);
+        if (criterion == null) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Unknown GPP criterion: " + id);
+        }
+        SerializedResponse response = serializedResponseCache.criteria(index.version(), "id:" + id, () -> criterion);
+        return respond(response, ifNoneMatch, acceptEncoding);
+    }
+
+    private ResponseEntity<byte[]> respond(SerializedResponse response, String ifNoneMatch, String acceptEncoding) {
+        CacheControl cacheControl = CacheControl.maxAge(appConfig.getCriteria().getMaxAge()).mustRevalidate();
+        if (AnalysisResultCache.matches(ifNoneMatch, response.etag())) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                    .eTag(response.etag())
+                    .cacheControl(cacheControl)
+                    .build();
+        }
+        return response.toResponse(ResponseEntity.ok().cacheControl(cacheControl), response.etag(), acceptEncoding);
+    }
+
+    @Schema(description = "GPP criteria from the criteria index")
+    public static class CriteriaResponse {
+        @Schema(description = "Version of the criteria index, changes whenever the criteria file is reloaded with new content")
+        private String version;
+        @Schema(description = "Matching criteria, in the library's criterion format")
+        private List<JsonNode> criteria;
+
+        public CriteriaResponse(String version, List<JsonNode> criteria) {
+            this.version = version;
+            this.criteria = criteria;
+        }
+
+        public String getVersion() {
+            return version;
+        }
+
+        public List<JsonNode> getCriteria() {
+            return criteria;
+        }
+    }
+}
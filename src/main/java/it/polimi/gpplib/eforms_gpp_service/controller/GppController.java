@@ -3,24 +3,45 @@ package it.polimi.gpplib.eforms_gpp_service.controller;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import lombok.extern.slf4j.Slf4j;
-import it.polimi.gpplib.DefaultGppNoticeAnalyzer;
-import it.polimi.gpplib.GppNoticeAnalyzer;
 import it.polimi.gpplib.model.Notice;
 import it.polimi.gpplib.model.GppAnalysisResult;
 import it.polimi.gpplib.model.SuggestedGppCriterion;
 import it.polimi.gpplib.model.SuggestedGppPatch;
 import it.polimi.gpplib.eforms_gpp_service.config.AppConfig;
-
+import it.polimi.gpplib.eforms_gpp_service.service.AnalysisResultCache;
+import it.polimi.gpplib.eforms_gpp_service.service.AnalyzerPool;
+import it.polimi.gpplib.eforms_gpp_service.service.CriteriaCatalog;
+import it.polimi.gpplib.eforms_gpp_service.service.GppMetrics;
+import it.polimi.gpplib.eforms_gpp_service.service.LocalNoticeValidator;
+import it.polimi.gpplib.eforms_gpp_service.service.NoticeCache;
+import it.polimi.gpplib.eforms_gpp_service.service.NoticeDigest;
+import it.polimi.gpplib.eforms_gpp_service.service.NoticeSummary;
+import it.polimi.gpplib.eforms_gpp_service.service.NoticeSummaryReader;
+import it.polimi.gpplib.eforms_gpp_service.service.PatchSuggester;
+import it.polimi.gpplib.eforms_gpp_service.service.SerializedResponseCache;
+import it.polimi.gpplib.eforms_gpp_service.service.SerializedResponseCache.SerializedResponse;
+import it.polimi.gpplib.eforms_gpp_service.service.TedApiClient;
+import it.polimi.gpplib.eforms_gpp_service.service.TedResultCache;
+import it.polimi.gpplib.eforms_gpp_service.service.TedUnavailableException;
+
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import javax.xml.stream.XMLStreamException;
 
-import org.springframework.web.client.RestTemplate;
-import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpHeaders;
-import org.springframework.http.HttpMethod;
-import java.util.Base64;
-import java.util.Collections;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 
@@ -38,60 +59,123 @@ import io.swagger.v3.oas.annotations.tags.Tag;
 @Tag(name = "eForms GPP Controller", description = "API for Green Public Procurement analysis of eForms notices")
 public class GppController {
 
-    private final GppNoticeAnalyzer analyzer = new DefaultGppNoticeAnalyzer();
+    public static final String NOTICE_HANDLE_HEADER = "X-Notice-Handle";
+
+    private static final int STREAM_CHUNK_CHARS = 8192;
+
+    private static final Pattern XML_ENCODING = Pattern
+            .compile("<\\?xml\\s[^>]*?encoding\\s*=\\s*[\"']([A-Za-z][A-Za-z0-9._-]*)[\"']");
 
     @Autowired
-    private AppConfig appConfig;
+    private AnalyzerPool analyzerPool;
+
+    @Autowired
+    private NoticeCache noticeCache;
+
+    @Autowired
+    private AnalysisResultCache analysisResultCache;
+
+    @Autowired
+    private TedApiClient tedApiClient;
+
+    @Autowired
+    private TedResultCache tedResultCache;
+
+    @Autowired
+    private GppMetrics gppMetrics;
+
+    @Autowired
+    private CriteriaCatalog criteriaCatalog;
+
+    @Autowired
+    private LocalNoticeValidator localNoticeValidator;
+
+    @Autowired
+    private PatchSuggester patchSuggester;
 
-    // temporary storage for manual testing
-    private Notice dummyNotice;
+    @Autowired
+    private SerializedResponseCache serializedResponseCache;
+
+    @Autowired
+    private AppConfig appConfig;
 
-    @Operation(summary = "Analyze a procurement notice for GPP criteria", description = "Analyzes an eForms XML notice to identify Green Public Procurement (GPP) criteria and potential improvements")
+    @Operation(summary = "Analyze a procurement notice for GPP criteria", description = "Analyzes an eForms XML notice to identify Green Public Procurement (GPP) criteria and potential improvements. "
+            +
+            "Results carry a strong ETag derived from the notice content and the library version; send it back in If-None-Match to get 304 Not Modified.")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Analysis completed successfully", content = @Content(mediaType = "application/json", schema = @Schema(implementation = GppAnalysisResult.class))),
+            @ApiResponse(responseCode = "304", description = "The analysis result matching If-None-Match is still current"),
             @ApiResponse(responseCode = "400", description = "Invalid XML notice provided"),
             @ApiResponse(responseCode = "500", description = "Internal server error during analysis")
     })
     @PostMapping(value = "/analyze-notice", consumes = MediaType.APPLICATION_JSON_VALUE, produces = MediaType.APPLICATION_JSON_VALUE)
-    public ResponseEntity<GppAnalysisResult> analyzeNotice(
-            @Parameter(description = "Request containing the eForms XML notice to analyze", required = true) @RequestBody AnalyzeNoticeRequest request,
-            @Parameter(description = "Enable manual testing mode to store notice for subsequent requests") @RequestParam(name = "manualTesting", required = false, defaultValue = "false") boolean manualTesting) {
+    public ResponseEntity<byte[]> analyzeNotice(
+            @Parameter(description = "Request containing the eForms XML notice (or the handle of a cached notice) to analyze", required = true) @RequestBody AnalyzeNoticeRequest request,
+            @Parameter(description = "ETag of a previously returned analysis result") @RequestHeader(name = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+            @Parameter(hidden = true) @RequestHeader(name = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
 
         log.info("Received analyze request");
 
-        Notice notice = analyzer.loadNotice(request.getNoticeXml());
-        if (manualTesting) {
-            log.info("Manual testing mode enabled for /analyze-notice");
-            dummyNotice = notice;
-        }
+        return analyze(noticeRef(request.getNoticeXml(), request.getNoticeHandle()), ifNoneMatch, acceptEncoding);
+    }
+
+    @Operation(summary = "Analyze a procurement notice sent as raw XML", description = "Same as the JSON variant, with the eForms XML notice as the request body")
+    @PostMapping(value = "/analyze-notice", consumes = { MediaType.APPLICATION_XML_VALUE, MediaType.TEXT_XML_VALUE }, produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<byte[]> analyzeNoticeXml(
+            @Parameter(description = "The eForms XML notice to analyze", required = true) @RequestBody byte[] noticeXml,
+            @RequestHeader(name = HttpHeaders.CONTENT_TYPE) MediaType contentType,
+            @Parameter(description = "ETag of a previously returned analysis result") @RequestHeader(name = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+            @Parameter(hidden = true) @RequestHeader(name = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+
+        log.info("Received analyze request (XML)");
 
-        GppAnalysisResult result = analyzer.analyzeNotice(notice);
-        return ResponseEntity.ok(result);
+        return analyze(noticeRef(decode(noticeXml, contentType), null), ifNoneMatch, acceptEncoding);
     }
 
-    @Operation(summary = "Suggest GPP patches for a notice", description = "Based on provided GPP criteria, suggests specific patches that can be applied to improve the procurement notice's GPP compliance")
+    @Operation(summary = "Analyze a procurement notice uploaded as a file", description = "Same as the JSON variant, with the eForms XML notice uploaded as the multipart part 'notice'")
+    @PostMapping(value = "/analyze-notice", consumes = MediaType.MULTIPART_FORM_DATA_VALUE, produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<byte[]> analyzeNoticeMultipart(
+            @Parameter(description = "The eForms XML notice file to analyze", required = true) @RequestPart("notice") MultipartFile notice,
+            @Parameter(description = "ETag of a previously returned analysis result") @RequestHeader(name = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+            @Parameter(hidden = true) @RequestHeader(name = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) throws IOException {
+
+        log.info("Received analyze request (multipart)");
+
+        return analyze(noticeRef(decode(notice), null), ifNoneMatch, acceptEncoding);
+    }
+
+    @Operation(summary = "Suggest GPP patches for a notice", description = "Based on provided GPP criteria, suggests specific patches that can be applied to improve the procurement notice's GPP compliance. "
+            +
+            "Without criteria or criteriaIds, the criteria in the server's criteria index for the CPV codes of the notice and its lots are used; "
+            +
+            "if the server has no criteria index, such a request is rejected with 400.")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Patches suggested successfully", content = @Content(mediaType = "application/json", schema = @Schema(implementation = SuggestPatchesResponse.class))),
-            @ApiResponse(responseCode = "400", description = "Invalid request data"),
+            @ApiResponse(responseCode = "400", description = "Invalid request data, or no criteria given and no criteria index configured"),
             @ApiResponse(responseCode = "500", description = "Internal server error during patch suggestion")
     })
     @PostMapping(value = "/suggest-patches", consumes = MediaType.APPLICATION_JSON_VALUE, produces = MediaType.APPLICATION_JSON_VALUE)
     public ResponseEntity<SuggestPatchesResponse> suggestPatches(
-            @Parameter(description = "Request containing notice XML and GPP criteria", required = true) @RequestBody SuggestPatchesRequest request,
-            @Parameter(description = "Use previously analyzed notice from manual testing mode") @RequestParam(name = "manualTesting", required = false, defaultValue = "false") boolean manualTesting) {
+            @Parameter(description = "Request containing notice XML (or the handle of a cached notice) and GPP criteria", required = true) @RequestBody SuggestPatchesRequest request) {
 
         log.info("Received suggest-patches request");
 
-        Notice notice;
-        if (manualTesting) {
-            log.info("Manual testing mode enabled for /suggest-patches");
-            notice = dummyNotice;
-        } else {
-            notice = analyzer.loadNotice(request.getNoticeXml());
+        List<SuggestedGppCriterion> criteria = request.getCriteria();
+        if (criteria == null && request.getCriteriaIds() != null) {
+            criteria = criteriaCatalog.resolve(request.getCriteriaIds());
         }
+        return suggest(noticeRef(request.getNoticeXml(), request.getNoticeHandle()), criteria);
+    }
 
-        List<SuggestedGppPatch> patches = analyzer.suggestPatches(notice, request.getCriteria());
-        return ResponseEntity.ok(new SuggestPatchesResponse(patches));
+    @Operation(summary = "Suggest GPP patches for a notice uploaded as a file", description = "Same as the JSON variant, with the eForms XML notice uploaded as the multipart part 'notice' and the criteria as the JSON part 'criteria'")
+    @PostMapping(value = "/suggest-patches", consumes = MediaType.MULTIPART_FORM_DATA_VALUE, produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<SuggestPatchesResponse> suggestPatchesMultipart(
+            @Parameter(description = "The eForms XML notice file", required = true) @RequestPart("notice") MultipartFile notice,
+            @Parameter(description = "List of GPP criteria to consider for patch suggestions (application/json)", required = true) @RequestPart("criteria") List<SuggestedGppCriterion> criteria) throws IOException {
+
+        log.info("Received suggest-patches request (multipart)");
+
+        return suggest(noticeRef(decode(notice), null), criteria);
     }
 
     @Operation(summary = "Apply GPP patches to a notice", description = "Applies the specified GPP patches to a procurement notice and returns the modified XML")
@@ -102,25 +186,38 @@ public class GppController {
     })
     @PostMapping(value = "/apply-patches", consumes = MediaType.APPLICATION_JSON_VALUE, produces = MediaType.APPLICATION_JSON_VALUE)
     public ResponseEntity<ApplyPatchesResponse> applyPatches(
-            @Parameter(description = "Request containing notice XML and patches to apply", required = true) @RequestBody ApplyPatchesRequest request,
-            @Parameter(description = "Use previously analyzed notice from manual testing mode") @RequestParam(name = "manualTesting", required = false, defaultValue = "false") boolean manualTesting) {
+            @Parameter(description = "Request containing notice XML (or the handle of a cached notice) and patches to apply", required = true) @RequestBody ApplyPatchesRequest request) {
 
         log.info("Received apply-patches request");
 
-        Notice notice;
-        if (manualTesting) {
-            log.info("Manual testing mode enabled for /apply-patches");
-            notice = dummyNotice;
-        } else {
-            notice = analyzer.loadNotice(request.getNoticeXml());
-        }
+        return apply(noticeRef(request.getNoticeXml(), request.getNoticeHandle()), request.getPatches());
+    }
+
+    @Operation(summary = "Apply GPP patches to a notice and stream the patched XML", description = "Same as the JSON variant, selected with Accept: application/xml. "
+            +
+            "The patched notice is streamed as the response body instead of being embedded in a JSON string; its handle is returned in the X-Notice-Handle header.")
+    @PostMapping(value = "/apply-patches", consumes = MediaType.APPLICATION_JSON_VALUE, produces = MediaType.APPLICATION_XML_VALUE)
+    public ResponseEntity<StreamingResponseBody> applyPatchesXml(
+            @Parameter(description = "Request containing notice XML (or the handle of a cached notice) and patches to apply", required = true) @RequestBody ApplyPatchesRequest request) {
+
+        log.info("Received apply-patches request (XML response)");
+
+        PatchedNotice patched = patch(noticeRef(request.getNoticeXml(), request.getNoticeHandle()), request.getPatches());
+        return ResponseEntity.ok()
+                .header(NOTICE_HANDLE_HEADER, patched.handle())
+                .contentType(new MediaType(MediaType.APPLICATION_XML, StandardCharsets.UTF_8))
+                .body(streamText(patched.noticeXml()));
+    }
 
-        Notice patchedNotice = analyzer.applyPatches(notice, request.getPatches());
-        String patchedNoticeXml = patchedNotice.toXmlString();
+    @Operation(summary = "Apply GPP patches to a notice uploaded as a file", description = "Same as the JSON variant, with the eForms XML notice uploaded as the multipart part 'notice' and the patches as the JSON part 'patches'")
+    @PostMapping(value = "/apply-patches", consumes = MediaType.MULTIPART_FORM_DATA_VALUE, produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<ApplyPatchesResponse> applyPatchesMultipart(
+            @Parameter(description = "The eForms XML notice file", required = true) @RequestPart("notice") MultipartFile notice,
+            @Parameter(description = "List of patches to apply to the notice (application/json)", required = true) @RequestPart("patches") List<SuggestedGppPatch> patches) throws IOException {
 
-        log.info("Patched notice XML");
+        log.info("Received apply-patches request (multipart)");
 
-        return ResponseEntity.ok(new ApplyPatchesResponse(patchedNoticeXml));
+        return apply(noticeRef(decode(notice), null), patches);
     }
 
     @Operation(summary = "Visualize a procurement notice", description = "Converts an eForms XML notice to HTML visualization using the TED API. "
@@ -137,34 +234,150 @@ public class GppController {
 
         log.info("Received visualize-notice request");
 
-        // Encode XML to Base64
-        String base64Xml = Base64.getEncoder().encodeToString(request.getNoticeXml().getBytes());
+        return visualize(request.getNoticeXml(), language);
+    }
+
+    @Operation(summary = "Visualize a procurement notice as HTML", description = "Same as the JSON variant, selected with Accept: text/html. "
+            +
+            "The HTML rendered by TED is streamed as the response body; TED API errors are returned as HTTP error statuses.")
+    @PostMapping(value = "/visualize-notice", consumes = MediaType.APPLICATION_JSON_VALUE, produces = MediaType.TEXT_HTML_VALUE)
+    public ResponseEntity<StreamingResponseBody> visualizeNoticeHtml(
+            @Parameter(description = "Request containing the eForms XML notice to visualize", required = true) @RequestBody VisualizeNoticeRequest request,
+            @Parameter(description = "Language code for visualization (default: en)") @RequestParam(name = "language", required = false, defaultValue = "en") String language) {
+
+        log.info("Received visualize-notice request (HTML response)");
+
+        return visualizeHtml(request.getNoticeXml(), language);
+    }
+
+    @Operation(summary = "Visualize a procurement notice sent as raw XML", description = "Same as the JSON variant, with the eForms XML notice as the request body")
+    @PostMapping(value = "/visualize-notice", consumes = { MediaType.APPLICATION_XML_VALUE, MediaType.TEXT_XML_VALUE }, produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<VisualizeNoticeResponse> visualizeNoticeXml(
+            @Parameter(description = "The eForms XML notice to visualize", required = true) @RequestBody byte[] noticeXml,
+            @RequestHeader(name = HttpHeaders.CONTENT_TYPE) MediaType contentType,
+            @Parameter(description = "Language code for visualization (default: en)") @RequestParam(name = "language", required = false, defaultValue = "en") String language) {
+
+        log.info("Received visualize-notice request (XML)");
+
+        return visualize(decode(noticeXml, contentType), language);
+    }
+
+    @Operation(summary = "Visualize a procurement notice sent as raw XML as HTML", description = "Same as the raw XML variant, selected with Accept: text/html; the HTML rendered by TED is streamed as the response body")
+    @PostMapping(value = "/visualize-notice", consumes = { MediaType.APPLICATION_XML_VALUE, MediaType.TEXT_XML_VALUE }, produces = MediaType.TEXT_HTML_VALUE)
+    public ResponseEntity<StreamingResponseBody> visualizeNoticeXmlHtml(
+            @Parameter(description = "The eForms XML notice to visualize", required = true) @RequestBody byte[] noticeXml,
+            @RequestHeader(name = HttpHeaders.CONTENT_TYPE) MediaType contentType,
+            @Parameter(description = "Language code for visualization (default: en)") @RequestParam(name = "language", required = false, defaultValue = "en") String language) {
+
+        log.info("Received visualize-notice request (XML, HTML response)");
+
+        return visualizeHtml(decode(noticeXml, contentType), language);
+    }
+
+    @Operation(summary = "Validate a procurement notice", description = "Validates an eForms XML notice using the TED API validation service. "
+            +
+            "Returns 200 with validation status - TED API errors are included in the response body. "
+            +
+            "Unless localValidation is off, the notice is first checked against the XSDs of its eForms SDK version; "
+            +
+            "schema errors are returned with validationStatus 422 without calling TED.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Validation request completed (check validationStatus for TED API errors)", content = @Content(mediaType = "application/json", schema = @Schema(implementation = ValidateNoticeResponse.class))),
+            @ApiResponse(responseCode = "400", description = "Missing or malformed notice XML"),
+            @ApiResponse(responseCode = "500", description = "Internal server error")
+    })
+    @PostMapping(value = "/validate-notice", consumes = MediaType.APPLICATION_JSON_VALUE, produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<ValidateNoticeResponse> validateNotice(
+            @Parameter(description = "Request containing the eForms XML notice to validate", required = true) @RequestBody ValidateNoticeRequest request) {
+
+        log.info("Received validate-notice request");
+
+        return validate(request.getNoticeXml(), request.getLanguage(), request.getValidationMode(),
+                request.getLocalValidation());
+    }
+
+    @Operation(summary = "Validate a procurement notice sent as raw XML", description = "Same as the JSON variant, with the eForms XML notice as the request body")
+    @PostMapping(value = "/validate-notice", consumes = { MediaType.APPLICATION_XML_VALUE, MediaType.TEXT_XML_VALUE }, produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<ValidateNoticeResponse> validateNoticeXml(
+            @Parameter(description = "The eForms XML notice to validate", required = true) @RequestBody byte[] noticeXml,
+            @RequestHeader(name = HttpHeaders.CONTENT_TYPE) MediaType contentType,
+            @Parameter(description = "Language code for validation (default: en)") @RequestParam(name = "language", required = false, defaultValue = "en") String language,
+            @Parameter(description = "Validation mode (default: static)") @RequestParam(name = "validationMode", required = false, defaultValue = "static") String validationMode,
+            @Parameter(description = "Local schema validation: off, precheck or only (default: app.validation.local)") @RequestParam(name = "localValidation", required = false) String localValidation) {
+
+        log.info("Received validate-notice request (XML)");
+
+        return validate(decode(noticeXml, contentType), language, validationMode, localValidation);
+    }
+
+    private ResponseEntity<byte[]> analyze(NoticeRef ref, String ifNoneMatch, String acceptEncoding) {
+        String etag = analysisResultCache.etag(ref.handle());
+
+        // "*" only matches a result analyzed before; otherwise the notice is resolved below,
+        // so an unknown handle is still a 404
+        if (AnalysisResultCache.matches(ifNoneMatch, etag, serializedResponseCache.hasAnalysis(etag))) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                    .eTag(etag)
+                    .header(NOTICE_HANDLE_HEADER, ref.handle())
+                    .build();
+        }
+
+        SerializedResponse response = serializedResponseCache.analysis(etag, () -> {
+            try (NoticeCache.Lease lease = leaseNotice(ref)) {
+                return analyzerPool.execute(
+                        analyzer -> gppMetrics.time(GppMetrics.ANALYZE, () -> analyzer.analyzeNotice(lease.getNotice())));
+            }
+        });
+        return response.toResponse(ResponseEntity.ok().header(NOTICE_HANDLE_HEADER, ref.handle()), etag,
+                acceptEncoding);
+    }
+
+    private ResponseEntity<SuggestPatchesResponse> suggest(NoticeRef ref, List<SuggestedGppCriterion> criteria) {
+        // an empty index would answer "nothing to suggest" for every notice
+        if (criteria == null && criteriaCatalog.current().size() == 0) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "No criteria supplied and no criteria catalog configured (app.criteria.file)");
+        }
+        try (NoticeCache.Lease lease = leaseNotice(ref)) {
+            List<SuggestedGppCriterion> applicable = criteria != null ? criteria
+                    : criteriaCatalog.forCpvs(readSummary(lease.getNoticeXml()).allCpvCodes());
+            List<SuggestedGppPatch> patches = gppMetrics.time(GppMetrics.SUGGEST,
+                    () -> patchSuggester.suggest(lease, applicable));
+            return ResponseEntity.ok()
+                    .header(NOTICE_HANDLE_HEADER, lease.getHandle())
+                    .body(new SuggestPatchesResponse(patches));
+        }
+    }
 
-        // Prepare request body for TED API
-        String tedRequestBody = String.format(
-                "{\"file\":\"%s\",\"language\":\"%s\",\"format\":\"HTML\",\"summary\":false}",
-                base64Xml, language);
+    private ResponseEntity<ApplyPatchesResponse> apply(NoticeRef ref, List<SuggestedGppPatch> patches) {
+        PatchedNotice patched = patch(ref, patches);
+        return ResponseEntity.ok()
+                .header(NOTICE_HANDLE_HEADER, patched.handle())
+                .body(new ApplyPatchesResponse(patched.noticeXml()));
+    }
 
-        // Set headers
-        HttpHeaders headers = new HttpHeaders();
-        headers.setContentType(MediaType.APPLICATION_JSON);
-        headers.setAccept(Collections.singletonList(MediaType.TEXT_HTML));
-        headers.setBearerAuth(appConfig.getApi().getTedApiKey());
+    private PatchedNotice patch(NoticeRef ref, List<SuggestedGppPatch> patches) {
+        try (NoticeCache.Lease lease = leaseNotice(ref)) {
+            // applying patches modifies the leased copy, so it must not go back to the cache
+            lease.detach();
 
-        HttpEntity<String> requestEntity = new HttpEntity<>(tedRequestBody, headers);
+            Notice patchedNotice = analyzerPool.execute(analyzer -> gppMetrics.time(GppMetrics.APPLY,
+                    () -> analyzer.applyPatches(lease.getNotice(), patches)));
+            String patchedNoticeXml = gppMetrics.time(GppMetrics.SERIALIZE, patchedNotice::toXmlString);
+            gppMetrics.recordSize(GppMetrics.PATCHED_XML, patchedNoticeXml.length());
 
-        // Call TED API
-        RestTemplate restTemplate = new RestTemplate();
-        String tedApiUrl = "https://api.ted.europa.eu/v3/notices/render";
+            log.info("Patched notice XML");
 
+            String patchedHandle = noticeCache.put(patchedNoticeXml, patchedNotice);
+            return new PatchedNotice(patchedHandle, patchedNoticeXml);
+        }
+    }
+
+    private ResponseEntity<VisualizeNoticeResponse> visualize(String noticeXml, String language) {
         VisualizeNoticeResponse response = new VisualizeNoticeResponse();
 
         try {
-            ResponseEntity<String> tedResponse = restTemplate.exchange(
-                    tedApiUrl,
-                    HttpMethod.POST,
-                    requestEntity,
-                    String.class);
+            ResponseEntity<String> tedResponse = render(noticeXml, language);
 
             // Success case - TED API returned HTML
             response.setNoticeHtml(tedResponse.getBody());
@@ -183,6 +396,14 @@ public class GppController {
 
             return ResponseEntity.ok(response);
 
+        } catch (TedUnavailableException e) {
+            // TED is known to be unhealthy or saturated, fail fast without calling it
+            response.setNoticeHtml(null);
+            response.setSummary("TED API temporarily unavailable: " + e.getMessage());
+            response.setVisualizationStatus(503);
+
+            return ResponseEntity.ok(response);
+
         } catch (Exception e) {
             // Handle other exceptions (network issues, etc.)
             response.setNoticeHtml(null);
@@ -193,51 +414,84 @@ public class GppController {
         }
     }
 
-    @Operation(summary = "Validate a procurement notice", description = "Validates an eForms XML notice using the TED API validation service. "
-            +
-            "Returns 200 with validation status - TED API errors are included in the response body.")
-    @ApiResponses(value = {
-            @ApiResponse(responseCode = "200", description = "Validation request completed (check validationStatus for TED API errors)", content = @Content(mediaType = "application/json", schema = @Schema(implementation = ValidateNoticeResponse.class))),
-            @ApiResponse(responseCode = "500", description = "Internal server error")
-    })
-    @PostMapping(value = "/validate-notice", consumes = MediaType.APPLICATION_JSON_VALUE, produces = MediaType.APPLICATION_JSON_VALUE)
-    public ResponseEntity<ValidateNoticeResponse> validateNotice(
-            @Parameter(description = "Request containing the eForms XML notice to validate", required = true) @RequestBody ValidateNoticeRequest request) {
-
-        log.info("Received validate-notice request");
-
-        // Load notice to get the eForms SDK version
-        Notice notice = analyzer.loadNotice(request.getNoticeXml());
-        String eFormsSdkVersion = notice.getEFormsSdkVersion();
-
-        // Encode XML to Base64
-        String base64Xml = Base64.getEncoder().encodeToString(request.getNoticeXml().getBytes());
+    private ResponseEntity<StreamingResponseBody> visualizeHtml(String noticeXml, String language) {
+        String handle = NoticeDigest.sha256Hex(noticeXml);
+        // TED is called while the body is written, but fails before the first byte so the status can still be set
+        StreamingResponseBody body = out -> {
+            try {
+                tedResultCache.renderTo(handle, language, out,
+                        target -> tedApiClient.renderTo(noticeXml, language, target));
+            } catch (org.springframework.web.client.HttpClientErrorException e) {
+                throw new ResponseStatusException(e.getStatusCode(),
+                        parseErrorResponse(e.getResponseBodyAsString()).getMessage());
+            } catch (TedUnavailableException e) {
+                throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, e.getMessage());
+            } catch (IOException e) {
+                throw e;
+            } catch (Exception e) {
+                throw new ResponseStatusException(HttpStatus.BAD_GATEWAY, "TED API call failed: " + e.getMessage());
+            }
+        };
+        return ResponseEntity.ok()
+                .contentType(new MediaType(MediaType.TEXT_HTML, StandardCharsets.UTF_8))
+                .body(body);
+    }
 
-        // Prepare request body for TED API
-        String tedRequestBody = String.format(
-                "{\"notice\":\"%s\",\"language\":\"%s\",\"validationMode\":\"%s\",\"eFormsSdkVersion\":\"%s\"}",
-                base64Xml, request.getLanguage(), request.getValidationMode(), eFormsSdkVersion);
+    private ResponseEntity<String> render(String noticeXml, String language) {
+        return tedResultCache.render(NoticeDigest.sha256Hex(noticeXml), language,
+                () -> tedApiClient.render(noticeXml, language));
+    }
 
-        // Set headers
-        HttpHeaders headers = new HttpHeaders();
-        headers.setContentType(MediaType.APPLICATION_JSON);
-        headers.setAccept(Collections.singletonList(MediaType.APPLICATION_XML));
-        headers.setBearerAuth(appConfig.getApi().getTedApiKey());
+    private ResponseEntity<ValidateNoticeResponse> validate(String noticeXml, String language, String validationMode,
+            String localValidation) {
+        String localMode = localValidation != null ? localValidation : appConfig.getValidation().getLocal();
+        if (!LocalNoticeValidator.isValidMode(localMode)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "localValidation must be one of off, precheck, only");
+        }
 
-        HttpEntity<String> requestEntity = new HttpEntity<>(tedRequestBody, headers);
+        if (noticeXml == null || noticeXml.isBlank()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "noticeXml must be provided");
+        }
 
-        // Call TED API
-        RestTemplate restTemplate = new RestTemplate();
-        String tedApiUrl = "https://api.ted.europa.eu/v3/notices/validate";
+        // Validation only needs the SDK version and root element, a streaming read
+        // avoids building the notice's document model
+        NoticeSummary summary;
+        try {
+            summary = gppMetrics.time(GppMetrics.PARSE, () -> readSummary(noticeXml));
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+        String eFormsSdkVersion = summary.eFormsSdkVersion();
+        String handle = NoticeDigest.sha256Hex(noticeXml);
 
         ValidateNoticeResponse response = new ValidateNoticeResponse();
 
+        if (!LocalNoticeValidator.OFF.equals(localMode)) {
+            LocalNoticeValidator.Result local = localNoticeValidator.validate(noticeXml, summary.rootElement(),
+                    eFormsSdkVersion);
+            if (local.checked() && !local.valid()) {
+                // schema errors are final, TED would reject the notice for the same reasons
+                response.setSchemaErrors(local.errors());
+                response.setSummary("Schema validation failed: " + local.errors().size() + " errors");
+                response.setValidationStatus(422);
+                return ResponseEntity.ok(response);
+            }
+            if (LocalNoticeValidator.ONLY.equals(localMode)) {
+                if (local.checked()) {
+                    response.setSummary("Schema validation passed (local only)");
+                    response.setValidationStatus(200);
+                } else {
+                    response.setSummary("Local validation unavailable: " + local.message());
+                    response.setValidationStatus(501);
+                }
+                return ResponseEntity.ok(response);
+            }
+        }
+
         try {
-            ResponseEntity<String> tedResponse = restTemplate.exchange(
-                    tedApiUrl,
-                    HttpMethod.POST,
-                    requestEntity,
-                    String.class);
+            ResponseEntity<String> tedResponse = tedResultCache.validation(handle, language, validationMode,
+                    eFormsSdkVersion, () -> tedApiClient.validate(noticeXml, language, validationMode, eFormsSdkVersion));
 
             // Success case - TED API returned validation report as XML
             response.setValidationReportXml(tedResponse.getBody());
@@ -256,6 +510,14 @@ public class GppController {
 
             return ResponseEntity.ok(response);
 
+        } catch (TedUnavailableException e) {
+            // TED is known to be unhealthy or saturated, fail fast without calling it
+            response.setValidationReportXml(null);
+            response.setSummary("TED API temporarily unavailable: " + e.getMessage());
+            response.setValidationStatus(503);
+
+            return ResponseEntity.ok(response);
+
         } catch (Exception e) {
             // Handle other exceptions (network issues, etc.)
             response.setValidationReportXml(null);
@@ -266,6 +528,92 @@ public class GppController {
         }
     }
 
+    private static NoticeSummary readSummary(String noticeXml) {
+        try {
+            return NoticeSummaryReader.read(noticeXml);
+        } catch (XMLStreamException e) {
+            throw new IllegalArgumentException("Invalid notice XML: " + e.getMessage(), e);
+        }
+    }
+
+    private static String decode(byte[] noticeXml, MediaType contentType) {
+        if (contentType != null && contentType.getCharset() != null) {
+            return new String(noticeXml, contentType.getCharset());
+        }
+        // without a charset parameter the document names its own encoding (RFC 7303)
+        if (startsWith(noticeXml, 0xEF, 0xBB, 0xBF)) {
+            return new String(noticeXml, 3, noticeXml.length - 3, StandardCharsets.UTF_8);
+        }
+        if (startsWith(noticeXml, 0xFE, 0xFF) || startsWith(noticeXml, 0xFF, 0xFE)) {
+            return new String(noticeXml, StandardCharsets.UTF_16);
+        }
+        Charset charset = StandardCharsets.UTF_8;
+        Matcher declaration = XML_ENCODING.matcher(
+                new String(noticeXml, 0, Math.min(noticeXml.length, 256), StandardCharsets.ISO_8859_1));
+        if (declaration.lookingAt()) {
+            try {
+                charset = Charset.forName(declaration.group(1));
+            } catch (IllegalArgumentException e) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                        "Unsupported encoding in XML declaration: " + declaration.group(1));
+            }
+        }
+        return new String(noticeXml, charset);
+    }
+
+    private static boolean startsWith(byte[] bytes, int... prefix) {
+        if (bytes.length < prefix.length) {
+            return false;
+        }
+        for (int i = 0; i < prefix.length; i++) {
+            if ((bytes[i] & 0xFF) != prefix[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static String decode(MultipartFile notice) throws IOException {
+        MediaType contentType = notice.getContentType() != null ? MediaType.parseMediaType(notice.getContentType()) : null;
+        return decode(notice.getBytes(), contentType);
+    }
+
+    private NoticeRef noticeRef(String noticeXml, String noticeHandle) {
+        if (noticeHandle != null && !noticeHandle.isBlank()) {
+            // a handle takes precedence, the XML (if any) is ignored
+            return new NoticeRef(noticeHandle, null);
+        }
+        if (noticeXml == null || noticeXml.isBlank()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Either noticeXml or noticeHandle must be provided");
+        }
+        return new NoticeRef(NoticeDigest.sha256Hex(noticeXml), noticeXml);
+    }
+
+    private NoticeCache.Lease leaseNotice(NoticeRef ref) {
+        return noticeCache.acquire(ref.handle(), ref.noticeXml());
+    }
+
+    private record PatchedNotice(String handle, String noticeXml) {
+    }
+
+    // Encodes the text straight into the response in small chunks, rather than into one
+    // byte array or an escaped JSON string first. The writer copies what it is given into
+    // a char array, so it is handed bounded slices; it carries a surrogate pair split
+    // between two slices over to the next one.
+    private static StreamingResponseBody streamText(String text) {
+        return out -> {
+            Writer writer = new OutputStreamWriter(out, StandardCharsets.UTF_8);
+            for (int offset = 0; offset < text.length(); offset += STREAM_CHUNK_CHARS) {
+                writer.write(text, offset, Math.min(STREAM_CHUNK_CHARS, text.length() - offset));
+            }
+            writer.flush();
+        };
+    }
+
+    // A notice identified by its content hash, with the XML when the client sent it
+    private record NoticeRef(String handle, String noticeXml) {
+    }
+
     private TedApiErrorResponse parseErrorResponse(String responseBody) {
         try {
             ObjectMapper objectMapper = new ObjectMapper();
@@ -302,6 +650,8 @@ public class GppController {
     public static class AnalyzeNoticeRequest {
         @Schema(description = "The eForms XML notice content to analyze", example = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>...")
         private String noticeXml;
+        @Schema(description = "Handle of a notice cached by a previous request (returned in the X-Notice-Handle header), used instead of noticeXml", example = "3f2a...")
+        private String noticeHandle;
 
         public String getNoticeXml() {
             return noticeXml;
@@ -310,14 +660,26 @@ public class GppController {
         public void setNoticeXml(String noticeXml) {
             this.noticeXml = noticeXml;
         }
+
+        public String getNoticeHandle() {
+            return noticeHandle;
+        }
+
+        public void setNoticeHandle(String noticeHandle) {
+            this.noticeHandle = noticeHandle;
+        }
     }
 
     @Schema(description = "Request to suggest GPP patches based on criteria")
     public static class SuggestPatchesRequest {
         @Schema(description = "The eForms XML notice content", example = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>...")
         private String noticeXml;
+        @Schema(description = "Handle of a notice cached by a previous request (returned in the X-Notice-Handle header), used instead of noticeXml", example = "3f2a...")
+        private String noticeHandle;
         @Schema(description = "List of GPP criteria to consider for patch suggestions")
         private List<SuggestedGppCriterion> criteria;
+        @Schema(description = "Ids of criteria from the server's criteria index (GET /api/v1/criteria), used when criteria is not given; without either, the index's criteria for the notice's CPV codes are used")
+        private List<String> criteriaIds;
 
         public String getNoticeXml() {
             return noticeXml;
@@ -327,6 +689,14 @@ public class GppController {
             this.noticeXml = noticeXml;
         }
 
+        public String getNoticeHandle() {
+            return noticeHandle;
+        }
+
+        public void setNoticeHandle(String noticeHandle) {
+            this.noticeHandle = noticeHandle;
+        }
+
         public List<SuggestedGppCriterion> getCriteria() {
             return criteria;
         }
@@ -334,6 +704,14 @@ public class GppController {
         public void setCriteria(List<SuggestedGppCriterion> criteria) {
             this.criteria = criteria;
         }
+
+        public List<String> getCriteriaIds() {
+            return criteriaIds;
+        }
+
+        public void setCriteriaIds(List<String> criteriaIds) {
+            this.criteriaIds = criteriaIds;
+        }
     }
 
     @Schema(description = "Response containing suggested GPP patches")
@@ -358,6 +736,8 @@ public class GppController {
     public static class ApplyPatchesRequest {
         @Schema(description = "The eForms XML notice content", example = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>...")
         private String noticeXml;
+        @Schema(description = "Handle of a notice cached by a previous request (returned in the X-Notice-Handle header), used instead of noticeXml", example = "3f2a...")
+        private String noticeHandle;
         @Schema(description = "List of patches to apply to the notice")
         private List<SuggestedGppPatch> patches;
 
@@ -369,6 +749,14 @@ public class GppController {
             this.noticeXml = noticeXml;
         }
 
+        public String getNoticeHandle() {
+            return noticeHandle;
+        }
+
+        public void setNoticeHandle(String noticeHandle) {
+            this.noticeHandle = noticeHandle;
+        }
+
         public List<SuggestedGppPatch> getPatches() {
             return patches;
         }
@@ -453,6 +841,9 @@ public class GppController {
         @Schema(description = "Validation mode (default: static)", example = "static", allowableValues = { "static",
                 "dynamic" })
         private String validationMode = "static";
+        @Schema(description = "Local schema validation before calling TED (default: app.validation.local)", example = "precheck", allowableValues = {
+                "off", "precheck", "only" })
+        private String localValidation;
 
         public String getNoticeXml() {
             return noticeXml;
@@ -477,6 +868,14 @@ public class GppController {
         public void setValidationMode(String validationMode) {
             this.validationMode = validationMode;
         }
+
+        public String getLocalValidation() {
+            return localValidation;
+        }
+
+        public void setLocalValidation(String localValidation) {
+            this.localValidation = localValidation;
+        }
     }
 
     @Schema(description = "Response containing the validation results")
@@ -485,8 +884,10 @@ public class GppController {
         private String validationReportXml;
         @Schema(description = "Summary of the validation process or error message")
         private String summary;
-        @Schema(description = "HTTP status code from the TED API validation service")
+        @Schema(description = "HTTP status code from the TED API validation service (422 for local schema errors)")
         private int validationStatus;
+        @Schema(description = "Errors found by the local schema validation (null if it passed or did not run)")
+        private List<String> schemaErrors;
 
         public String getValidationReportXml() {
             return validationReportXml;
@@ -511,5 +912,13 @@ public class GppController {
         public void setValidationStatus(int validationStatus) {
             this.validationStatus = validationStatus;
         }
+
+        public List<String> getSchemaErrors() {
+            return schemaErrors;
+        }
+
+        public void setSchemaErrors(List<String> schemaErrors) {
+            this.schemaErrors = schemaErrors;
+        }
     }
 }
\ No newline at end of file
@@ -0,0 +1,134 @@
+package it.polimi.gpplib.eforms_gpp_service.controller;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import lombok.extern.slf4j.Slf4j;
+import it.polimi.gpplib.eforms_gpp_service.config.AppConfig;
+import it.polimi.gpplib.eforms_gpp_service.controller.BatchController.AnalyzeNoticesRequest;
+import it.polimi.gpplib.eforms_gpp_service.controller.BatchController.AnalyzeNoticesResponse;
+import it.polimi.gpplib.eforms_gpp_service.controller.GppController.ValidateNoticeRequest;
+import it.polimi.gpplib.eforms_gpp_service.controller.GppController.VisualizeNoticeRequest;
+import it.polimi.gpplib.eforms_gpp_service.service.BatchAnalysisService;
+import it.polimi.gpplib.eforms_gpp_service.service.Job;
+import it.polimi.gpplib.eforms_gpp_service.service.JobService;
+import it.polimi.gpplib.eforms_gpp_service.web.RateLimitFilter;
+import jakarta.servlet.http.HttpServletRequest;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.List;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+
+@Slf4j
+@RestController
+@RequestMapping("/api/v1/jobs")
+@Tag(name = "eForms GPP Job Controller", description = "API for running long analyses, validations and visualizations as asynchronous jobs")
+public class JobController {
+
+    @Autowired
+    private JobService jobService;
+
+    @Autowired
+    private BatchAnalysisService batchAnalysisService;
+
+    @Autowired
+    private GppController gppController;
+
+    @Autowired
+    private AppConfig appConfig;
+
+    @Autowired
+    private NoticeBatchReader noticeBatchReader;
+
+    @Operation(summary = "Submit a batch analysis job", description = "Queues the analysis of a batch of notices and returns the job immediately. "
+            +
+            "The job result is the response of POST /api/v1/analyze-notices.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "202", description = "Job queued, poll the Location header for its status", content = @Content(mediaType = "application/json", schema = @Schema(implementation = Job.class))),
+            @ApiResponse(responseCode = "400", description = "No notices provided, a notice sent as noticeHandle, or malformed JSON"),
+            @ApiResponse(responseCode = "413", description = "Batch exceeds the configured maximum number of notices or request size"),
+            @ApiResponse(responseCode = "503", description = "Too many queued jobs")
+    })
+    @io.swagger.v3.oas.annotations.parameters.RequestBody(description = "Request containing the eForms XML notices to analyze", required = true, content = @Content(mediaType = "application/json", schema = @Schema(implementation = AnalyzeNoticesRequest.class)))
+    @PostMapping(value = "/analyze", consumes = MediaType.APPLICATION_JSON_VALUE, produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<Job> submitAnalyze(HttpServletRequest request) {
+
+        List<String> noticeXmls = noticeBatchReader.read(request);
+        return accepted(jobService.submit("analyze",
+                () -> new AnalyzeNoticesResponse(batchAnalysisService.analyzeAll(noticeXmls))));
+    }
+
+    @Operation(summary = "Submit a validation job", description = "Queues the validation of a notice with the TED API and returns the job immediately. "
+            +
+            "The job result is the response of POST /api/v1/validate-notice.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "202", description = "Job queued, poll the Location header for its status", content = @Content(mediaType = "application/json", schema = @Schema(implementation = Job.class))),
+            @ApiResponse(responseCode = "503", description = "Too many queued jobs")
+    })
+    @PostMapping(value = "/validate", consumes = MediaType.APPLICATION_JSON_VALUE, produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<Job> submitValidate(
+            @Parameter(description = "Request containing the eForms XML notice to validate", required = true) @RequestBody ValidateNoticeRequest request) {
+
+        return accepted(jobService.submit("validate", () -> gppController.validateNotice(request).getBody()));
+    }
+
+    @Operation(summary = "Submit a visualization job", description = "Queues the rendering of a notice with the TED API and returns the job immediately. "
+            +
+            "The job result is the response of POST /api/v1/visualize-notice.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "202", description = "Job queued, poll the Location header for its status", content = @Content(mediaType = "application/json", schema = @Schema(implementation = Job.class))),
+            @ApiResponse(responseCode = "503", description = "Too many queued jobs")
+    })
+    @PostMapping(value = "/visualize", consumes = MediaType.APPLICATION_JSON_VALUE, produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<Job> submitVisualize(
+            @Parameter(description = "Request containing the eForms XML notice to visualize", required = true) @RequestBody VisualizeNoticeRequest request,
+            @Parameter(description = "Language code for visualization (default: en)") @RequestParam(name = "language", required = false, defaultValue = "en") String language) {
+
+        return accepted(jobService.submit("visualize", () -> gppController.visualizeNotice(request, language).getBody()));
+    }
+
+    @Operation(summary = "Get a job", description = "Returns the status of a job and, once it has finished, its result or error. "
+            +
+            "With wait > 0 the request is held until the job finishes or the wait elapses (long polling).")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Current state of the job", content = @Content(mediaType = "application/json", schema = @Schema(implementation = Job.class))),
+            @ApiResponse(responseCode = "404", description = "Unknown or expired job")
+    })
+    @GetMapping(value = "/{id}", produces = MediaType.APPLICATION_JSON_VALUE)
+    public DeferredResult<Job> getJob(
+            @Parameter(description = "Job id") @PathVariable String id,
+            @Parameter(description = "Seconds to wait for the job to finish, capped by app.jobs.max-wait (default: 0, return immediately)") @RequestParam(name = "wait", required = false, defaultValue = "0") long waitSeconds,
+            HttpServletRequest request) {
+
+        Duration wait = Duration.ofSeconds(Math.max(0, waitSeconds));
+        if (wait.compareTo(appConfig.getJobs().getMaxWait()) > 0) {
+            wait = appConfig.getJobs().getMaxWait();
+        }
+        if (wait.isZero()) {
+            DeferredResult<Job> result = new DeferredResult<>();
+            result.setResult(jobService.get(id));
+            return result;
+        }
+        DeferredResult<Job> result = new DeferredResult<>(wait.toMillis(), () -> jobService.get(id));
+        // a long poll holds no thread while it waits, so it does not count as a request in progress
+        RateLimitFilter.releaseWhileWaiting(request);
+        jobService.whenFinished(id).thenAccept(result::setResult);
+        return result;
+    }
+
+    private static ResponseEntity<Job> accepted(Job job) {
+        return ResponseEntity.accepted()
+                .location(URI.create("/api/v1/jobs/" + job.id()))
+                .body(job);
+    }
+}
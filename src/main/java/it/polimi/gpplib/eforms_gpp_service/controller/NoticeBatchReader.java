@@ -0,0 +1,145 @@
+package it.polimi.gpplib.eforms_gpp_service.controller;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import it.polimi.gpplib.eforms_gpp_service.config.AppConfig;
+import it.polimi.gpplib.eforms_gpp_service.controller.GppController.AnalyzeNoticeRequest;
+import it.polimi.gpplib.eforms_gpp_service.service.GppMetrics;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reads the notices of a JSON batch request ({@code {"notices": [...]}}) with
+ * bounded memory.
+ *
+ * Bodies larger than {@code app.batch.max-request-bytes} are rejected with 413
+ * from their Content-Length, or, when it is unknown (chunked or gzip-encoded
+ * uploads), as soon as that many bytes have been read. Notices are bound one
+ * at a time, so reading stops at the first notice beyond
+ * {@code app.batch.max-batch-size} instead of binding the whole array first.
+ */
+@Component
+class NoticeBatchReader {
+
+    private final ObjectMapper objectMapper;
+    private final GppMetrics gppMetrics;
+    private final AppConfig.Batch config;
+
+    NoticeBatchReader(ObjectMapper objectMapper, GppMetrics gppMetrics, AppConfig appConfig) {
+        this.objectMapper = objectMapper;
+        this.gppMetrics = gppMetrics;
+        this.config = appConfig.getBatch();
+    }
+
+    /**
+     * Returns the XML of every notice, in request order; notices without XML are kept as null
+     * so they are reported per item.
+     */
+    List<String> read(HttpServletRequest request) {
+        long maxBytes = config.getMaxRequestBytes();
+        long contentLength = request.getContentLengthLong();
+        if (contentLength > maxBytes) {
+            throw tooLarge(maxBytes);
+        }
+        if (contentLength >= 0) {
+            gppMetrics.recordSize(GppMetrics.REQUEST_BODY, contentLength);
+        }
+        List<String> noticeXmls = gppMetrics.time(GppMetrics.DESERIALIZE, () -> {
+            try (JsonParser parser = objectMapper.createParser(new LimitedInputStream(request.getInputStream(), maxBytes))) {
+                return readNotices(parser);
+            } catch (JsonProcessingException e) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Malformed batch request: " + e.getOriginalMessage());
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        if (noticeXmls.isEmpty()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "At least one notice must be provided");
+        }
+        return noticeXmls;
+    }
+
+    private List<String> readNotices(JsonParser parser) throws IOException {
+        if (parser.nextToken() != JsonToken.START_OBJECT) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Expected a JSON object with a notices array");
+        }
+        List<String> noticeXmls = new ArrayList<>();
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            JsonToken value = parser.nextToken();
+            if (!field.equals("notices") || value == JsonToken.VALUE_NULL) {
+                parser.skipChildren();
+                continue;
+            }
+            if (value != JsonToken.START_ARRAY) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "notices must be an array");
+            }
+            int maxBatchSize = config.getMaxBatchSize();
+            while (parser.nextToken() != JsonToken.END_ARRAY) {
+                if (noticeXmls.size() == maxBatchSize) {
+                    throw new ResponseStatusException(HttpStatus.PAYLOAD_TOO_LARGE,
+                            "Batch contains more than " + maxBatchSize + " notices, the maximum is " + maxBatchSize);
+                }
+                AnalyzeNoticeRequest notice = parser.readValueAs(AnalyzeNoticeRequest.class);
+                if (notice != null && notice.getNoticeHandle() != null) {
+                    throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                            "Batch notices must be sent as noticeXml, noticeHandle is not supported in batches");
+                }
+                noticeXmls.add(notice != null ? notice.getNoticeXml() : null);
+            }
+        }
+        return noticeXmls;
+    }
+
+    private static ResponseStatusException tooLarge(long maxBytes) {
+        return new ResponseStatusException(HttpStatus.PAYLOAD_TOO_LARGE,
+                "Batch request exceeds " + maxBytes + " bytes (app.batch.max-request-bytes), split it or use NDJSON");
+    }
+
+    // Fails the read once more than maxBytes have been read, for bodies without a Content-Length
+    private static class LimitedInputStream extends FilterInputStream {
+        private final long maxBytes;
+        private long read;
+
+        LimitedInputStream(InputStream in, long maxBytes) {
+            super(in);
+            this.maxBytes = maxBytes;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) {
+                count(1);
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = super.read(b, off, len);
+            if (n > 0) {
+                count(n);
+            }
+            return n;
+        }
+
+        private void count(int n) {
+            read += n;
+            if (read > maxBytes) {
+                throw tooLarge(maxBytes);
+            }
+        }
+    }
+}
@@ -0,0 +1,147 @@
+package it.polimi.gpplib.eforms_gpp_service.controller;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import lombok.extern.slf4j.Slf4j;
+import it.polimi.gpplib.model.Notice;
+import it.polimi.gpplib.model.SuggestedGppPatch;
+import it.polimi.gpplib.eforms_gpp_service.service.AnalysisResultCache;
+import it.polimi.gpplib.eforms_gpp_service.service.AnalyzerPool;
+import it.polimi.gpplib.eforms_gpp_service.service.GppMetrics;
+import it.polimi.gpplib.eforms_gpp_service.service.NoticeCache;
+import it.polimi.gpplib.eforms_gpp_service.service.XmlDiff;
+
+import java.time.Duration;
+import java.util.List;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+
+@Slf4j
+@RestController
+@RequestMapping("/api/v1/notices")
+@Tag(name = "eForms Notice Controller", description = "API for editing notices cached on the server, identified by their handle")
+public class NoticeController {
+
+    @Autowired
+    private AnalyzerPool analyzerPool;
+
+    @Autowired
+    private NoticeCache noticeCache;
+
+    @Autowired
+    private GppMetrics gppMetrics;
+
+    @Operation(summary = "Get a cached notice", description = "Returns the XML of a notice cached under the given handle. "
+            +
+            "Handles are content hashes, so the response never changes and is served with a strong ETag.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Notice XML", content = @Content(mediaType = "application/xml")),
+            @ApiResponse(responseCode = "304", description = "Client already has this notice"),
+            @ApiResponse(responseCode = "404", description = "Unknown or expired notice handle")
+    })
+    @GetMapping(value = "/{handle}", produces = MediaType.APPLICATION_XML_VALUE)
+    public ResponseEntity<String> getNotice(
+            @Parameter(description = "Notice handle, as returned in the X-Notice-Handle header") @PathVariable String handle,
+            @RequestHeader(name = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+
+        String etag = "\"" + handle + "\"";
+        String noticeXml = noticeCache.noticeXml(handle);
+        if (AnalysisResultCache.matches(ifNoneMatch, etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+        }
+        return ResponseEntity.ok()
+                .eTag(etag)
+                .cacheControl(CacheControl.maxAge(Duration.ofDays(365)).cachePrivate().immutable())
+                .contentType(MediaType.APPLICATION_XML)
+                .body(noticeXml);
+    }
+
+    @Operation(summary = "Apply GPP patches to a cached notice", description = "Applies patches to the notice cached under the given handle "
+            +
+            "and returns only the changed elements, in order, together with the handle of the patched notice. "
+            +
+            "The patched notice is cached as well, so patches can be applied one at a time without re-uploading the notice; "
+            +
+            "fetch it with GET /api/v1/notices/{handle} when the full document is needed.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Patches applied", content = @Content(mediaType = "application/json", schema = @Schema(implementation = NoticeChangesResponse.class))),
+            @ApiResponse(responseCode = "404", description = "Unknown or expired notice handle")
+    })
+    @PostMapping(value = "/{handle}/apply-patches", consumes = MediaType.APPLICATION_JSON_VALUE, produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<NoticeChangesResponse> applyPatches(
+            @Parameter(description = "Notice handle, as returned in the X-Notice-Handle header") @PathVariable String handle,
+            @Parameter(description = "Patches to apply", required = true) @RequestBody ApplyNoticePatchesRequest request) {
+
+        log.info("Received incremental apply-patches request for notice {}", handle);
+
+        try (NoticeCache.Lease lease = noticeCache.acquireByHandle(handle)) {
+            // applying patches modifies the leased copy, so it must not go back to the cache
+            lease.detach();
+
+            Notice patchedNotice = analyzerPool.execute(analyzer -> gppMetrics.time(GppMetrics.APPLY,
+                    () -> analyzer.applyPatches(lease.getNotice(), request.getPatches())));
+            String patchedNoticeXml = gppMetrics.time(GppMetrics.SERIALIZE, patchedNotice::toXmlString);
+            String patchedHandle = noticeCache.put(patchedNoticeXml, patchedNotice);
+
+            List<XmlDiff.Change> changes = gppMetrics.time(GppMetrics.DIFF,
+                    () -> XmlDiff.diff(lease.getNoticeXml(), patchedNoticeXml));
+
+            return ResponseEntity.ok()
+                    .header(GppController.NOTICE_HANDLE_HEADER, patchedHandle)
+                    .body(new NoticeChangesResponse(handle, patchedHandle, changes));
+        }
+    }
+
+    @Schema(description = "Request to apply patches to a cached notice")
+    public static class ApplyNoticePatchesRequest {
+        @Schema(description = "List of patches to apply to the notice")
+        private List<SuggestedGppPatch> patches;
+
+        public List<SuggestedGppPatch> getPatches() {
+            return patches;
+        }
+
+        public void setPatches(List<SuggestedGppPatch> patches) {
+            this.patches = patches;
+        }
+    }
+
+    @Schema(description = "Changes made to a notice by applying patches")
+    public static class NoticeChangesResponse {
+        @Schema(description = "Handle of the notice the patches were applied to")
+        private String baseHandle;
+        @Schema(description = "Handle of the patched notice")
+        private String noticeHandle;
+        @Schema(description = "Changed elements, to be applied in order; each path refers to the notice as modified by the changes before it")
+        private List<XmlDiff.Change> changes;
+
+        public NoticeChangesResponse(String baseHandle, String noticeHandle, List<XmlDiff.Change> changes) {
+            this.baseHandle = baseHandle;
+            this.noticeHandle = noticeHandle;
+            this.changes = changes;
+        }
+
+        public String getBaseHandle() {
+            return baseHandle;
+        }
+
+        public String getNoticeHandle() {
+            return noticeHandle;
+        }
+
+        public List<XmlDiff.Change> getChanges() {
+            return changes;
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package it.polimi.gpplib.eforms_gpp_service.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import it.polimi.gpplib.eforms_gpp_service.config.AppConfig;
+import it.polimi.gpplib.model.GppAnalysisResult;
+import org.springframework.stereotype.Component;
+
+import java.util.function.Supplier;
+
+/**
+ * Memoizes analysis results per notice and library build.
+ *
+ * The cache key doubles as a strong ETag: it is derived from the notice
+ * content hash and the library fingerprint, so a library upgrade changes
+ * every ETag and no stale result can be served.
+ */
+@Component
+public class AnalysisResultCache {
+
+    private final LibraryVersion libraryVersion;
+    private final Cache<String, GppAnalysisResult> cache;
+    private final SingleFlight<String, GppAnalysisResult> analyses;
+
+    public AnalysisResultCache(LibraryVersion libraryVersion, AppConfig appConfig, MeterRegistry meterRegistry) {
+        AppConfig.Cache.Analysis config = appConfig.getCache().getAnalysis();
+        this.libraryVersion = libraryVersion;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(config.getMaxEntries())
+                .expireAfterAccess(config.getTtl())
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "analysis-results");
+        this.analyses = new SingleFlight<>("analyze", meterRegistry);
+    }
+
+    public String etag(String noticeHandle) {
+        return "\"" + noticeHandle + "-" + libraryVersion.getFingerprint() + "\"";
+    }
+
+    public GppAnalysisResult get(String etag, Supplier<GppAnalysisResult> analysis) {
+        GppAnalysisResult result = cache.getIfPresent(etag);
+        if (result != null) {
+            return result;
+        }
+        // analyze outside the cache's compute lock, analyses can take a while;
+        // concurrent misses for the same notice share one analysis instead
+        return analyses.execute(etag, () -> {
+            GppAnalysisResult cached = cache.getIfPresent(etag);
+            if (cached != null) {
+                return cached;
+            }
+            GppAnalysisResult fresh = analysis.get();
+            cache.put(etag, fresh);
+            return fresh;
+        });
+    }
+
+    /**
+     * Checks an If-None-Match header value against the given ETag, using the
+     * weak comparison the header calls for; {@code *} matches any current representation.
+     */
+    public static boolean matches(String ifNoneMatch, String etag) {
+        return matches(ifNoneMatch, etag, true);
+    }
+
+    /**
+     * Like {@link #matches(String, String)}, for resources whose representation
+     * may not exist yet: {@code *} only matches when {@code exists} is true.
+     */
+    public static boolean matches(String ifNoneMatch, String etag, boolean exists) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.equals("*")) {
+                if (exists) {
+                    return true;
+                }
+                continue;
+            }
+            if (tag.startsWith("W/")) {
+                tag = tag.substring(2);
+            }
+            if (tag.equals(etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,82 @@
+package it.polimi.gpplib.eforms_gpp_service.service;
+
+import it.polimi.gpplib.DefaultGppNoticeAnalyzer;
+import it.polimi.gpplib.GppNoticeAnalyzer;
+import it.polimi.gpplib.eforms_gpp_service.config.AppConfig;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Bounded pool of analyzer instances.
+ *
+ * The library does not document {@link DefaultGppNoticeAnalyzer} as
+ * thread-safe, so each instance is only ever used by one thread at a time.
+ * Instances are created lazily up to the pool size; callers beyond that wait
+ * for one to be returned, which also caps concurrent CPU-bound analysis work.
+ */
+@Component
+public class AnalyzerPool {
+
+    private final Supplier<GppNoticeAnalyzer> factory;
+    private final int size;
+    private final BlockingQueue<GppNoticeAnalyzer> idle;
+    private final AtomicInteger created = new AtomicInteger();
+
+    @Autowired
+    public AnalyzerPool(AppConfig appConfig) {
+        this(DefaultGppNoticeAnalyzer::new, appConfig.getAnalyzer().getPoolSize());
+    }
+
+    public AnalyzerPool(Supplier<GppNoticeAnalyzer> factory, int size) {
+        this.factory = factory;
+        this.size = size;
+        this.idle = new ArrayBlockingQueue<>(size);
+    }
+
+    public <T> T execute(Function<GppNoticeAnalyzer, T> work) {
+        GppNoticeAnalyzer analyzer = borrow();
+        try {
+            return work.apply(analyzer);
+        } finally {
+            idle.offer(analyzer);
+        }
+    }
+
+    /**
+     * Creates all analyzer instances up front, so no request pays for loading
+     * the criteria data of a new instance.
+     */
+    public void prestart() {
+        while (created.incrementAndGet() <= size) {
+            idle.offer(factory.get());
+        }
+        created.decrementAndGet();
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    private GppNoticeAnalyzer borrow() {
+        GppNoticeAnalyzer analyzer = idle.poll();
+        if (analyzer != null) {
+            return analyzer;
+        }
+        if (created.incrementAndGet() <= size) {
+            return factory.get();
+        }
+        created.decrementAndGet();
+        try {
+            return idle.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for an analyzer", e);
+        }
+    }
+}
@@ -0,0 +1,188 @@
+package it.polimi.gpplib.eforms_gpp_service.service;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import it.polimi.gpplib.GppNoticeAnalyzer;
+import it.polimi.gpplib.eforms_gpp_service.config.AppConfig;
+import it.polimi.gpplib.model.GppAnalysisResult;
+import it.polimi.gpplib.model.Notice;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.function.Consumer;
+
+/**
+ * Analyzes many notices in parallel on a dedicated, bounded executor.
+ *
+ * Each batch keeps at most {@code 2 * parallelism} notices in flight and
+ * waits for one to finish before taking the next, so the executor queue
+ * never grows with the batch size. When several batches saturate the shared
+ * queue, the submitting thread runs the analysis itself instead of queueing
+ * more work.
+ */
+@Slf4j
+@Service
+public class BatchAnalysisService {
+
+    private final AnalyzerPool analyzerPool;
+    private final AnalysisResultCache analysisResultCache;
+    private final GppMetrics gppMetrics;
+    private final ThreadPoolExecutor executor;
+    private final int maxInFlight;
+
+    public BatchAnalysisService(AnalyzerPool analyzerPool, AnalysisResultCache analysisResultCache,
+            GppMetrics gppMetrics, AppConfig appConfig) {
+        AppConfig.Batch config = appConfig.getBatch();
+        this.analyzerPool = analyzerPool;
+        this.analysisResultCache = analysisResultCache;
+        this.gppMetrics = gppMetrics;
+        this.maxInFlight = 2 * config.getParallelism();
+
+        this.executor = BoundedExecutors.fixed("gpp-batch", config.getParallelism(), config.getQueueCapacity(),
+                new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Analyzes all notices and returns one result per notice, in input order.
+     */
+    public List<ItemResult> analyzeAll(List<String> noticeXmls) {
+        List<ItemResult> results = new ArrayList<>(noticeXmls.size());
+        analyzeEach(noticeXmls.iterator(), results::add);
+        results.sort(Comparator.comparingInt(ItemResult::getIndex));
+        return results;
+    }
+
+    /**
+     * Analyzes notices as they are pulled from the iterator and hands each result
+     * to the sink as soon as it completes, so results arrive out of input order.
+     * The iterator and the sink are only used from the calling thread.
+     */
+    public void analyzeEach(Iterator<String> noticeXmls, Consumer<ItemResult> sink) {
+        // items run on the batch executor, outside of the request, so the endpoint is captured here
+        String endpoint = GppMetrics.currentEndpoint();
+        CompletionService<ItemResult> completion = new ExecutorCompletionService<>(executor);
+        int inFlight = 0;
+        int index = 0;
+        while (noticeXmls.hasNext()) {
+            if (inFlight >= maxInFlight) {
+                sink.accept(take(completion));
+                inFlight--;
+            }
+            int itemIndex = index++;
+            String noticeXml = noticeXmls.next();
+            completion.submit(() -> analyzeItem(itemIndex, noticeXml, endpoint));
+            inFlight++;
+
+            // pass on whatever already finished without waiting for the window to fill
+            Future<ItemResult> done;
+            while ((done = completion.poll()) != null) {
+                sink.accept(resultOf(done));
+                inFlight--;
+            }
+        }
+        while (inFlight > 0) {
+            sink.accept(take(completion));
+            inFlight--;
+        }
+    }
+
+    private ItemResult take(CompletionService<ItemResult> completion) {
+        try {
+            return resultOf(completion.take());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for batch results", e);
+        }
+    }
+
+    private ItemResult resultOf(Future<ItemResult> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for batch results", e);
+        } catch (ExecutionException e) {
+            // analyzeItem never throws, so this is a bug rather than a bad notice
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    private ItemResult analyzeItem(int index, String noticeXml, String endpoint) {
+        if (noticeXml == null || noticeXml.isBlank()) {
+            return ItemResult.failure(index, null, "noticeXml must be provided");
+        }
+        String handle = NoticeDigest.sha256Hex(noticeXml);
+        try {
+            GppAnalysisResult result = analysisResultCache.get(analysisResultCache.etag(handle),
+                    () -> analyzerPool.execute(analyzer -> analyze(analyzer, noticeXml, endpoint)));
+            return ItemResult.success(index, handle, result);
+        } catch (Exception e) {
+            log.warn("Batch item {} could not be analyzed", index, e);
+            return ItemResult.failure(index, handle, e.getMessage());
+        }
+    }
+
+    private GppAnalysisResult analyze(GppNoticeAnalyzer analyzer, String noticeXml, String endpoint) {
+        gppMetrics.recordSize(GppMetrics.NOTICE_XML, endpoint, noticeXml.length());
+        Notice notice = gppMetrics.time(GppMetrics.PARSE, endpoint, () -> analyzer.loadNotice(noticeXml));
+        return gppMetrics.time(GppMetrics.ANALYZE, endpoint, () -> analyzer.analyzeNotice(notice));
+    }
+
+    @Schema(description = "Analysis outcome for a single notice of a batch")
+    public static class ItemResult {
+        @Schema(description = "Position of the notice in the request")
+        private int index;
+        @Schema(description = "Content hash of the notice")
+        private String noticeHandle;
+        @Schema(description = "Analysis result (null if the analysis failed)")
+        private GppAnalysisResult result;
+        @Schema(description = "Error message (null if the analysis succeeded)")
+        private String error;
+
+        public static ItemResult success(int index, String noticeHandle, GppAnalysisResult result) {
+            ItemResult item = new ItemResult();
+            item.index = index;
+            item.noticeHandle = noticeHandle;
+            item.result = result;
+            return item;
+        }
+
+        public static ItemResult failure(int index, String noticeHandle, String error) {
+            ItemResult item = new ItemResult();
+            item.index = index;
+            item.noticeHandle = noticeHandle;
+            item.error = error != null ? error : "Unknown error occurred";
+            return item;
+        }
+
+        public int getIndex() {
+            return index;
+        }
+
+        public String getNoticeHandle() {
+            return noticeHandle;
+        }
+
+        public GppAnalysisResult getResult() {
+            return result;
+        }
+
+        public String getError() {
+            return error;
+        }
+    }
+}
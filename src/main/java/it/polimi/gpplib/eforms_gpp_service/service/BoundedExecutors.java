@@ -0,0 +1,34 @@
+package it.polimi.gpplib.eforms_gpp_service.service;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Fixed-size executors with a bounded queue, as used by the service's worker pools.
+ *
+ * Threads are daemons named {@code <prefix>-<n>}, so they show up in thread
+ * dumps by pool and never keep the JVM alive on shutdown. What happens once
+ * the queue is full is up to the caller's rejection policy.
+ */
+final class BoundedExecutors {
+
+    private BoundedExecutors() {
+    }
+
+    static ThreadPoolExecutor fixed(String threadPrefix, int threads, int queueCapacity,
+            RejectedExecutionHandler rejectionPolicy) {
+        AtomicInteger threadCount = new AtomicInteger();
+        return new ThreadPoolExecutor(threads, threads,
+                0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, threadPrefix + "-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                rejectionPolicy);
+    }
+}
@@ -0,0 +1,199 @@
+package it.polimi.gpplib.eforms_gpp_service.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Re-analyzes the notices of the {@link CorpusStore} and stores the results
+ * back into it.
+ *
+ * Notices are read from the store and fed to the {@link BatchAnalysisService},
+ * which analyzes them on all cores with a bounded number in flight, so a run
+ * over the whole corpus is limited by CPU rather than by I/O or HTTP. Notices
+ * whose stored result has the current ETag are skipped unless forced, so after
+ * an interrupted run or an ingest only the missing results are computed.
+ */
+@Slf4j
+@Service
+public class CorpusService {
+
+    private static final int MAX_REPORTED_FAILURES = 100;
+
+    private final CorpusStore corpusStore;
+    private final BatchAnalysisService batchAnalysisService;
+    private final AnalysisResultCache analysisResultCache;
+    private final ObjectMapper objectMapper;
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    public CorpusService(CorpusStore corpusStore, BatchAnalysisService batchAnalysisService,
+            AnalysisResultCache analysisResultCache, ObjectMapper objectMapper) {
+        this.corpusStore = corpusStore;
+        this.batchAnalysisService = batchAnalysisService;
+        this.analysisResultCache = analysisResultCache;
+        this.objectMapper = objectMapper;
+    }
+
+    public boolean isReanalyzing() {
+        return running.get();
+    }
+
+    public ReanalysisSummary reanalyze(boolean force) {
+        if (!tryStartReanalysis()) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, "A corpus re-analysis is already running");
+        }
+        return runStartedReanalysis(force);
+    }
+
+    /**
+     * Claims the re-analysis, so a job can be queued for it without a second
+     * request queuing another one; the claim is released by
+     * {@link #runStartedReanalysis} or {@link #abandonReanalysis}.
+     */
+    public boolean tryStartReanalysis() {
+        return running.compareAndSet(false, true);
+    }
+
+    public void abandonReanalysis() {
+        running.set(false);
+    }
+
+    public ReanalysisSummary runStartedReanalysis(boolean force) {
+        try {
+            if (!corpusStore.isEnabled()) {
+                throw new ResponseStatusException(HttpStatus.NOT_FOUND, "The corpus store is not configured (app.corpus.directory)");
+            }
+            return run(force);
+        } finally {
+            running.set(false);
+        }
+    }
+
+    private ReanalysisSummary run(boolean force) {
+        long start = System.nanoTime();
+        Map<String, String> hashes = corpusStore.noticeHashes();
+        List<String> noticeIds = new ArrayList<>();
+        List<String> etags = new ArrayList<>();
+        hashes.forEach((noticeId, hash) -> {
+            String etag = analysisResultCache.etag(hash);
+            if (force || !corpusStore.resultTag(noticeId).map(etag::equals).orElse(false)) {
+                noticeIds.add(noticeId);
+                etags.add(etag);
+            }
+        });
+        log.info("Re-analyzing {} of {} corpus notices", noticeIds.size(), hashes.size());
+
+        ReanalysisSummary summary = new ReanalysisSummary();
+        summary.notices = hashes.size();
+        summary.skipped = hashes.size() - noticeIds.size();
+        batchAnalysisService.analyzeEach(new NoticeIterator(noticeIds), item -> {
+            String noticeId = noticeIds.get(item.getIndex());
+            if (item.getError() != null) {
+                summary.fail(noticeId, item.getError());
+                return;
+            }
+            try {
+                corpusStore.storeResult(noticeId, etags.get(item.getIndex()),
+                        objectMapper.writeValueAsBytes(item.getResult()));
+                summary.analyzed++;
+            } catch (JsonProcessingException e) {
+                summary.fail(noticeId, e.getMessage());
+            }
+        });
+        corpusStore.flushResults();
+
+        summary.durationMs = (System.nanoTime() - start) / 1_000_000;
+        log.info("Corpus re-analysis finished in {} ms: {} analyzed, {} skipped, {} failed",
+                summary.durationMs, summary.analyzed, summary.skipped, summary.failed);
+        return summary;
+    }
+
+    // Reads notices lazily so only the analysis window is held in memory
+    private class NoticeIterator implements Iterator<String> {
+        private final List<String> noticeIds;
+        private int next;
+
+        NoticeIterator(List<String> noticeIds) {
+            this.noticeIds = noticeIds;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next < noticeIds.size();
+        }
+
+        @Override
+        public String next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            String noticeId = noticeIds.get(next++);
+            try {
+                return corpusStore.notice(noticeId).orElse(null);
+            } catch (RuntimeException e) {
+                // reported by the batch as a missing notice rather than ending the run
+                log.warn("Could not read corpus notice {}", noticeId, e);
+                return null;
+            }
+        }
+    }
+
+    @Schema(description = "Outcome of a corpus re-analysis")
+    public static class ReanalysisSummary {
+        @Schema(description = "Notices in the corpus")
+        private int notices;
+        @Schema(description = "Notices analyzed and stored")
+        private int analyzed;
+        @Schema(description = "Notices skipped because their stored result is current")
+        private int skipped;
+        @Schema(description = "Notices that could not be analyzed")
+        private int failed;
+        @Schema(description = "Errors by notice id, for the first 100 failures")
+        private Map<String, String> failures = new LinkedHashMap<>();
+        @Schema(description = "Duration of the run in milliseconds")
+        private long durationMs;
+
+        private void fail(String noticeId, String error) {
+            failed++;
+            if (failures.size() < MAX_REPORTED_FAILURES) {
+                failures.put(noticeId, error);
+            }
+        }
+
+        public int getNotices() {
+            return notices;
+        }
+
+        public int getAnalyzed() {
+            return analyzed;
+        }
+
+        public int getSkipped() {
+            return skipped;
+        }
+
+        public int getFailed() {
+            return failed;
+        }
+
+        public Map<String, String> getFailures() {
+            return failures;
+        }
+
+        public long getDurationMs() {
+            return durationMs;
+        }
+    }
+}
@@ -0,0 +1,256 @@
+package it.polimi.gpplib.eforms_gpp_service.service;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import it.polimi.gpplib.eforms_gpp_service.config.AppConfig;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * On-disk corpus of notices and their latest analysis results.
+ *
+ * Notices and results live in two {@link SegmentLog}s under
+ * {@code app.corpus.directory}: notices keyed by notice id and tagged with
+ * their content hash, results keyed by notice id and tagged with the ETag of
+ * the analysis that produced them (which changes with the library build).
+ * The in-memory indexes only hold record locations and are rebuilt from the
+ * segment headers on startup. Replaced notices and results are reclaimed by
+ * compacting segments every {@code app.corpus.compaction-interval}. Without a
+ * directory the store is disabled.
+ */
+@Slf4j
+@Component
+public class CorpusStore {
+
+    private final SegmentLog notices;
+    private final SegmentLog results;
+    private final boolean fsync;
+    private final double compactionThreshold;
+    private final Map<String, SegmentLog.Entry> noticesById = new ConcurrentHashMap<>();
+    private final Map<String, SegmentLog.Entry> noticesByHash = new ConcurrentHashMap<>();
+    private final Map<String, SegmentLog.Entry> resultsById = new ConcurrentHashMap<>();
+
+    public CorpusStore(AppConfig appConfig, MeterRegistry meterRegistry) throws IOException {
+        AppConfig.Corpus config = appConfig.getCorpus();
+        this.fsync = config.isFsync();
+        this.compactionThreshold = config.getCompactionThreshold();
+        if (config.getDirectory() == null || config.getDirectory().isBlank()) {
+            this.notices = null;
+            this.results = null;
+            return;
+        }
+        Path directory = Path.of(config.getDirectory());
+        long start = System.nanoTime();
+        this.notices = new SegmentLog(directory.resolve("notices"), config.getMaxSegmentBytes(), this::indexNotice);
+        this.results = new SegmentLog(directory.resolve("results"), config.getMaxSegmentBytes(),
+                entry -> resultsById.put(entry.key(), entry));
+        log.info("Opened corpus in {} with {} notices and {} results in {} ms", directory.toAbsolutePath(),
+                noticesById.size(), resultsById.size(), (System.nanoTime() - start) / 1_000_000);
+
+        Gauge.builder("gpp.corpus.notices", noticesById, Map::size)
+                .description("Notices in the corpus store")
+                .register(meterRegistry);
+        Gauge.builder("gpp.corpus.results", resultsById, Map::size)
+                .description("Notices in the corpus store with an analysis result")
+                .register(meterRegistry);
+    }
+
+    private SegmentLog.Entry indexNotice(SegmentLog.Entry entry) {
+        SegmentLog.Entry previous = noticesById.put(entry.key(), entry);
+        if (previous != null) {
+            noticesByHash.remove(previous.tag(), previous);
+        }
+        noticesByHash.put(entry.tag(), entry);
+        return previous;
+    }
+
+    @PreDestroy
+    public void close() throws IOException {
+        if (isEnabled()) {
+            notices.close();
+            results.close();
+        }
+    }
+
+    public boolean isEnabled() {
+        return notices != null;
+    }
+
+    private void checkEnabled() {
+        if (!isEnabled()) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "The corpus store is not configured (app.corpus.directory)");
+        }
+    }
+
+    /**
+     * Stores the notices, skipping those whose id already holds the same content.
+     * Notices are stored one by one, so when a write fails the notices before
+     * it stay stored; sending the same notices again stores only the rest.
+     *
+     * @return one outcome per notice, in input order
+     */
+    public List<Ingested> ingest(List<NoticeInput> input) {
+        checkEnabled();
+        List<Ingested> ingested = new ArrayList<>(input.size());
+        try {
+            for (NoticeInput notice : input) {
+                String hash = NoticeDigest.sha256Hex(notice.noticeXml());
+                String noticeId = notice.noticeId() != null && !notice.noticeId().isBlank() ? notice.noticeId() : hash;
+                SegmentLog.Entry existing = noticesById.get(noticeId);
+                if (existing != null && existing.tag().equals(hash)) {
+                    ingested.add(new Ingested(noticeId, hash, false));
+                    continue;
+                }
+                notices.append(noticeId, hash, notice.noticeXml().getBytes(StandardCharsets.UTF_8));
+                ingested.add(new Ingested(noticeId, hash, true));
+            }
+            if (fsync) {
+                notices.force();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not write to the corpus store after the first " + ingested.size()
+                    + " of " + input.size() + " notices", e);
+        }
+        return ingested;
+    }
+
+    public Optional<String> notice(String noticeId) {
+        checkEnabled();
+        return Optional.ofNullable(noticesById.get(noticeId)).map(this::readNotice);
+    }
+
+    public Optional<String> noticeByHash(String hash) {
+        checkEnabled();
+        return Optional.ofNullable(noticesByHash.get(hash)).map(this::readNotice);
+    }
+
+    private String readNotice(SegmentLog.Entry entry) {
+        try {
+            return new String(notices.read(entry), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read notice " + entry.key() + " from the corpus store", e);
+        }
+    }
+
+    /**
+     * Ids and content hashes of all notices, a snapshot of the index.
+     */
+    public Map<String, String> noticeHashes() {
+        checkEnabled();
+        Map<String, String> hashes = new LinkedHashMap<>();
+        noticesById.forEach((noticeId, entry) -> hashes.put(noticeId, entry.tag()));
+        return hashes;
+    }
+
+    /**
+     * The ETag of the stored result for a notice, if it has one.
+     */
+    public Optional<String> resultTag(String noticeId) {
+        checkEnabled();
+        return Optional.ofNullable(resultsById.get(noticeId)).map(SegmentLog.Entry::tag);
+    }
+
+    /**
+     * Opens the stored result of a notice: its ETag and its JSON, streamed
+     * decompressed from the mapping, both from the same record.
+     */
+    public Optional<StoredResult> openResult(String noticeId) {
+        checkEnabled();
+        SegmentLog.Entry entry = resultsById.get(noticeId);
+        while (entry != null) {
+            try {
+                return Optional.of(new StoredResult(entry.tag(), results.open(entry)));
+            } catch (IOException e) {
+                // the record was compacted away after the lookup, its copy is indexed by now
+                SegmentLog.Entry current = resultsById.get(noticeId);
+                if (entry.equals(current)) {
+                    throw new UncheckedIOException("Could not read the result of " + noticeId + " from the corpus store", e);
+                }
+                entry = current;
+            }
+        }
+        return Optional.empty();
+    }
+
+    public void storeResult(String noticeId, String etag, byte[] resultJson) {
+        checkEnabled();
+        try {
+            results.append(noticeId, etag, resultJson);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not write to the corpus store", e);
+        }
+    }
+
+    public void flushResults() {
+        if (fsync && isEnabled()) {
+            try {
+                results.force();
+            } catch (IOException e) {
+                throw new UncheckedIOException("Could not flush the corpus store", e);
+            }
+        }
+    }
+
+    /**
+     * Reclaims the space of replaced notices and results, see {@link SegmentLog#compact}.
+     */
+    @Scheduled(fixedDelayString = "${app.corpus.compaction-interval:10m}")
+    public void compact() {
+        if (!isEnabled()) {
+            return;
+        }
+        try {
+            notices.compact(compactionThreshold, entry -> entry.equals(noticesById.get(entry.key())));
+            results.compact(compactionThreshold, entry -> entry.equals(resultsById.get(entry.key())));
+        } catch (IOException e) {
+            log.error("Could not compact the corpus store", e);
+        }
+    }
+
+    // for tests: segments holding records that were not flushed to disk
+    int unforcedSegmentCount() {
+        return notices.unforcedSegmentCount() + results.unforcedSegmentCount();
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", isEnabled());
+        if (isEnabled()) {
+            stats.put("notices", noticesById.size());
+            stats.put("results", resultsById.size());
+            stats.put("noticeBytes", notices.sizeInBytes());
+            stats.put("resultBytes", results.sizeInBytes());
+            stats.put("supersededBytes", notices.supersededBytes() + results.supersededBytes());
+            stats.put("segments", notices.segmentCount() + results.segmentCount());
+        }
+        return stats;
+    }
+
+    public record NoticeInput(String noticeId, String noticeXml) {
+    }
+
+    public record Ingested(String noticeId, String noticeHandle, boolean stored) {
+    }
+
+    /**
+     * A stored analysis result, with the ETag of the analysis that produced it.
+     */
+    public record StoredResult(String etag, InputStream content) {
+    }
+}
@@ -0,0 +1,140 @@
+package it.polimi.gpplib.eforms_gpp_service.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import it.polimi.gpplib.eforms_gpp_service.config.AppConfig;
+import it.polimi.gpplib.model.SuggestedGppCriterion;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Holds the current {@link CriteriaIndex}, loaded from {@code app.criteria.file}.
+ *
+ * The file is a JSON array of criteria in the library's criterion format, each
+ * listing the CPV codes it applies to. It is checked for changes every
+ * {@code app.criteria.reload-interval}; a changed file is parsed and indexed
+ * off to the side and then swapped in atomically, so requests always see one
+ * complete index. A file that fails to parse keeps the previous index.
+ */
+@Slf4j
+@Component
+public class CriteriaCatalog {
+
+    private final ObjectMapper objectMapper;
+    private final AppConfig.Criteria config;
+    private final Path file;
+    private final AtomicReference<CriteriaIndex> index = new AtomicReference<>(CriteriaIndex.EMPTY);
+    private final Counter reloads;
+    private final Counter failedReloads;
+    // file reads run under a lock rather than a monitor, which would pin a virtual thread
+    private final ReentrantLock loadLock = new ReentrantLock();
+    // modification time of the last file version tried, so a broken file is reported once
+    private FileTime attemptedModified;
+
+    public CriteriaCatalog(ObjectMapper objectMapper, AppConfig appConfig, MeterRegistry meterRegistry)
+            throws IOException {
+        this.objectMapper = objectMapper;
+        this.config = appConfig.getCriteria();
+        this.file = config.getFile() != null && !config.getFile().isBlank() ? Path.of(config.getFile()) : null;
+        Gauge.builder("gpp.criteria.count", index, ref -> ref.get().size())
+                .description("GPP criteria in the current index")
+                .register(meterRegistry);
+        this.reloads = reloads("success", meterRegistry);
+        this.failedReloads = reloads("error", meterRegistry);
+        if (file != null) {
+            // a configured but unreadable file is a deployment error, fail at startup
+            load();
+        }
+    }
+
+    private static Counter reloads(String outcome, MeterRegistry meterRegistry) {
+        return Counter.builder("gpp.criteria.reloads")
+                .description("Loads of the criteria file")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+
+    public CriteriaIndex current() {
+        return index.get();
+    }
+
+    /**
+     * Converts the criteria with the given ids to the library's criterion type.
+     */
+    public List<SuggestedGppCriterion> resolve(List<String> ids) {
+        CriteriaIndex current = index.get();
+        List<SuggestedGppCriterion> criteria = new ArrayList<>(ids.size());
+        for (String id : ids) {
+            JsonNode criterion = current.byId(id);
+            if (criterion == null) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Unknown GPP criterion: " + id);
+            }
+            criteria.add(objectMapper.convertValue(criterion, SuggestedGppCriterion.class));
+        }
+        return criteria;
+    }
+
+    /**
+     * Converts the criteria that apply to any of the CPV codes to the library's criterion type.
+     */
+    public List<SuggestedGppCriterion> forCpvs(Collection<String> cpvs) {
+        List<JsonNode> matches = index.get().forCpvs(cpvs);
+        List<SuggestedGppCriterion> criteria = new ArrayList<>(matches.size());
+        for (JsonNode criterion : matches) {
+            criteria.add(objectMapper.convertValue(criterion, SuggestedGppCriterion.class));
+        }
+        return criteria;
+    }
+
+    @Scheduled(fixedDelayString = "${app.criteria.reload-interval:30s}")
+    public void reloadIfChanged() {
+        if (file == null) {
+            return;
+        }
+        loadLock.lock();
+        try {
+            if (!Objects.equals(Files.getLastModifiedTime(file), attemptedModified)) {
+                load();
+            }
+        } catch (IOException | RuntimeException e) {
+            failedReloads.increment();
+            log.error("Could not reload GPP criteria from {}, keeping version {}", file, index.get().version(), e);
+        } finally {
+            loadLock.unlock();
+        }
+    }
+
+    // callers hold loadLock, except the constructor
+    private void load() throws IOException {
+        attemptedModified = Files.getLastModifiedTime(file);
+        byte[] content = Files.readAllBytes(file);
+        JsonNode root = objectMapper.readTree(content);
+        if (root == null || !root.isArray()) {
+            throw new IOException("Expected a JSON array of criteria in " + file);
+        }
+        List<JsonNode> criteria = new ArrayList<>(root.size());
+        root.forEach(criteria::add);
+        CriteriaIndex loaded = CriteriaIndex.build(criteria, config.getIdField(), config.getCpvField(),
+                NoticeDigest.sha256Hex(content).substring(0, 16));
+        index.set(loaded);
+        reloads.increment();
+        log.info("Loaded {} GPP criteria from {} (version {})", loaded.size(), file, loaded.version());
+    }
+}
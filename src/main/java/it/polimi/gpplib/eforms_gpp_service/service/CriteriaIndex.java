@@ -0,0 +1,189 @@
+package it.polimi.gpplib.eforms_gpp_service.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Immutable index of GPP criteria by CPV code.
+ *
+ * CPV codes are hierarchical: trailing zeros mark the level, so a criterion
+ * for {@code 39100000} (furniture) also applies to {@code 39111000} (seats).
+ * Each criterion code is stored in a digit trie under its significant prefix,
+ * and a lookup walks the at most eight digits of a notice code collecting
+ * every criterion on the way, independent of the number of criteria.
+ * Instances never change after being built and are shared by all threads.
+ */
+public final class CriteriaIndex {
+
+    public static final CriteriaIndex EMPTY = build(List.of(), "id", "cpvCodes", "empty");
+
+    private final String version;
+    private final List<JsonNode> criteria;
+    private final Map<String, JsonNode> byId;
+    private final Node root;
+
+    private CriteriaIndex(String version, List<JsonNode> criteria, Map<String, JsonNode> byId, Node root) {
+        this.version = version;
+        this.criteria = criteria;
+        this.byId = byId;
+        this.root = root;
+    }
+
+    /**
+     * Indexes criteria objects by the CPV codes listed in their {@code cpvField}.
+     * Criteria without CPV codes are only reachable by id.
+     */
+    public static CriteriaIndex build(List<JsonNode> criteria, String idField, String cpvField, String version) {
+        Map<String, JsonNode> byId = new HashMap<>();
+        Node root = new Node();
+        for (JsonNode criterion : criteria) {
+            JsonNode id = criterion.get(idField);
+            if (id != null && id.isValueNode()) {
+                byId.put(id.asText(), criterion);
+            }
+            JsonNode codes = criterion.get(cpvField);
+            if (codes == null) {
+                continue;
+            }
+            for (JsonNode code : codes.isArray() ? codes : List.of(codes)) {
+                String prefix = significantPrefix(code.asText());
+                if (prefix.isEmpty()) {
+                    continue;
+                }
+                Node node = root;
+                for (int i = 0; i < prefix.length(); i++) {
+                    node = node.child(prefix.charAt(i) - '0');
+                }
+                node.add(criterion);
+            }
+        }
+        root.freeze();
+        return new CriteriaIndex(version, List.copyOf(criteria), Map.copyOf(byId), root);
+    }
+
+    /**
+     * Returns the criteria that apply to a CPV code, most general first.
+     */
+    public List<JsonNode> forCpv(String cpv) {
+        return forCpvs(Collections.singletonList(cpv));
+    }
+
+    /**
+     * Returns the criteria that apply to any of the CPV codes, each once.
+     */
+    public List<JsonNode> forCpvs(Collection<String> cpvs) {
+        Set<JsonNode> seen = Collections.newSetFromMap(new IdentityHashMap<>());
+        List<JsonNode> matches = new ArrayList<>();
+        for (String cpv : cpvs) {
+            String digits = digitsOf(cpv);
+            Node node = root;
+            for (int i = 0; i < digits.length() && node != null; i++) {
+                node = node.children[digits.charAt(i) - '0'];
+                if (node != null) {
+                    for (JsonNode criterion : node.criteria) {
+                        if (seen.add(criterion)) {
+                            matches.add(criterion);
+                        }
+                    }
+                }
+            }
+        }
+        return matches;
+    }
+
+    /**
+     * Reduces CPV codes to their digits without check digit, sorted and each once,
+     * dropping codes that are not numeric. Lookups of codes with the same
+     * normalized form return the same criteria.
+     */
+    public static List<String> normalize(Collection<String> cpvs) {
+        Set<String> codes = new TreeSet<>();
+        for (String cpv : cpvs) {
+            String digits = digitsOf(cpv);
+            if (!digits.isEmpty()) {
+                codes.add(digits);
+            }
+        }
+        return List.copyOf(codes);
+    }
+
+    public JsonNode byId(String id) {
+        return byId.get(id);
+    }
+
+    public List<JsonNode> all() {
+        return criteria;
+    }
+
+    public int size() {
+        return criteria.size();
+    }
+
+    /**
+     * Content hash of the source the index was built from.
+     */
+    public String version() {
+        return version;
+    }
+
+    // "39100000-3" -> "391": drops the check digit and the zeros of unused levels
+    static String significantPrefix(String cpv) {
+        String digits = digitsOf(cpv);
+        int end = digits.length();
+        while (end > 2 && digits.charAt(end - 1) == '0') {
+            end--;
+        }
+        return digits.substring(0, end);
+    }
+
+    private static String digitsOf(String cpv) {
+        if (cpv == null) {
+            return "";
+        }
+        int dash = cpv.indexOf('-');
+        String code = (dash >= 0 ? cpv.substring(0, dash) : cpv).trim();
+        for (int i = 0; i < code.length(); i++) {
+            if (code.charAt(i) < '0' || code.charAt(i) > '9') {
+                return "";
+            }
+        }
+        return code;
+    }
+
+    private static final class Node {
+        private final Node[] children = new Node[10];
+        private List<JsonNode> criteria = new ArrayList<>();
+
+        Node child(int digit) {
+            if (children[digit] == null) {
+                children[digit] = new Node();
+            }
+            return children[digit];
+        }
+
+        void add(JsonNode criterion) {
+            // a criterion listing several codes of one branch is stored once per node
+            if (criteria.stream().noneMatch(existing -> existing == criterion)) {
+                criteria.add(criterion);
+            }
+        }
+
+        void freeze() {
+            criteria = List.copyOf(criteria);
+            for (Node child : children) {
+                if (child != null) {
+                    child.freeze();
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package it.polimi.gpplib.eforms_gpp_service.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+/**
+ * Keeps every job as a JSON file in a directory, so job state survives
+ * restarts and can be read by other instances sharing the directory.
+ * Results read back from disk are plain JSON trees rather than the original
+ * response types.
+ */
+@Slf4j
+public class FileJobStore implements JobStore {
+
+    private static final String FILE_SUFFIX = ".json";
+
+    private final Path directory;
+    private final ObjectMapper objectMapper;
+
+    public FileJobStore(Path directory, ObjectMapper objectMapper) throws IOException {
+        this.directory = directory;
+        this.objectMapper = objectMapper;
+        Files.createDirectories(directory);
+        log.info("Storing jobs in {}", directory.toAbsolutePath());
+    }
+
+    @Override
+    public void save(Job job) {
+        Path file = fileFor(job.id());
+        try {
+            // write to a temporary file first so readers never see a partial job
+            Path temp = Files.createTempFile(directory, "job", ".tmp");
+            objectMapper.writeValue(temp.toFile(), job);
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not store job " + job.id(), e);
+        }
+    }
+
+    @Override
+    public Optional<Job> find(String id) {
+        if (!isValidId(id)) {
+            return Optional.empty();
+        }
+        return read(fileFor(id));
+    }
+
+    @Override
+    public int removeFinishedBefore(Instant cutoff) {
+        int removed = 0;
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path file : (Iterable<Path>) files.filter(f -> f.toString().endsWith(FILE_SUFFIX))::iterator) {
+                Optional<Job> job = read(file);
+                if (job.isPresent() && job.get().isFinished() && job.get().finishedAt().isBefore(cutoff)) {
+                    Files.deleteIfExists(file);
+                    removed++;
+                }
+            }
+        } catch (IOException e) {
+            log.warn("Could not prune job directory {}", directory, e);
+        }
+        return removed;
+    }
+
+    private Optional<Job> read(Path file) {
+        if (!Files.exists(file)) {
+            return Optional.empty();
+        }
+        try {
+            return Optional.of(objectMapper.readValue(file.toFile(), Job.class));
+        } catch (IOException e) {
+            log.warn("Ignoring unreadable job file {}", file, e);
+            return Optional.empty();
+        }
+    }
+
+    private Path fileFor(String id) {
+        return directory.resolve(id + FILE_SUFFIX);
+    }
+
+    // job ids are generated UUIDs, anything else must not be turned into a path
+    private static boolean isValidId(String id) {
+        try {
+            return UUID.fromString(id).toString().equals(id);
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+}
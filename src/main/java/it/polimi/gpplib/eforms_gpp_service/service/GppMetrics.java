@@ -0,0 +1,103 @@
+package it.polimi.gpplib.eforms_gpp_service.service;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Records how long each stage of notice processing takes and how large the
+ * payloads are, so a slow request can be attributed to parsing, analysis or
+ * TED.
+ *
+ * Stage timings go to {@code gpp.stage.duration}, payload sizes to
+ * {@code gpp.payload.size}. Both are tagged with the endpoint of the current
+ * request (its path pattern, or {@code none} outside of a request).
+ */
+@Component
+public class GppMetrics {
+
+    public static final String DESERIALIZE = "deserialize";
+    public static final String PARSE = "parse";
+    public static final String ANALYZE = "analyze";
+    public static final String SUGGEST = "suggest";
+    public static final String APPLY = "apply";
+    public static final String SERIALIZE = "serialize";
+    public static final String DIFF = "diff";
+    public static final String SCHEMA = "schema";
+    public static final String TED = "ted";
+
+    public static final String REQUEST_BODY = "request_body";
+    public static final String NOTICE_XML = "notice_xml";
+    public static final String PATCHED_XML = "patched_xml";
+    public static final String TED_REQUEST = "ted_request";
+    public static final String TED_RESPONSE = "ted_response";
+
+    private static final String NO_ENDPOINT = "none";
+
+    private final MeterRegistry meterRegistry;
+
+    public GppMetrics(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    public <T> T time(String stage, Supplier<T> work) {
+        return time(stage, currentEndpoint(), work);
+    }
+
+    public <T> T time(String stage, String endpoint, Supplier<T> work) {
+        long start = System.nanoTime();
+        boolean success = false;
+        try {
+            T result = work.get();
+            success = true;
+            return result;
+        } finally {
+            record(stage, endpoint, success, System.nanoTime() - start);
+        }
+    }
+
+    public void record(String stage, String endpoint, boolean success, long durationNanos) {
+        Timer.builder("gpp.stage.duration")
+                .description("Time spent in one stage of notice processing")
+                .tag("stage", stage)
+                .tag("endpoint", endpoint)
+                .tag("outcome", success ? "success" : "error")
+                .register(meterRegistry)
+                .record(durationNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Records a payload size; decoded text is measured in characters, which
+     * matches bytes for the mostly ASCII notices without re-encoding them.
+     */
+    public void recordSize(String payload, long size) {
+        recordSize(payload, currentEndpoint(), size);
+    }
+
+    public void recordSize(String payload, String endpoint, long size) {
+        DistributionSummary.builder("gpp.payload.size")
+                .description("Size of payloads handled during notice processing")
+                .baseUnit("bytes")
+                .tag("payload", payload)
+                .tag("endpoint", endpoint)
+                .register(meterRegistry)
+                .record(size);
+    }
+
+    public static String currentEndpoint() {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes == null) {
+            return NO_ENDPOINT;
+        }
+        Object pattern = attributes.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE,
+                RequestAttributes.SCOPE_REQUEST);
+        return pattern != null ? pattern.toString() : NO_ENDPOINT;
+    }
+}
@@ -0,0 +1,31 @@
+package it.polimi.gpplib.eforms_gpp_service.service;
+
+import java.time.Instant;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Default job store. Jobs are lost on restart.
+ */
+public class InMemoryJobStore implements JobStore {
+
+    private final Map<String, Job> jobs = new ConcurrentHashMap<>();
+
+    @Override
+    public void save(Job job) {
+        jobs.put(job.id(), job);
+    }
+
+    @Override
+    public Optional<Job> find(String id) {
+        return Optional.ofNullable(jobs.get(id));
+    }
+
+    @Override
+    public int removeFinishedBefore(Instant cutoff) {
+        int before = jobs.size();
+        jobs.values().removeIf(job -> job.isFinished() && job.finishedAt().isBefore(cutoff));
+        return before - jobs.size();
+    }
+}
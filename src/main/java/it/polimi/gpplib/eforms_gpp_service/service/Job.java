@@ -0,0 +1,50 @@
+package it.polimi.gpplib.eforms_gpp_service.service;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.time.Instant;
+
+/**
+ * State of an asynchronous job. Instances are immutable, every transition
+ * creates a new one that replaces the previous state in the {@link JobStore}.
+ */
+@Schema(description = "Asynchronous job and, once finished, its result")
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record Job(
+        @Schema(description = "Job identifier") String id,
+        @Schema(description = "Kind of job (analyze, validate or visualize)") String type,
+        @Schema(description = "Current status") Status status,
+        @Schema(description = "When the job was accepted") Instant submittedAt,
+        @Schema(description = "When a worker started the job") Instant startedAt,
+        @Schema(description = "When the job finished") Instant finishedAt,
+        @Schema(description = "Response of the equivalent synchronous endpoint (set when SUCCEEDED)") Object result,
+        @Schema(description = "Error message (set when FAILED)") String error) {
+
+    public enum Status {
+        QUEUED, RUNNING, SUCCEEDED, FAILED
+    }
+
+    static Job queued(String id, String type) {
+        return new Job(id, type, Status.QUEUED, Instant.now(), null, null, null, null);
+    }
+
+    Job running() {
+        return new Job(id, type, Status.RUNNING, submittedAt, Instant.now(), null, null, null);
+    }
+
+    Job succeeded(Object result) {
+        return new Job(id, type, Status.SUCCEEDED, submittedAt, startedAt, Instant.now(), result, null);
+    }
+
+    Job failed(String error) {
+        return new Job(id, type, Status.FAILED, submittedAt, startedAt, Instant.now(), null,
+                error != null ? error : "Unknown error occurred");
+    }
+
+    @JsonIgnore
+    public boolean isFinished() {
+        return status == Status.SUCCEEDED || status == Status.FAILED;
+    }
+}
@@ -0,0 +1,142 @@
+package it.polimi.gpplib.eforms_gpp_service.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import it.polimi.gpplib.eforms_gpp_service.config.AppConfig;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.function.Supplier;
+
+/**
+ * Runs long requests as asynchronous jobs on a bounded worker pool.
+ *
+ * Submitting returns immediately with a queued {@link Job}; once the queue
+ * holds {@code app.jobs.queue-capacity} jobs, further submissions are rejected
+ * with 503 instead of piling up. Finished jobs stay in the {@link JobStore}
+ * for {@code app.jobs.ttl}.
+ */
+@Slf4j
+@Service
+public class JobService {
+
+    private final JobStore jobStore;
+    private final Duration ttl;
+    private final ThreadPoolExecutor executor;
+    // jobs running on this instance, completed once their final state is stored
+    private final Map<String, CompletableFuture<Job>> completions = new ConcurrentHashMap<>();
+    private final Counter rejections;
+
+    public JobService(JobStore jobStore, AppConfig appConfig, MeterRegistry meterRegistry) {
+        AppConfig.Jobs config = appConfig.getJobs();
+        this.jobStore = jobStore;
+        this.ttl = config.getTtl();
+
+        this.executor = BoundedExecutors.fixed("gpp-job", config.getWorkers(), config.getQueueCapacity(),
+                new ThreadPoolExecutor.AbortPolicy());
+
+        Gauge.builder("gpp.jobs.queued", executor, e -> e.getQueue().size())
+                .description("Jobs waiting for a worker")
+                .register(meterRegistry);
+        this.rejections = Counter.builder("gpp.jobs.rejected")
+                .description("Jobs rejected because the queue was full")
+                .register(meterRegistry);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Queues the work and returns the queued job. The result of the work must be
+     * serializable to JSON, as it is returned by the job endpoint.
+     */
+    public Job submit(String type, Supplier<?> work) {
+        Job job = Job.queued(UUID.randomUUID().toString(), type);
+        jobStore.save(job);
+        completions.put(job.id(), new CompletableFuture<>());
+        try {
+            executor.execute(() -> run(job, work));
+        } catch (RejectedExecutionException e) {
+            rejections.increment();
+            completions.remove(job.id());
+            jobStore.save(job.failed("Rejected, the job queue is full"));
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE,
+                    "Too many queued jobs, try again later");
+        }
+        log.info("Queued {} job {}", type, job.id());
+        return job;
+    }
+
+    public Job get(String id) {
+        return jobStore.find(id).orElseThrow(
+                () -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Unknown or expired job: " + id));
+    }
+
+    /**
+     * Completes with the finished job. Jobs running on another instance sharing
+     * the store are not tracked, their future never completes and callers must
+     * rely on their own timeout.
+     */
+    public CompletableFuture<Job> whenFinished(String id) {
+        Job job = get(id);
+        if (job.isFinished()) {
+            return CompletableFuture.completedFuture(job);
+        }
+        CompletableFuture<Job> completion = completions.get(id);
+        if (completion != null) {
+            return completion;
+        }
+        // the job may have finished between the two lookups
+        job = get(id);
+        return job.isFinished() ? CompletableFuture.completedFuture(job) : new CompletableFuture<>();
+    }
+
+    @Scheduled(fixedDelayString = "${app.jobs.cleanup-interval:1m}")
+    public void removeExpired() {
+        int removed = jobStore.removeFinishedBefore(Instant.now().minus(ttl));
+        if (removed > 0) {
+            log.debug("Removed {} expired jobs", removed);
+        }
+    }
+
+    // the job is finished and its completion released whatever the work throws, Errors included,
+    // so it never stays RUNNING and long polls never hang on it
+    private void run(Job queued, Supplier<?> work) {
+        Job running = queued.running();
+        Job finished;
+        try {
+            jobStore.save(running);
+            finished = running.succeeded(work.get());
+        } catch (Throwable e) {
+            log.warn("Job {} failed", queued.id(), e);
+            finished = running.failed(failureMessage(e));
+        }
+        try {
+            jobStore.save(finished);
+        } finally {
+            completions.remove(queued.id()).complete(finished);
+        }
+    }
+
+    private static String failureMessage(Throwable e) {
+        if (e instanceof ResponseStatusException rse) {
+            return rse.getReason();
+        }
+        return e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName();
+    }
+}
@@ -0,0 +1,19 @@
+package it.polimi.gpplib.eforms_gpp_service.service;
+
+import java.time.Instant;
+import java.util.Optional;
+
+/**
+ * Keeps the state of asynchronous jobs. Selected with {@code app.jobs.store}.
+ */
+public interface JobStore {
+
+    void save(Job job);
+
+    Optional<Job> find(String id);
+
+    /**
+     * Removes jobs that finished before the cutoff and returns how many were removed.
+     */
+    int removeFinishedBefore(Instant cutoff);
+}
@@ -0,0 +1,112 @@
+package it.polimi.gpplib.eforms_gpp_service.service;
+
+import it.polimi.gpplib.DefaultGppNoticeAnalyzer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.io.File;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.JarURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.security.CodeSource;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.util.HexFormat;
+import java.util.Properties;
+import java.util.jar.JarFile;
+
+/**
+ * Identifies the eforms-gpp-library build on the classpath, so that anything
+ * derived from its output (cached results, ETags) changes with it.
+ */
+@Slf4j
+@Component
+public class LibraryVersion {
+
+    private static final String POM_PROPERTIES = "META-INF/maven/it.polimi.gpplib/eforms-gpp-library/pom.properties";
+
+    private final String version;
+    private final String fingerprint;
+
+    public LibraryVersion() {
+        this.version = readVersion();
+        // SNAPSHOT builds keep their version, so the jar itself has to tell them apart
+        String build = version.endsWith("SNAPSHOT") ? version + ":" + describeJar() : version;
+        this.fingerprint = NoticeDigest.sha256Hex(build).substring(0, 16);
+        log.info("Using eforms-gpp-library {} (fingerprint {})", version, fingerprint);
+    }
+
+    public String getVersion() {
+        return version;
+    }
+
+    public String getFingerprint() {
+        return fingerprint;
+    }
+
+    private static String readVersion() {
+        try (InputStream in = DefaultGppNoticeAnalyzer.class.getClassLoader().getResourceAsStream(POM_PROPERTIES)) {
+            if (in != null) {
+                Properties properties = new Properties();
+                properties.load(in);
+                String version = properties.getProperty("version");
+                if (version != null) {
+                    return version;
+                }
+            }
+        } catch (Exception e) {
+            log.warn("Could not read eforms-gpp-library version from {}", POM_PROPERTIES, e);
+        }
+        String implementationVersion = DefaultGppNoticeAnalyzer.class.getPackage().getImplementationVersion();
+        return implementationVersion != null ? implementationVersion : "unknown-SNAPSHOT";
+    }
+
+    private static String describeJar() {
+        CodeSource codeSource = DefaultGppNoticeAnalyzer.class.getProtectionDomain().getCodeSource();
+        return describe(codeSource != null ? codeSource.getLocation() : null);
+    }
+
+    /**
+     * Describes the library at a code source location by its content. In the
+     * packaged application the library is a jar nested in the application jar
+     * ({@code nested:} or {@code jar:} URLs), whose modification time is that
+     * of the whole archive, so the content is hashed for every kind of location.
+     */
+    static String describe(URL location) {
+        if (location == null) {
+            return "";
+        }
+        try {
+            if ("file".equals(location.getProtocol())) {
+                File file = new File(location.toURI());
+                if (file.isDirectory()) {
+                    // classes compiled in place, e.g. a library module opened in the IDE
+                    return file.length() + ":" + file.lastModified();
+                }
+            }
+            if ("jar".equals(location.getProtocol()) && location.getPath().endsWith("!/")) {
+                // the root of a jar: hash its entries' checksums rather than reading it whole
+                JarURLConnection connection = (JarURLConnection) location.openConnection();
+                connection.setUseCaches(false);
+                try (JarFile jar = connection.getJarFile()) {
+                    MessageDigest digest = NoticeDigest.newSha256();
+                    jar.stream().forEach(entry -> digest.update(
+                            (entry.getName() + ":" + entry.getCrc() + ":" + entry.getSize() + "\n")
+                                    .getBytes(StandardCharsets.UTF_8)));
+                    return HexFormat.of().formatHex(digest.digest());
+                }
+            }
+            // a jar file, or a jar nested in the application jar
+            MessageDigest digest = NoticeDigest.newSha256();
+            try (InputStream in = new DigestInputStream(location.openStream(), digest)) {
+                in.transferTo(OutputStream.nullOutputStream());
+            }
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (Exception e) {
+            log.warn("Could not inspect eforms-gpp-library jar at {}", location, e);
+            return String.valueOf(location);
+        }
+    }
+}
@@ -0,0 +1,223 @@
+package it.polimi.gpplib.eforms_gpp_service.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import it.polimi.gpplib.eforms_gpp_service.config.AppConfig;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.xml.sax.ErrorHandler;
+import org.xml.sax.SAXException;
+import org.xml.sax.SAXParseException;
+
+import javax.xml.XMLConstants;
+import javax.xml.transform.stream.StreamSource;
+import javax.xml.validation.Schema;
+import javax.xml.validation.SchemaFactory;
+import javax.xml.validation.Validator;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Validates notices in-process against the XSDs of their eForms SDK version.
+ *
+ * {@code app.validation.schema-directory} holds one eForms SDK per version,
+ * e.g. {@code 1.10/schemas/maindoc/UBL-ContractNotice-2.3.xsd}; the schema
+ * is picked by the notice's root element. Compiled schemas are cached per
+ * SDK version and root element and shared by all threads, only the
+ * {@link Validator} is created per call. Concurrent first uses of a schema
+ * share one compilation; a schema that is missing or fails to compile is not
+ * cached and is looked up again on the next notice. Notices whose SDK version
+ * has no local schemas are reported as unchecked, so callers can fall back to TED.
+ */
+@Slf4j
+@Component
+public class LocalNoticeValidator {
+
+    public static final String OFF = "off";
+    public static final String PRECHECK = "precheck";
+    public static final String ONLY = "only";
+
+    private static final String SDK_PREFIX = "eforms-sdk-";
+    private static final String UBL_VERSION = "2.3";
+
+    private final GppMetrics gppMetrics;
+    private final Path schemaDirectory;
+    private final int maxErrors;
+    private final Map<String, Schema> schemas = new ConcurrentHashMap<>();
+    private final SingleFlight<String, Optional<Schema>> compilations;
+
+    public LocalNoticeValidator(GppMetrics gppMetrics, AppConfig appConfig, MeterRegistry meterRegistry) {
+        AppConfig.Validation config = appConfig.getValidation();
+        this.gppMetrics = gppMetrics;
+        this.compilations = new SingleFlight<>("schema", meterRegistry);
+        this.schemaDirectory = config.getSchemaDirectory() != null && !config.getSchemaDirectory().isBlank()
+                ? Path.of(config.getSchemaDirectory())
+                : null;
+        this.maxErrors = config.getMaxErrors();
+    }
+
+    public static boolean isValidMode(String mode) {
+        return OFF.equals(mode) || PRECHECK.equals(mode) || ONLY.equals(mode);
+    }
+
+    /**
+     * Validates the notice against the schema for its root element, as read
+     * by {@link NoticeSummaryReader}, in its eForms SDK version.
+     */
+    public Result validate(String noticeXml, String rootElement, String eFormsSdkVersion) {
+        if (schemaDirectory == null) {
+            return Result.unchecked("No local eForms SDK schemas configured");
+        }
+        return gppMetrics.time(GppMetrics.SCHEMA, () -> {
+            Optional<Schema> schema = schema(eFormsSdkVersion, rootElement);
+            if (schema.isEmpty()) {
+                return Result.unchecked("No local schema for " + rootElement + " in eForms SDK " + eFormsSdkVersion);
+            }
+            return Result.invalid(validate(schema.get(), noticeXml));
+        });
+    }
+
+    private List<String> validate(Schema schema, String noticeXml) {
+        List<String> errors = new ArrayList<>();
+        try {
+            Validator validator = schema.newValidator();
+            // the notice must not make the validator fetch anything
+            validator.setProperty(XMLConstants.ACCESS_EXTERNAL_DTD, "");
+            validator.setProperty(XMLConstants.ACCESS_EXTERNAL_SCHEMA, "");
+            validator.setErrorHandler(new CollectingErrorHandler(errors, maxErrors));
+            validator.validate(new StreamSource(new StringReader(noticeXml)));
+        } catch (TooManyErrorsException e) {
+            errors.add("Stopped after " + maxErrors + " errors");
+        } catch (SAXException e) {
+            // fatal errors have already been collected by the handler
+            if (errors.isEmpty()) {
+                errors.add(e.getMessage());
+            }
+        } catch (IOException e) {
+            errors.add(e.getMessage());
+        }
+        return errors;
+    }
+
+    // compiles outside the map so a slow compilation never blocks lookups of other schemas
+    private Optional<Schema> schema(String eFormsSdkVersion, String rootElement) {
+        String key = eFormsSdkVersion + "/" + rootElement;
+        Schema cached = schemas.get(key);
+        if (cached != null) {
+            return Optional.of(cached);
+        }
+        return compilations.execute(key, () -> {
+            Schema compiledMeanwhile = schemas.get(key);
+            if (compiledMeanwhile != null) {
+                return Optional.of(compiledMeanwhile);
+            }
+            Optional<Schema> compiled = compile(eFormsSdkVersion, rootElement);
+            compiled.ifPresent(schema -> schemas.put(key, schema));
+            return compiled;
+        });
+    }
+
+    private Optional<Schema> compile(String eFormsSdkVersion, String rootElement) {
+        Optional<Path> file = sdkDirectory(eFormsSdkVersion)
+                .map(sdk -> sdk.resolve("schemas/maindoc/UBL-" + rootElement + "-" + UBL_VERSION + ".xsd"))
+                .filter(Files::isRegularFile);
+        if (file.isEmpty()) {
+            log.debug("No local schema for {} in eForms SDK {}", rootElement, eFormsSdkVersion);
+            return Optional.empty();
+        }
+        try {
+            long start = System.nanoTime();
+            SchemaFactory factory = SchemaFactory.newInstance(XMLConstants.W3C_XML_SCHEMA_NS_URI);
+            factory.setFeature(XMLConstants.FEATURE_SECURE_PROCESSING, true);
+            // imports of the SDK schemas are local files
+            factory.setProperty(XMLConstants.ACCESS_EXTERNAL_SCHEMA, "file");
+            factory.setProperty(XMLConstants.ACCESS_EXTERNAL_DTD, "");
+            Schema schema = factory.newSchema(file.get().toFile());
+            log.info("Compiled {} in {} ms", file.get(), (System.nanoTime() - start) / 1_000_000);
+            return Optional.of(schema);
+        } catch (SAXException e) {
+            log.error("Could not compile schema {}", file.get(), e);
+            return Optional.empty();
+        }
+    }
+
+    // SDK versions appear as "eforms-sdk-1.10" or "1.10.0"; directories may use either form
+    private Optional<Path> sdkDirectory(String eFormsSdkVersion) {
+        if (eFormsSdkVersion == null || eFormsSdkVersion.contains("/") || eFormsSdkVersion.contains("\\")
+                || eFormsSdkVersion.contains("..")) {
+            return Optional.empty();
+        }
+        String version = eFormsSdkVersion.startsWith(SDK_PREFIX)
+                ? eFormsSdkVersion.substring(SDK_PREFIX.length())
+                : eFormsSdkVersion;
+        List<String> candidates = new ArrayList<>(List.of(eFormsSdkVersion, version, SDK_PREFIX + version));
+        String[] parts = version.split("\\.");
+        if (parts.length > 2) {
+            candidates.add(parts[0] + "." + parts[1]);
+        }
+        return candidates.stream()
+                .map(schemaDirectory::resolve)
+                .filter(Files::isDirectory)
+                .findFirst();
+    }
+
+    /**
+     * Outcome of a local validation. Unchecked results carry the reason in
+     * {@code message}; checked results are valid when they have no errors.
+     */
+    public record Result(boolean checked, List<String> errors, String message) {
+
+        static Result unchecked(String message) {
+            return new Result(false, List.of(), message);
+        }
+
+        static Result invalid(List<String> errors) {
+            return new Result(true, List.copyOf(errors), null);
+        }
+
+        public boolean valid() {
+            return checked && errors.isEmpty();
+        }
+    }
+
+    private static class CollectingErrorHandler implements ErrorHandler {
+        private final List<String> errors;
+        private final int maxErrors;
+
+        CollectingErrorHandler(List<String> errors, int maxErrors) {
+            this.errors = errors;
+            this.maxErrors = maxErrors;
+        }
+
+        @Override
+        public void warning(SAXParseException e) {
+        }
+
+        @Override
+        public void error(SAXParseException e) throws SAXException {
+            add(e);
+        }
+
+        @Override
+        public void fatalError(SAXParseException e) throws SAXException {
+            add(e);
+            throw e;
+        }
+
+        private void add(SAXParseException e) throws SAXException {
+            if (errors.size() >= maxErrors) {
+                throw new TooManyErrorsException();
+            }
+            errors.add("line " + e.getLineNumber() + ", column " + e.getColumnNumber() + ": " + e.getMessage());
+        }
+    }
+
+    private static class TooManyErrorsException extends SAXException {
+    }
+}
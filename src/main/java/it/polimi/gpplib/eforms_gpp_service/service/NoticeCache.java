@@ -0,0 +1,191 @@
+package it.polimi.gpplib.eforms_gpp_service.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import it.polimi.gpplib.eforms_gpp_service.config.AppConfig;
+import it.polimi.gpplib.model.Notice;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Content-addressed cache of parsed notices.
+ *
+ * Entries are keyed by the SHA-256 of the notice XML, which is also the handle
+ * returned to clients. A parsed {@link Notice} is never shared between
+ * concurrent requests: each caller leases an exclusive copy, and read-only
+ * callers hand it back on close so the next request can skip the XML parse.
+ * Callers that mutate the notice (e.g. applying patches) must
+ * {@link Lease#detach() detach} it so it is not returned to the pool.
+ */
+@Slf4j
+@Component
+public class NoticeCache {
+
+    // A parsed DOM is typically several times larger than its source text
+    private static final int PARSED_COPY_WEIGHT_FACTOR = 4;
+
+    private final AnalyzerPool analyzerPool;
+    private final GppMetrics gppMetrics;
+    private final int maxIdleCopies;
+    private final Cache<String, Entry> cache;
+    private final Counter parses;
+
+    public NoticeCache(AnalyzerPool analyzerPool, GppMetrics gppMetrics, AppConfig appConfig,
+            MeterRegistry meterRegistry) {
+        AppConfig.Cache.Notices config = appConfig.getCache().getNotices();
+        this.analyzerPool = analyzerPool;
+        this.gppMetrics = gppMetrics;
+        this.maxIdleCopies = config.getMaxIdleCopies();
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(config.getMaxWeightBytes())
+                .weigher((String handle, Entry entry) -> entry.weight())
+                .expireAfterAccess(config.getTtl())
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "notices");
+        this.parses = Counter.builder("gpp.notice.parses")
+                .description("Notices parsed because no idle cached copy was available")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Leases a parsed copy of the given notice, caching it under its content hash.
+     */
+    public Lease acquire(String noticeXml) {
+        return acquire(NoticeDigest.sha256Hex(noticeXml), noticeXml);
+    }
+
+    /**
+     * Leases a parsed copy of a notice whose handle the caller already computed.
+     * Without {@code noticeXml} the notice must already be cached.
+     */
+    public Lease acquire(String handle, String noticeXml) {
+        if (noticeXml == null) {
+            return acquireByHandle(handle);
+        }
+        return cache.get(handle, h -> new Entry(h, noticeXml)).lease();
+    }
+
+    /**
+     * Leases a parsed copy of a notice previously cached under the given handle.
+     */
+    public Lease acquireByHandle(String handle) {
+        Entry entry = cache.getIfPresent(handle);
+        if (entry == null) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Unknown or expired notice handle: " + handle);
+        }
+        return entry.lease();
+    }
+
+    /**
+     * Returns the XML of a cached notice without leasing a parsed copy.
+     */
+    public String noticeXml(String handle) {
+        Entry entry = cache.getIfPresent(handle);
+        if (entry == null) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Unknown or expired notice handle: " + handle);
+        }
+        return entry.noticeXml;
+    }
+
+    /**
+     * Caches an already parsed notice (e.g. the result of applying patches) and
+     * returns its handle. The given instance becomes owned by the cache.
+     */
+    public String put(String noticeXml, Notice parsed) {
+        String handle = NoticeDigest.sha256Hex(noticeXml);
+        cache.get(handle, h -> new Entry(h, noticeXml)).release(parsed);
+        return handle;
+    }
+
+    public class Entry {
+        private final String handle;
+        private final String noticeXml;
+        private final ConcurrentLinkedDeque<Notice> idle = new ConcurrentLinkedDeque<>();
+        private final AtomicInteger idleCount = new AtomicInteger();
+
+        Entry(String handle, String noticeXml) {
+            this.handle = handle;
+            this.noticeXml = noticeXml;
+        }
+
+        int weight() {
+            long bytes = 2L * noticeXml.length() * (1 + (long) PARSED_COPY_WEIGHT_FACTOR * maxIdleCopies);
+            return (int) Math.min(Integer.MAX_VALUE, bytes);
+        }
+
+        Lease lease() {
+            Notice notice = idle.pollFirst();
+            if (notice != null) {
+                idleCount.decrementAndGet();
+                return new Lease(this, notice);
+            }
+            parses.increment();
+            gppMetrics.recordSize(GppMetrics.NOTICE_XML, noticeXml.length());
+            try {
+                return new Lease(this, analyzerPool.execute(
+                        analyzer -> gppMetrics.time(GppMetrics.PARSE, () -> analyzer.loadNotice(noticeXml))));
+            } catch (RuntimeException e) {
+                // do not keep unparseable notices around
+                cache.invalidate(handle);
+                throw e;
+            }
+        }
+
+        void release(Notice notice) {
+            if (idleCount.incrementAndGet() <= maxIdleCopies) {
+                idle.offerFirst(notice);
+            } else {
+                idleCount.decrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * Exclusive access to one parsed copy of a cached notice.
+     */
+    public static class Lease implements AutoCloseable {
+        private final Entry entry;
+        private final Notice notice;
+        private boolean detached;
+
+        Lease(Entry entry, Notice notice) {
+            this.entry = entry;
+            this.notice = notice;
+        }
+
+        public String getHandle() {
+            return entry.handle;
+        }
+
+        public String getNoticeXml() {
+            return entry.noticeXml;
+        }
+
+        public Notice getNotice() {
+            return notice;
+        }
+
+        /**
+         * Marks the leased copy as modified so it is not returned to the cache.
+         */
+        public void detach() {
+            detached = true;
+        }
+
+        @Override
+        public void close() {
+            if (!detached) {
+                entry.release(notice);
+            }
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package it.polimi.gpplib.eforms_gpp_service.service;
+
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * The fields of a notice the service reads without the library, as
+ * extracted by {@link NoticeSummaryReader}.
+ *
+ * @param rootElement          local name of the root element, e.g. {@code ContractNotice}
+ * @param eFormsSdkVersion     the notice's {@code cbc:CustomizationID}, e.g. {@code eforms-sdk-1.10}
+ * @param noticeId             the notice's {@code cbc:ID}
+ * @param noticeType           the notice's {@code cbc:NoticeTypeCode}
+ * @param cpvCodes             CPV codes of the notice-level procurement project
+ * @param strategicProcurement strategic procurement codes of the notice-level procurement project
+ * @param lots                 the lots, in document order
+ */
+public record NoticeSummary(String rootElement, String eFormsSdkVersion, String noticeId, String noticeType,
+        List<String> cpvCodes, List<String> strategicProcurement, List<Lot> lots) {
+
+    /**
+     * Returns the CPV codes of the notice and of all its lots, each once, in document order.
+     */
+    public Set<String> allCpvCodes() {
+        Set<String> codes = new LinkedHashSet<>(cpvCodes);
+        lots.forEach(lot -> codes.addAll(lot.cpvCodes()));
+        return codes;
+    }
+
+    /**
+     * @param id                   the lot's {@code cbc:ID}, e.g. {@code LOT-0001}
+     * @param cpvCodes             main and additional CPV codes of the lot
+     * @param strategicProcurement strategic procurement codes of the lot, e.g. {@code env-imp}
+     */
+    public record Lot(String id, List<String> cpvCodes, List<String> strategicProcurement) {
+    }
+}
@@ -0,0 +1,162 @@
+package it.polimi.gpplib.eforms_gpp_service.service;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Reads a {@link NoticeSummary} from notice XML in a single streaming pass.
+ *
+ * Endpoints that only need a few fields of a notice use this instead of
+ * {@code GppNoticeAnalyzer.loadNotice}, which builds the whole document
+ * model: the pull parser keeps only the current element path, so memory
+ * does not grow with the number of lots, and text is only materialized for
+ * the elements of the summary. Elements are matched by local name, as eForms
+ * fixes the namespace of each of them.
+ */
+public final class NoticeSummaryReader {
+
+    private static final String LOT = "ProcurementProjectLot";
+    private static final String PROJECT = "ProcurementProject";
+
+    // XMLInputFactory is not guaranteed to be thread-safe, and creating one per call means a service lookup
+    private static final ThreadLocal<XMLInputFactory> FACTORY = ThreadLocal.withInitial(() -> {
+        XMLInputFactory factory = XMLInputFactory.newFactory();
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        factory.setProperty(XMLInputFactory.IS_COALESCING, true);
+        return factory;
+    });
+
+    private final XMLStreamReader reader;
+    private String[] path = new String[32];
+    private int depth;
+
+    private String rootElement;
+    private String eFormsSdkVersion;
+    private String noticeId;
+    private String noticeType;
+    private final List<String> cpvCodes = new ArrayList<>();
+    private final List<String> strategicProcurement = new ArrayList<>();
+    private final List<NoticeSummary.Lot> lots = new ArrayList<>();
+    private LotBuilder lot;
+
+    private NoticeSummaryReader(XMLStreamReader reader) {
+        this.reader = reader;
+    }
+
+    public static NoticeSummary read(String noticeXml) throws XMLStreamException {
+        return read(new StringReader(noticeXml));
+    }
+
+    public static NoticeSummary read(Reader noticeXml) throws XMLStreamException {
+        XMLStreamReader reader = FACTORY.get().createXMLStreamReader(noticeXml);
+        try {
+            return new NoticeSummaryReader(reader).parse();
+        } finally {
+            reader.close();
+        }
+    }
+
+    private NoticeSummary parse() throws XMLStreamException {
+        while (reader.hasNext()) {
+            int event = reader.next();
+            if (event == XMLStreamConstants.START_ELEMENT) {
+                startElement(reader.getLocalName());
+            } else if (event == XMLStreamConstants.END_ELEMENT) {
+                endElement();
+            }
+        }
+        if (rootElement == null) {
+            throw new XMLStreamException("Notice has no root element");
+        }
+        return new NoticeSummary(rootElement, eFormsSdkVersion, noticeId, noticeType,
+                List.copyOf(cpvCodes), List.copyOf(strategicProcurement), List.copyOf(lots));
+    }
+
+    private void startElement(String name) throws XMLStreamException {
+        if (depth == path.length) {
+            path = Arrays.copyOf(path, depth * 2);
+        }
+        path[depth++] = name;
+
+        if (depth == 1) {
+            rootElement = name;
+        } else if (depth == 2) {
+            switch (name) {
+                case "CustomizationID" -> eFormsSdkVersion = text();
+                case "ID" -> noticeId = text();
+                case "NoticeTypeCode" -> noticeType = text();
+                case LOT -> lot = new LotBuilder();
+                default -> {
+                }
+            }
+        } else if (depth == 3 && lot != null && "ID".equals(name)) {
+            lot.id = text();
+        } else if ("ItemClassificationCode".equals(name) && depth >= 4
+                && "cpv".equals(reader.getAttributeValue(null, "listName"))
+                && (parentIs("MainCommodityClassification") || parentIs("AdditionalCommodityClassification"))) {
+            List<String> target = projectList(true);
+            if (target != null) {
+                target.add(text());
+            }
+        } else if ("ProcurementTypeCode".equals(name) && depth >= 4
+                && "strategic-procurement".equals(reader.getAttributeValue(null, "listName"))
+                && parentIs("ProcurementAdditionalType")) {
+            List<String> target = projectList(false);
+            if (target != null) {
+                target.add(text());
+            }
+        }
+    }
+
+    private void endElement() {
+        depth--;
+        if (depth == 1 && lot != null && LOT.equals(path[1])) {
+            lots.add(lot.build());
+            lot = null;
+        }
+    }
+
+    private boolean parentIs(String name) {
+        return name.equals(path[depth - 2]);
+    }
+
+    // The notice's or the current lot's list, if the element's grandparent is their procurement project
+    private List<String> projectList(boolean cpv) {
+        int project = depth - 3;
+        if (!PROJECT.equals(path[project])) {
+            return null;
+        }
+        if (project == 1) {
+            return cpv ? cpvCodes : strategicProcurement;
+        }
+        if (project == 2 && lot != null) {
+            return cpv ? lot.cpvCodes : lot.strategicProcurement;
+        }
+        return null;
+    }
+
+    // Reads the text of the current element and leaves the reader on its end tag
+    private String text() throws XMLStreamException {
+        String text = reader.getElementText().trim();
+        depth--;
+        return text;
+    }
+
+    private static class LotBuilder {
+        private String id;
+        private final List<String> cpvCodes = new ArrayList<>();
+        private final List<String> strategicProcurement = new ArrayList<>();
+
+        NoticeSummary.Lot build() {
+            return new NoticeSummary.Lot(id, List.copyOf(cpvCodes), List.copyOf(strategicProcurement));
+        }
+    }
+}
@@ -0,0 +1,143 @@
+package it.polimi.gpplib.eforms_gpp_service.service;
+
+import it.polimi.gpplib.eforms_gpp_service.config.AppConfig;
+import it.polimi.gpplib.model.SuggestedGppCriterion;
+import it.polimi.gpplib.model.SuggestedGppPatch;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import javax.xml.stream.XMLStreamException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+
+/**
+ * Suggests patches for a notice, splitting the criteria over several
+ * analyzers for notices with many lots.
+ *
+ * The library suggests patches for a whole notice and a list of criteria, so
+ * the work is split by criteria rather than by lot: each task gets a
+ * contiguous chunk of the criteria and its own leased copy of the notice, and
+ * the patches are concatenated in chunk order, i.e. in the order a single
+ * call would produce them. Notices with fewer than
+ * {@code app.analyzer.parallel-suggest-min-lots} lots (0 disables splitting)
+ * run on the request thread as before. When the executor is saturated, tasks
+ * run on the request thread, so overload degrades to the sequential path.
+ *
+ * Splitting is experimental: the concatenated patches only equal a single call
+ * if the library suggests patches for each criterion independently of the
+ * others. Nothing verifies this against the real library yet, so splitting
+ * stays off by default and logs a warning when enabled.
+ */
+@Slf4j
+@Service
+public class PatchSuggester {
+
+    private final AnalyzerPool analyzerPool;
+    private final NoticeCache noticeCache;
+    private final int minLots;
+    private final int chunkSize;
+    private final int parallelism;
+    private final ThreadPoolExecutor executor;
+
+    public PatchSuggester(AnalyzerPool analyzerPool, NoticeCache noticeCache, AppConfig appConfig) {
+        AppConfig.Analyzer config = appConfig.getAnalyzer();
+        this.analyzerPool = analyzerPool;
+        this.noticeCache = noticeCache;
+        this.minLots = config.getParallelSuggestMinLots();
+        this.chunkSize = Math.max(1, config.getParallelSuggestChunkSize());
+        this.parallelism = config.getPoolSize();
+        if (minLots > 0) {
+            log.warn("app.analyzer.parallel-suggest-min-lots={} splits suggest-patches by criteria, which is only "
+                    + "correct if the library handles criteria independently; this has not been verified", minLots);
+        }
+
+        this.executor = BoundedExecutors.fixed("gpp-suggest", parallelism, parallelism,
+                new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    public List<SuggestedGppPatch> suggest(NoticeCache.Lease lease, List<SuggestedGppCriterion> criteria) {
+        int tasks = tasksFor(lease, criteria);
+        if (tasks < 2) {
+            return analyzerPool.execute(analyzer -> analyzer.suggestPatches(lease.getNotice(), criteria));
+        }
+
+        List<List<SuggestedGppCriterion>> chunks = chunks(criteria, tasks);
+        List<Future<List<SuggestedGppPatch>>> others = new ArrayList<>(tasks - 1);
+        try {
+            // the request thread takes the first chunk with the notice it already leased,
+            // and only after submitting the others, so it never holds an analyzer while they wait
+            for (List<SuggestedGppCriterion> chunk : chunks.subList(1, chunks.size())) {
+                others.add(executor.submit(() -> suggestOnCopy(lease, chunk)));
+            }
+            List<SuggestedGppPatch> patches = new ArrayList<>(analyzerPool.execute(
+                    analyzer -> analyzer.suggestPatches(lease.getNotice(), chunks.get(0))));
+            for (Future<List<SuggestedGppPatch>> other : others) {
+                patches.addAll(resultOf(other));
+            }
+            return patches;
+        } catch (RuntimeException e) {
+            others.forEach(other -> other.cancel(true));
+            throw e;
+        }
+    }
+
+    private List<SuggestedGppPatch> suggestOnCopy(NoticeCache.Lease lease, List<SuggestedGppCriterion> chunk) {
+        try (NoticeCache.Lease copy = noticeCache.acquire(lease.getHandle(), lease.getNoticeXml())) {
+            return analyzerPool.execute(analyzer -> analyzer.suggestPatches(copy.getNotice(), chunk));
+        }
+    }
+
+    private int tasksFor(NoticeCache.Lease lease, List<SuggestedGppCriterion> criteria) {
+        if (minLots <= 0 || criteria == null) {
+            return 1;
+        }
+        int tasks = Math.min(parallelism, criteria.size() / chunkSize);
+        if (tasks < 2) {
+            return 1;
+        }
+        try {
+            int lots = NoticeSummaryReader.read(lease.getNoticeXml()).lots().size();
+            return lots >= minLots ? tasks : 1;
+        } catch (XMLStreamException e) {
+            // the library parsed the notice, so leave it to the library
+            return 1;
+        }
+    }
+
+    private static <T> T resultOf(Future<T> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for patch suggestions", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    /**
+     * Splits the list into {@code count} contiguous chunks whose sizes differ by at most one.
+     */
+    static <T> List<List<T>> chunks(List<T> items, int count) {
+        List<List<T>> chunks = new ArrayList<>(count);
+        int start = 0;
+        for (int i = 0; i < count; i++) {
+            int end = start + items.size() / count + (i < items.size() % count ? 1 : 0);
+            chunks.add(items.subList(start, end));
+            start = end;
+        }
+        return chunks;
+    }
+}
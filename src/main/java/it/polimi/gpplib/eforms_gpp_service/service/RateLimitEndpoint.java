@@ -0,0 +1,26 @@
+package it.polimi.gpplib.eforms_gpp_service.service;
+
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * Exposes the rate limiter configuration and counters at {@code /actuator/ratelimit}.
+ */
+@Component
+@Endpoint(id = "ratelimit")
+public class RateLimitEndpoint {
+
+    private final RateLimiter rateLimiter;
+
+    public RateLimitEndpoint(RateLimiter rateLimiter) {
+        this.rateLimiter = rateLimiter;
+    }
+
+    @ReadOperation
+    public Map<String, Object> stats() {
+        return rateLimiter.stats();
+    }
+}
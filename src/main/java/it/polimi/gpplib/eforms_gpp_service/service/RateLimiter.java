@@ -0,0 +1,134 @@
+package it.polimi.gpplib.eforms_gpp_service.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import it.polimi.gpplib.eforms_gpp_service.config.AppConfig;
+import org.springframework.stereotype.Component;
+import org.springframework.util.AntPathMatcher;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Admission control for API requests: a token bucket per client and endpoint
+ * group, and a global cap on concurrent requests.
+ *
+ * Endpoint groups are the path patterns under {@code app.rate-limit.endpoints};
+ * requests matching none of them share the client's default bucket. Buckets
+ * live in a Caffeine cache and are dropped after
+ * {@code app.rate-limit.idle-timeout} without requests, which refills them.
+ */
+@Component
+public class RateLimiter {
+
+    public static final String DEFAULT_GROUP = "default";
+
+    private final AppConfig.RateLimit config;
+    private final AntPathMatcher pathMatcher = new AntPathMatcher();
+    private final Cache<String, TokenBucket> buckets;
+    private final Semaphore concurrentRequests;
+    private final Counter rateLimited;
+    private final Counter concurrencyLimited;
+
+    public RateLimiter(AppConfig appConfig, MeterRegistry meterRegistry) {
+        this.config = appConfig.getRateLimit();
+        checkLimit(DEFAULT_GROUP, config.getDefaults());
+        config.getEndpoints().forEach(this::checkLimit);
+        this.buckets = Caffeine.newBuilder()
+                .maximumSize(config.getMaxClients())
+                .expireAfterAccess(config.getIdleTimeout())
+                .build();
+        this.concurrentRequests = new Semaphore(config.getMaxConcurrentRequests());
+
+        Gauge.builder("gpp.ratelimit.requests.active", this, RateLimiter::activeRequests)
+                .description("API requests currently admitted")
+                .register(meterRegistry);
+        Gauge.builder("gpp.ratelimit.buckets", buckets, Cache::estimatedSize)
+                .description("Client token buckets currently tracked")
+                .register(meterRegistry);
+        this.rateLimited = rejections("rate_limit", meterRegistry);
+        this.concurrencyLimited = rejections("concurrency", meterRegistry);
+    }
+
+    private static Counter rejections(String reason, MeterRegistry meterRegistry) {
+        return Counter.builder("gpp.ratelimit.rejected")
+                .description("API requests rejected with 429")
+                .tag("reason", reason)
+                .register(meterRegistry);
+    }
+
+    private void checkLimit(String group, AppConfig.RateLimit.Limit limit) {
+        if (limit.getCapacity() < 1 || limit.getRefillPerSecond() <= 0) {
+            throw new IllegalStateException("Rate limit for " + group
+                    + " needs a capacity >= 1 and a positive refill-per-second");
+        }
+    }
+
+    /**
+     * Takes a token from the client's bucket for the given request path.
+     *
+     * @return 0 if the request may proceed, otherwise the nanoseconds until it could
+     */
+    public long tryAcquire(String client, String path) {
+        String group = DEFAULT_GROUP;
+        AppConfig.RateLimit.Limit limit = config.getDefaults();
+        for (Map.Entry<String, AppConfig.RateLimit.Limit> endpoint : config.getEndpoints().entrySet()) {
+            if (pathMatcher.match(endpoint.getKey(), path)) {
+                group = endpoint.getKey();
+                limit = endpoint.getValue();
+                break;
+            }
+        }
+        AppConfig.RateLimit.Limit bucketLimit = limit;
+        TokenBucket bucket = buckets.get(client + " " + group,
+                key -> new TokenBucket(bucketLimit.getCapacity(), bucketLimit.getRefillPerSecond()));
+        long wait = bucket.tryAcquire();
+        if (wait > 0) {
+            rateLimited.increment();
+        }
+        return wait;
+    }
+
+    /**
+     * Admits a request if fewer than {@code app.rate-limit.max-concurrent-requests}
+     * are in progress. Admitted requests must call {@link #exit()}.
+     */
+    public boolean tryEnter() {
+        if (concurrentRequests.tryAcquire()) {
+            return true;
+        }
+        concurrencyLimited.increment();
+        return false;
+    }
+
+    public void exit() {
+        concurrentRequests.release();
+    }
+
+    public int activeRequests() {
+        return config.getMaxConcurrentRequests() - concurrentRequests.availablePermits();
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", config.isEnabled());
+        stats.put("activeRequests", activeRequests());
+        stats.put("maxConcurrentRequests", config.getMaxConcurrentRequests());
+        stats.put("trackedBuckets", buckets.estimatedSize());
+        stats.put("rateLimited", (long) rateLimited.count());
+        stats.put("concurrencyLimited", (long) concurrencyLimited.count());
+        Map<String, Object> limits = new LinkedHashMap<>();
+        limits.put(DEFAULT_GROUP, describe(config.getDefaults()));
+        config.getEndpoints().forEach((group, limit) -> limits.put(group, describe(limit)));
+        stats.put("limits", limits);
+        return stats;
+    }
+
+    private static Map<String, Object> describe(AppConfig.RateLimit.Limit limit) {
+        return Map.of("capacity", limit.getCapacity(), "refillPerSecond", limit.getRefillPerSecond());
+    }
+}
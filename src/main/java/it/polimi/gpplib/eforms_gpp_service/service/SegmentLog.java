@@ -0,0 +1,467 @@
+package it.polimi.gpplib.eforms_gpp_service.service;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Append-only log of gzip-compressed records in numbered segment files.
+ *
+ * A record is {@code magic, crc32, key, tag, length, data}; the key and tag
+ * are short strings that let the owner rebuild its index by scanning the
+ * headers when the log is opened. Appends are serialized and go through the
+ * active segment's channel, reads are lock-free slices of a read-only
+ * memory mapping of the segment, so concurrent readers share the page cache
+ * instead of copying through the heap. A torn record at the end of the last
+ * segment (a crash during an append) is truncated on open.
+ *
+ * The owner's index is updated through the callback under the append lock,
+ * so the order of index updates is the order of records on disk, and the
+ * callback reports the record each new one supersedes. {@link #compact}
+ * copies the records still in use out of sealed segments that are mostly
+ * superseded and then deletes them. {@link #force} flushes every segment
+ * written since the previous force, so records written before the active
+ * segment rolled over are flushed as well. File I/O runs under {@link ReentrantLock}s
+ * rather than monitors, so virtual threads waiting for it do not pin their
+ * carrier.
+ */
+@Slf4j
+final class SegmentLog implements Closeable {
+
+    private static final int MAGIC = 0x47505031;
+    private static final String SEGMENT_SUFFIX = ".seg";
+    // magic, crc, key length, tag length, data length
+    private static final int FIXED_HEADER_BYTES = 4 + 4 + 2 + 2 + 4;
+
+    private final Path directory;
+    private final long maxSegmentBytes;
+    private final Function<Entry, Entry> onEntry;
+    // by segment number; compaction leaves gaps
+    private final ConcurrentSkipListMap<Integer, Segment> segments = new ConcurrentSkipListMap<>();
+    private final ReentrantLock appendLock = new ReentrantLock();
+    private final ReentrantLock compactionLock = new ReentrantLock();
+    // segments emptied by the previous compaction, still readable by requests that looked them up before,
+    // but no longer counted in the log's size
+    private final ConcurrentHashMap<Integer, Segment> retired = new ConcurrentHashMap<>();
+
+    /**
+     * Location of a record's compressed data.
+     */
+    record Entry(String key, String tag, int segment, long offset, int length) {
+    }
+
+    /**
+     * Opens the log in the directory, handing every record to the callback in
+     * append order, so later records for a key replace earlier ones. The
+     * callback is also called for every appended record, and returns the
+     * record the new one replaces, if any.
+     */
+    SegmentLog(Path directory, long maxSegmentBytes, Function<Entry, Entry> onEntry) throws IOException {
+        this.directory = directory;
+        this.maxSegmentBytes = Math.min(maxSegmentBytes, Integer.MAX_VALUE);
+        this.onEntry = onEntry;
+        Files.createDirectories(directory);
+
+        List<Path> files;
+        try (Stream<Path> list = Files.list(directory)) {
+            files = list.filter(f -> f.getFileName().toString().endsWith(SEGMENT_SUFFIX)).sorted().toList();
+        }
+        for (int i = 0; i < files.size(); i++) {
+            String name = files.get(i).getFileName().toString();
+            int number = Integer.parseInt(name.substring(0, name.length() - SEGMENT_SUFFIX.length()));
+            Segment segment = new Segment(number, files.get(i));
+            segments.put(number, segment);
+            scan(segment, i == files.size() - 1);
+        }
+        if (segments.isEmpty()) {
+            segments.put(0, new Segment(0, segmentPath(0)));
+        }
+    }
+
+    private Path segmentPath(int index) {
+        return directory.resolve(String.format("%08d%s", index, SEGMENT_SUFFIX));
+    }
+
+    // Only the last segment can hold a torn record, so only its data is checksummed
+    private void scan(Segment segment, boolean last) throws IOException {
+        long size = segment.channel.size();
+        if (size == 0) {
+            return;
+        }
+        ByteBuffer buffer = segment.slice(0, (int) size);
+        int position = 0;
+        while (position < size) {
+            Entry entry = readHeader(segment.index, buffer, position);
+            if (entry == null || (last && !checksumMatches(buffer, position, entry))) {
+                if (!last) {
+                    log.error("Corrupt record at {}:{}, ignoring the rest of the segment", segment.path, position);
+                    break;
+                }
+                log.warn("Truncating {} from {} to {} bytes after an incomplete record", segment.path, size, position);
+                segment.truncate(position);
+                return;
+            }
+            discard(onEntry.apply(entry));
+            position = (int) entry.offset() + entry.length();
+        }
+        segment.size = size;
+    }
+
+    private static Entry readHeader(int segment, ByteBuffer buffer, int position) {
+        if (buffer.limit() - position < FIXED_HEADER_BYTES || buffer.getInt(position) != MAGIC) {
+            return null;
+        }
+        int keyLength = Short.toUnsignedInt(buffer.getShort(position + 8));
+        int tagLength = Short.toUnsignedInt(buffer.getShort(position + 10));
+        int dataLength = buffer.getInt(position + 12);
+        long dataOffset = (long) position + FIXED_HEADER_BYTES + keyLength + tagLength;
+        if (dataLength < 0 || dataOffset + dataLength > buffer.limit()) {
+            return null;
+        }
+        String key = string(buffer, position + FIXED_HEADER_BYTES, keyLength);
+        String tag = string(buffer, position + FIXED_HEADER_BYTES + keyLength, tagLength);
+        return new Entry(key, tag, segment, dataOffset, dataLength);
+    }
+
+    private static boolean checksumMatches(ByteBuffer buffer, int position, Entry entry) {
+        CRC32 crc = new CRC32();
+        crc.update(buffer.slice((int) entry.offset(), entry.length()));
+        return (int) crc.getValue() == buffer.getInt(position + 4);
+    }
+
+    private static String string(ByteBuffer buffer, int offset, int length) {
+        byte[] bytes = new byte[length];
+        buffer.get(offset, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Compresses and appends a record. Compression happens before the append
+     * lock is taken, so concurrent writers only serialize on the file write.
+     */
+    Entry append(String key, String tag, byte[] content) throws IOException {
+        byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+        byte[] tagBytes = tag.getBytes(StandardCharsets.UTF_8);
+        if (keyBytes.length > 0xFFFF || tagBytes.length > 0xFFFF) {
+            throw new IllegalArgumentException("Record key and tag must be shorter than 64 KiB");
+        }
+        byte[] data = gzip(content);
+        CRC32 crc = new CRC32();
+        crc.update(data);
+
+        ByteBuffer record = ByteBuffer.allocate(FIXED_HEADER_BYTES + keyBytes.length + tagBytes.length + data.length);
+        record.putInt(MAGIC)
+                .putInt((int) crc.getValue())
+                .putShort((short) keyBytes.length)
+                .putShort((short) tagBytes.length)
+                .putInt(data.length)
+                .put(keyBytes)
+                .put(tagBytes)
+                .put(data)
+                .flip();
+
+        appendLock.lock();
+        try {
+            return write(key, tag, record, data.length);
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    // Writes a complete record to the active segment and indexes it; runs under the append lock
+    private Entry write(String key, String tag, ByteBuffer record, int dataLength) throws IOException {
+        Segment segment = segments.lastEntry().getValue();
+        if (segment.size > 0 && segment.size + record.remaining() > maxSegmentBytes) {
+            int number = segment.index + 1;
+            segment = new Segment(number, segmentPath(number));
+            segments.put(number, segment);
+        }
+        long position = segment.size;
+        int recordLength = record.remaining();
+        while (record.hasRemaining()) {
+            segment.channel.write(record, position + record.position());
+        }
+        segment.size = position + recordLength;
+        segment.dirty = true;
+        Entry entry = new Entry(key, tag, segment.index, position + recordLength - dataLength, dataLength);
+        discard(onEntry.apply(entry));
+        return entry;
+    }
+
+    private void discard(Entry superseded) {
+        if (superseded != null) {
+            Segment segment = segments.get(superseded.segment());
+            if (segment != null) {
+                segment.supersededBytes.addAndGet(recordLength(superseded));
+            }
+        }
+    }
+
+    private static int recordLength(Entry entry) {
+        return FIXED_HEADER_BYTES + entry.key().getBytes(StandardCharsets.UTF_8).length
+                + entry.tag().getBytes(StandardCharsets.UTF_8).length + entry.length();
+    }
+
+    /**
+     * Rewrites sealed segments in which at least {@code minSupersededRatio} of
+     * the bytes belong to superseded records: the records the owner still
+     * uses are copied to the active segment as they are and the segment is
+     * retired. A retired segment no longer counts towards the log's size, but
+     * stays readable until the next compaction, for requests that looked up a
+     * record in it just before it was retired, and is then deleted.
+     *
+     * @param isCurrent whether the owner's index still points at a record;
+     *                  called under the append lock
+     * @return the number of segments retired
+     */
+    int compact(double minSupersededRatio, Predicate<Entry> isCurrent) throws IOException {
+        if (!compactionLock.tryLock()) {
+            return 0;
+        }
+        try {
+            for (Segment segment : List.copyOf(retired.values())) {
+                retired.remove(segment.index);
+                segment.channel.close();
+                Files.deleteIfExists(segment.path);
+            }
+
+            List<Segment> compacted = new ArrayList<>();
+            // the active segment is still being written to and is never compacted
+            for (Segment segment : List.copyOf(segments.headMap(segments.lastKey()).values())) {
+                if (segment.size > 0 && segment.supersededBytes.get() >= minSupersededRatio * segment.size) {
+                    copyCurrentRecords(segment, isCurrent);
+                    compacted.add(segment);
+                }
+            }
+            if (!compacted.isEmpty()) {
+                // the copies must be durable before the originals are retired
+                force();
+                for (Segment segment : compacted) {
+                    // readable through retired before it leaves segments
+                    retired.put(segment.index, segment);
+                    segments.remove(segment.index, segment);
+                }
+                log.info("Compacted {} segments of {}", compacted.size(), directory);
+            }
+            return compacted.size();
+        } finally {
+            compactionLock.unlock();
+        }
+    }
+
+    private void copyCurrentRecords(Segment segment, Predicate<Entry> isCurrent) throws IOException {
+        ByteBuffer buffer = segment.slice(0, (int) segment.size);
+        int position = 0;
+        while (position < segment.size) {
+            Entry entry = readHeader(segment.index, buffer, position);
+            if (entry == null) {
+                break;
+            }
+            int end = (int) entry.offset() + entry.length();
+            appendLock.lock();
+            try {
+                // checked under the lock, so a newer record for the key cannot be appended in between
+                if (isCurrent.test(entry)) {
+                    write(entry.key(), entry.tag(), buffer.slice(position, end - position), entry.length());
+                }
+            } finally {
+                appendLock.unlock();
+            }
+            position = end;
+        }
+    }
+
+    /**
+     * Streams the decompressed content of a record straight from the mapping.
+     */
+    InputStream open(Entry entry) throws IOException {
+        Segment segment = segments.get(entry.segment());
+        if (segment == null) {
+            segment = retired.get(entry.segment());
+        }
+        if (segment == null) {
+            throw new IOException("Segment " + entry.segment() + " of " + directory + " was compacted");
+        }
+        ByteBuffer data = segment.slice(entry.offset(), entry.length());
+        return new GZIPInputStream(new ByteBufferInputStream(data));
+    }
+
+    byte[] read(Entry entry) throws IOException {
+        try (InputStream in = open(entry)) {
+            return in.readAllBytes();
+        }
+    }
+
+    /**
+     * Flushes the records written since the previous call to the storage
+     * device, in every segment they went to.
+     */
+    void force() throws IOException {
+        appendLock.lock();
+        try {
+            for (Segment segment : segments.values()) {
+                if (segment.dirty) {
+                    segment.channel.force(false);
+                    segment.dirty = false;
+                }
+            }
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    /**
+     * Segments with records that were not flushed yet.
+     */
+    int unforcedSegmentCount() {
+        return (int) segments.values().stream().filter(segment -> segment.dirty).count();
+    }
+
+    long sizeInBytes() {
+        return segments.values().stream().mapToLong(segment -> segment.size).sum();
+    }
+
+    /**
+     * Bytes held by superseded records, which compaction can reclaim.
+     */
+    long supersededBytes() {
+        return segments.values().stream().mapToLong(segment -> segment.supersededBytes.get()).sum();
+    }
+
+    int segmentCount() {
+        return segments.size();
+    }
+
+    @Override
+    public void close() throws IOException {
+        appendLock.lock();
+        try {
+            for (Segment segment : segments.values()) {
+                segment.channel.close();
+            }
+            for (Segment segment : retired.values()) {
+                segment.channel.close();
+            }
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    private static byte[] gzip(byte[] content) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(content.length / 4 + 64);
+        try (GZIPOutputStream out = new GZIPOutputStream(bytes)) {
+            out.write(content);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static final class Segment {
+        private final int index;
+        private final Path path;
+        private final FileChannel channel;
+        private final ReentrantLock mappingLock = new ReentrantLock();
+        private final AtomicLong supersededBytes = new AtomicLong();
+        private volatile MappedByteBuffer mapping;
+        private volatile long size;
+        // written to since the last force, guarded by the append lock
+        private volatile boolean dirty;
+
+        Segment(int index, Path path) throws IOException {
+            this.index = index;
+            this.path = path;
+            this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                    StandardOpenOption.WRITE);
+        }
+
+        ByteBuffer slice(long offset, int length) throws IOException {
+            MappedByteBuffer current = mapping;
+            if (current == null || offset + length > current.capacity()) {
+                current = remap(offset + length);
+            }
+            // absolute slices leave the shared mapping's position untouched
+            return current.slice((int) offset, length);
+        }
+
+        // The active segment grows after it was mapped, so reads of newer records map it again
+        private MappedByteBuffer remap(long end) throws IOException {
+            mappingLock.lock();
+            try {
+                if (mapping != null && mapping.capacity() >= end) {
+                    return mapping;
+                }
+                long fileSize = channel.size();
+                if (end > fileSize) {
+                    throw new IOException("Record beyond the end of " + path);
+                }
+                mapping = channel.map(FileChannel.MapMode.READ_ONLY, 0, fileSize);
+                return mapping;
+            } finally {
+                mappingLock.unlock();
+            }
+        }
+
+        void truncate(long length) throws IOException {
+            mappingLock.lock();
+            try {
+                channel.truncate(length);
+                mapping = null;
+                size = length;
+            } finally {
+                mappingLock.unlock();
+            }
+        }
+    }
+
+    private static final class ByteBufferInputStream extends InputStream {
+        private final ByteBuffer buffer;
+
+        ByteBufferInputStream(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int read() {
+            return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) {
+            if (!buffer.hasRemaining()) {
+                return len == 0 ? 0 : -1;
+            }
+            int n = Math.min(len, buffer.remaining());
+            buffer.get(b, off, n);
+            return n;
+        }
+
+        @Override
+        public int available() {
+            return buffer.remaining();
+        }
+    }
+}
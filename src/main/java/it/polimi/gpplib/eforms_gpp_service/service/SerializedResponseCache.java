@@ -0,0 +1,189 @@
+package it.polimi.gpplib.eforms_gpp_service.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import it.polimi.gpplib.eforms_gpp_service.config.AppConfig;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Caches JSON response bodies as bytes, so repeated responses skip both the
+ * work that produced them and their serialization.
+ *
+ * Analysis results are keyed by their ETag and are not kept as objects as
+ * well; concurrent misses for one notice share a single analysis. Criteria
+ * lookups are keyed by the normalized query and kept in a separate, smaller
+ * cache holding the current criteria index version only, so a stream of
+ * distinct lookups cannot evict analysis results. Entries hold the JSON and,
+ * for bodies of at least {@code app.cache.responses.gzip-min-bytes}, its gzip
+ * encoding, so the encoding negotiated from Accept-Encoding picks a variant of
+ * the same entry. Pre-gzipped bodies go out with Content-Encoding set, which
+ * makes the container skip its own per-response compression. Both caches are
+ * bounded by the bytes they hold.
+ */
+@Component
+public class SerializedResponseCache {
+
+    private final ObjectMapper objectMapper;
+    private final GppMetrics gppMetrics;
+    private final int gzipMinBytes;
+    private final Cache<String, SerializedResponse> analyses;
+    private final Cache<String, SerializedResponse> criteria;
+    private final SingleFlight<String, SerializedResponse> pendingAnalyses;
+    private final AtomicReference<String> criteriaVersion = new AtomicReference<>();
+
+    public SerializedResponseCache(ObjectMapper objectMapper, GppMetrics gppMetrics, AppConfig appConfig,
+            MeterRegistry meterRegistry) {
+        AppConfig.Cache.Responses config = appConfig.getCache().getResponses();
+        this.objectMapper = objectMapper;
+        this.gppMetrics = gppMetrics;
+        this.gzipMinBytes = config.getGzipMinBytes();
+        this.analyses = build(config.getMaxWeightBytes(), config.getTtl());
+        this.criteria = build(config.getCriteriaMaxWeightBytes(), config.getTtl());
+        CaffeineCacheMetrics.monitor(meterRegistry, analyses, "analysis-responses");
+        CaffeineCacheMetrics.monitor(meterRegistry, criteria, "criteria-responses");
+        this.pendingAnalyses = new SingleFlight<>("analyze", meterRegistry);
+    }
+
+    private static Cache<String, SerializedResponse> build(long maxWeightBytes, Duration ttl) {
+        return Caffeine.newBuilder()
+                .maximumWeight(maxWeightBytes)
+                .weigher((String key, SerializedResponse response) -> response.weight())
+                .expireAfterAccess(ttl)
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * Returns the serialized analysis result for an analysis ETag, analyzing and serializing on a miss.
+     */
+    public SerializedResponse analysis(String etag, Supplier<?> analysis) {
+        SerializedResponse response = analyses.getIfPresent(etag);
+        if (response != null) {
+            return response;
+        }
+        // analyze outside the cache's compute lock, analyses can take a while
+        return pendingAnalyses.execute(etag, () -> {
+            SerializedResponse cached = analyses.getIfPresent(etag);
+            if (cached != null) {
+                return cached;
+            }
+            SerializedResponse fresh = serialize(analysis.get());
+            analyses.put(etag, fresh);
+            return fresh;
+        });
+    }
+
+    /**
+     * Checks whether the analysis result for an ETag is cached, without counting as a cache access.
+     */
+    public boolean hasAnalysis(String etag) {
+        return analyses.asMap().containsKey(etag);
+    }
+
+    /**
+     * Returns the serialized criteria lookup for a query against an index version, serializing on a miss.
+     * Lookups against an earlier version are dropped once a newer one is seen.
+     */
+    public SerializedResponse criteria(String version, String query, Supplier<?> body) {
+        String previous = criteriaVersion.getAndSet(version);
+        if (previous != null && !previous.equals(version)) {
+            criteria.invalidateAll();
+        }
+        // lookups are cheap enough to run under the cache's compute lock
+        return criteria.get(version + ":" + query, key -> serialize(body.get()));
+    }
+
+    public SerializedResponse serialize(Object body) {
+        return gppMetrics.time(GppMetrics.SERIALIZE, () -> {
+            try {
+                byte[] json = objectMapper.writeValueAsBytes(body);
+                return new SerializedResponse(json, json.length >= gzipMinBytes ? gzip(json) : null,
+                        "\"" + NoticeDigest.sha256Hex(json) + "\"");
+            } catch (JsonProcessingException e) {
+                throw new IllegalStateException("Could not serialize response", e);
+            }
+        });
+    }
+
+    private static byte[] gzip(byte[] json) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(json.length / 4);
+        try (GZIPOutputStream out = new GZIPOutputStream(bytes)) {
+            out.write(json);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Checks whether an Accept-Encoding header value accepts gzip.
+     */
+    public static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        for (String candidate : acceptEncoding.split(",")) {
+            String[] parts = candidate.split(";");
+            String coding = parts[0].trim().toLowerCase(Locale.ROOT);
+            if (!coding.equals("gzip") && !coding.equals("x-gzip") && !coding.equals("*")) {
+                continue;
+            }
+            boolean refused = false;
+            for (int i = 1; i < parts.length; i++) {
+                String parameter = parts[i].trim();
+                if (parameter.startsWith("q=")) {
+                    try {
+                        refused = Double.parseDouble(parameter.substring(2)) <= 0;
+                    } catch (NumberFormatException e) {
+                        refused = true;
+                    }
+                }
+            }
+            return !refused;
+        }
+        return false;
+    }
+
+    /**
+     * A serialized JSON body, with its gzip encoding if it is large enough to be worth compressing.
+     *
+     * @param etag strong ETag of the JSON body
+     */
+    public record SerializedResponse(byte[] json, byte[] gzip, String etag) {
+
+        int weight() {
+            return json.length + (gzip != null ? gzip.length : 0);
+        }
+
+        /**
+         * Picks the encoding for the request and sets the content headers on the response.
+         * The gzip variant gets a weak ETag, as the container does for responses it compresses.
+         */
+        public ResponseEntity<byte[]> toResponse(ResponseEntity.BodyBuilder builder, String etag,
+                String acceptEncoding) {
+            builder.contentType(MediaType.APPLICATION_JSON).varyBy(HttpHeaders.ACCEPT_ENCODING);
+            if (gzip != null && acceptsGzip(acceptEncoding)) {
+                return builder.eTag("W/" + etag)
+                        .header(HttpHeaders.CONTENT_ENCODING, "gzip")
+                        .body(gzip);
+            }
+            return builder.eTag(etag).body(json);
+        }
+    }
+}
@@ -0,0 +1,301 @@
+package it.polimi.gpplib.eforms_gpp_service.service;
+
+import com.fasterxml.jackson.core.io.JsonStringEncoder;
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.bulkhead.BulkheadFullException;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.retry.Retry;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import it.polimi.gpplib.eforms_gpp_service.config.AppConfig;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.StreamingHttpOutputMessage;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StreamUtils;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.RestClient;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Calls the TED API render and validate endpoints through the shared client.
+ *
+ * 4xx and 5xx responses surface as {@link org.springframework.web.client.HttpStatusCodeException}s,
+ * network problems and timeouts as {@link org.springframework.web.client.ResourceAccessException}s.
+ * Calls are limited by a bulkhead so a slow TED cannot tie up every request
+ * thread, 5xx responses and connection failures are retried with jittered
+ * backoff (but not after {@code app.resilience.retry.max-duration}), and a
+ * circuit breaker fails fast with {@link TedUnavailableException} while TED is
+ * unhealthy.
+ */
+@Component
+public class TedApiClient {
+
+    private static final String RENDER_PATH = "/v3/notices/render";
+    private static final String VALIDATE_PATH = "/v3/notices/validate";
+
+    private final RestClient tedRestClient;
+    private final GppMetrics gppMetrics;
+    private final AppConfig appConfig;
+    private final CircuitBreaker tedCircuitBreaker;
+    private final Bulkhead tedBulkhead;
+    private final Retry tedRetry;
+    private final AtomicInteger activeRequests = new AtomicInteger();
+    private final Counter circuitOpenRejections;
+    private final Counter bulkheadFullRejections;
+
+    public TedApiClient(@Qualifier("tedRestClient") RestClient tedRestClient, GppMetrics gppMetrics,
+            AppConfig appConfig, CircuitBreaker tedCircuitBreaker, Bulkhead tedBulkhead, Retry tedRetry,
+            MeterRegistry meterRegistry) {
+        this.tedRestClient = tedRestClient;
+        this.gppMetrics = gppMetrics;
+        this.appConfig = appConfig;
+        this.tedCircuitBreaker = tedCircuitBreaker;
+        this.tedBulkhead = tedBulkhead;
+        this.tedRetry = tedRetry;
+        Gauge.builder("ted.client.requests.active", activeRequests, AtomicInteger::get)
+                .description("TED API requests currently in progress")
+                .register(meterRegistry);
+        this.circuitOpenRejections = rejections("circuit_open", meterRegistry);
+        this.bulkheadFullRejections = rejections("bulkhead_full", meterRegistry);
+    }
+
+    private static Counter rejections(String reason, MeterRegistry meterRegistry) {
+        return Counter.builder("ted.client.rejected")
+                .description("TED API calls rejected without reaching TED")
+                .tag("reason", reason)
+                .register(meterRegistry);
+    }
+
+    public ResponseEntity<String> render(String noticeXml, String language) {
+        return post(RENDER_PATH, renderBody(noticeXml, language), MediaType.TEXT_HTML);
+    }
+
+    /**
+     * Renders the notice and copies TED's HTML straight into {@code target}
+     * instead of buffering it. TED errors are thrown before anything is written.
+     */
+    public long renderTo(String noticeXml, String language, OutputStream target) {
+        TedRequestBody body = renderBody(noticeXml, language);
+        return execute(body, () -> sendTo(RENDER_PATH, body, MediaType.TEXT_HTML, target));
+    }
+
+    public ResponseEntity<String> validate(String noticeXml, String language, String validationMode,
+            String eFormsSdkVersion) {
+        TedRequestBody body = new TedRequestBody("notice", noticeXml,
+                ",\"language\":" + quote(language)
+                        + ",\"validationMode\":" + quote(validationMode)
+                        + ",\"eFormsSdkVersion\":" + quote(eFormsSdkVersion) + "}");
+        return post(VALIDATE_PATH, body, MediaType.APPLICATION_XML);
+    }
+
+    private static TedRequestBody renderBody(String noticeXml, String language) {
+        return new TedRequestBody("file", noticeXml,
+                ",\"language\":" + quote(language) + ",\"format\":\"HTML\",\"summary\":false}");
+    }
+
+    private static String quote(String value) {
+        return value == null ? "null" : "\"" + new String(JsonStringEncoder.getInstance().quoteAsString(value)) + "\"";
+    }
+
+    private ResponseEntity<String> post(String path, TedRequestBody body, MediaType accept) {
+        ResponseEntity<String> response = execute(body, () -> send(path, body, accept));
+        if (response.getBody() != null) {
+            gppMetrics.recordSize(GppMetrics.TED_RESPONSE, response.getBody().length());
+        }
+        return response;
+    }
+
+    private <T> T execute(TedRequestBody body, Supplier<T> send) {
+        long retryDeadline = System.nanoTime() + appConfig.getResilience().getRetry().getMaxDuration().toNanos();
+        Supplier<T> attempt = CircuitBreaker.decorateSupplier(tedCircuitBreaker, send);
+        // the bulkhead permit is held across retries, so retries count against the same limit,
+        // and the circuit breaker records every attempt
+        Supplier<T> call = Bulkhead.decorateSupplier(tedBulkhead,
+                Retry.decorateSupplier(tedRetry, () -> {
+                    try {
+                        return attempt.get();
+                    } catch (RuntimeException e) {
+                        if (System.nanoTime() - retryDeadline >= 0) {
+                            throw new RetryWindowClosedException(e);
+                        }
+                        throw e;
+                    }
+                }));
+        gppMetrics.recordSize(GppMetrics.TED_REQUEST, body.contentLength());
+        try {
+            return gppMetrics.time(GppMetrics.TED, call);
+        } catch (RetryWindowClosedException e) {
+            throw e.getCause();
+        } catch (CallNotPermittedException e) {
+            circuitOpenRejections.increment();
+            throw new TedUnavailableException("TED API is failing, calls are suspended", e);
+        } catch (BulkheadFullException e) {
+            bulkheadFullRejections.increment();
+            throw new TedUnavailableException("Too many concurrent TED API calls", e);
+        }
+    }
+
+    private ResponseEntity<String> send(String path, TedRequestBody body, MediaType accept) {
+        activeRequests.incrementAndGet();
+        try {
+            return request(path, body, accept)
+                    .retrieve()
+                    .toEntity(String.class);
+        } finally {
+            activeRequests.decrementAndGet();
+        }
+    }
+
+    private long sendTo(String path, TedRequestBody body, MediaType accept, OutputStream target) {
+        activeRequests.incrementAndGet();
+        try {
+            return request(path, body, accept).exchange((request, response) -> {
+                if (response.getStatusCode().isError()) {
+                    byte[] error = response.getBody().readAllBytes();
+                    throw response.getStatusCode().is4xxClientError()
+                            ? HttpClientErrorException.create(response.getStatusCode(), response.getStatusText(),
+                                    response.getHeaders(), error, StandardCharsets.UTF_8)
+                            : HttpServerErrorException.create(response.getStatusCode(), response.getStatusText(),
+                                    response.getHeaders(), error, StandardCharsets.UTF_8);
+                }
+                TrackingOutputStream tracked = new TrackingOutputStream(target);
+                try (InputStream in = response.getBody()) {
+                    long length = in.transferTo(tracked);
+                    gppMetrics.recordSize(GppMetrics.TED_RESPONSE, length);
+                    return length;
+                } catch (IOException e) {
+                    if (tracked.written) {
+                        // part of the response already reached the client, so this must not be retried
+                        throw new UncheckedIOException("TED response interrupted while streaming", e);
+                    }
+                    throw e;
+                }
+            });
+        } finally {
+            activeRequests.decrementAndGet();
+        }
+    }
+
+    private RestClient.RequestBodySpec request(String path, TedRequestBody body, MediaType accept) {
+        return tedRestClient.post()
+                .uri(path)
+                .contentType(MediaType.APPLICATION_JSON)
+                .contentLength(body.contentLength())
+                .accept(accept)
+                .headers(headers -> headers.setBearerAuth(appConfig.getApi().getTedApiKey()))
+                .body(body);
+    }
+
+    /**
+     * JSON request body with the notice as a Base64 field, encoded while it is
+     * written to the connection so no encoded copy of the notice is ever held
+     * in memory. The body can be written again when a call is retried.
+     */
+    static class TedRequestBody implements StreamingHttpOutputMessage.Body {
+        private static final int WRITE_CHUNK_CHARS = 8192;
+
+        private final byte[] prefix;
+        private final String noticeXml;
+        private final byte[] suffix;
+        private final long contentLength;
+
+        TedRequestBody(String field, String noticeXml, String remainingFields) {
+            this.prefix = ("{\"" + field + "\":\"").getBytes(StandardCharsets.UTF_8);
+            this.noticeXml = noticeXml;
+            this.suffix = ("\"" + remainingFields).getBytes(StandardCharsets.UTF_8);
+            long encodedLength = 4 * ((utf8Length(noticeXml) + 2) / 3);
+            this.contentLength = prefix.length + encodedLength + suffix.length;
+        }
+
+        long contentLength() {
+            return contentLength;
+        }
+
+        @Override
+        public void writeTo(OutputStream out) throws IOException {
+            out.write(prefix);
+            // closing the encoder writes the final padding, but must not close the connection
+            try (Writer writer = new OutputStreamWriter(
+                    Base64.getEncoder().wrap(StreamUtils.nonClosing(out)), StandardCharsets.UTF_8)) {
+                // the writer copies what it is given into a char array, so it gets bounded slices
+                for (int offset = 0; offset < noticeXml.length(); offset += WRITE_CHUNK_CHARS) {
+                    writer.write(noticeXml, offset, Math.min(WRITE_CHUNK_CHARS, noticeXml.length() - offset));
+                }
+            }
+            out.write(suffix);
+        }
+
+        @Override
+        public boolean repeatable() {
+            return true;
+        }
+
+        private static long utf8Length(String text) {
+            long length = 0;
+            for (int i = 0; i < text.length(); i++) {
+                char c = text.charAt(i);
+                if (c < 0x80) {
+                    length += 1;
+                } else if (c < 0x800) {
+                    length += 2;
+                } else if (Character.isHighSurrogate(c) && i + 1 < text.length()
+                        && Character.isLowSurrogate(text.charAt(i + 1))) {
+                    length += 4;
+                    i++;
+                } else {
+                    // lone surrogates are encoded as '?'
+                    length += Character.isSurrogate(c) ? 1 : 3;
+                }
+            }
+            return length;
+        }
+    }
+
+    // Carries the last failure past the retry once the call has taken too long to try again
+    private static class RetryWindowClosedException extends RuntimeException {
+        RetryWindowClosedException(RuntimeException cause) {
+            super(cause);
+        }
+
+        @Override
+        public synchronized RuntimeException getCause() {
+            return (RuntimeException) super.getCause();
+        }
+    }
+
+    private static class TrackingOutputStream extends FilterOutputStream {
+        private boolean written;
+
+        TrackingOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            written = true;
+            out.write(b);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            written = true;
+            out.write(b, off, len);
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package it.polimi.gpplib.eforms_gpp_service.service;
+
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.stereotype.Component;
+
+/**
+ * Reports the state of the TED circuit breaker and bulkhead.
+ *
+ * Always reports UP: analysis does not depend on TED, so an open breaker
+ * must not take the whole service out of rotation.
+ */
+@Component("tedApi")
+public class TedApiHealthIndicator implements HealthIndicator {
+
+    private final CircuitBreaker tedCircuitBreaker;
+    private final Bulkhead tedBulkhead;
+
+    public TedApiHealthIndicator(CircuitBreaker tedCircuitBreaker, Bulkhead tedBulkhead) {
+        this.tedCircuitBreaker = tedCircuitBreaker;
+        this.tedBulkhead = tedBulkhead;
+    }
+
+    @Override
+    public Health health() {
+        CircuitBreaker.Metrics metrics = tedCircuitBreaker.getMetrics();
+        return Health.up()
+                .withDetail("circuitBreaker", tedCircuitBreaker.getState().name())
+                .withDetail("failureRate", metrics.getFailureRate())
+                .withDetail("slowCallRate", metrics.getSlowCallRate())
+                .withDetail("notPermittedCalls", metrics.getNumberOfNotPermittedCalls())
+                .withDetail("bulkheadAvailableCalls", tedBulkhead.getMetrics().getAvailableConcurrentCalls())
+                .build();
+    }
+}
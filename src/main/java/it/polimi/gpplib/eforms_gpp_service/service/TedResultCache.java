@@ -0,0 +1,273 @@
+package it.polimi.gpplib.eforms_gpp_service.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import it.polimi.gpplib.eforms_gpp_service.config.AppConfig;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * Caches successful TED render and validation responses.
+ *
+ * Responses are kept in a size-bounded in-memory cache and, when
+ * {@code app.cache.ted.directory} is set, also written to disk so they
+ * survive restarts. Error responses are never cached, but concurrent
+ * identical calls still share a single TED request.
+ */
+@Slf4j
+@Component
+public class TedResultCache {
+
+    private static final String FILE_SUFFIX = ".ted";
+
+    private final Cache<String, CachedResponse> cache;
+    private final Duration ttl;
+    private final Path directory;
+    private final int maxStreamedEntryBytes;
+    private final Counter diskHits;
+    private final SingleFlight<String, ResponseEntity<String>> renders;
+    private final SingleFlight<String, ResponseEntity<String>> validations;
+
+    public TedResultCache(AppConfig appConfig, MeterRegistry meterRegistry) throws IOException {
+        AppConfig.Cache.Ted config = appConfig.getCache().getTed();
+        this.ttl = config.getTtl();
+        this.maxStreamedEntryBytes = config.getMaxStreamedEntryBytes();
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(config.getMaxWeightBytes())
+                .weigher((String key, CachedResponse response) -> response.weight())
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "ted-results");
+        this.diskHits = Counter.builder("ted.results.disk.hits")
+                .description("TED responses served from the on-disk cache")
+                .register(meterRegistry);
+        this.renders = new SingleFlight<>("visualize", meterRegistry);
+        this.validations = new SingleFlight<>("validate", meterRegistry);
+
+        if (config.getDirectory() != null && !config.getDirectory().isBlank()) {
+            this.directory = Path.of(config.getDirectory());
+            Files.createDirectories(directory);
+            log.info("Persisting TED results to {}", directory.toAbsolutePath());
+        } else {
+            this.directory = null;
+        }
+    }
+
+    public ResponseEntity<String> render(String noticeHandle, String language,
+            Supplier<ResponseEntity<String>> tedCall) {
+        String key = "render:" + noticeHandle + ":" + language;
+        return get(renders, key, tedCall);
+    }
+
+    public ResponseEntity<String> validation(String noticeHandle, String language, String validationMode,
+            String eFormsSdkVersion, Supplier<ResponseEntity<String>> tedCall) {
+        String key = "validate:" + noticeHandle + ":" + language + ":" + validationMode + ":" + eFormsSdkVersion;
+        return get(validations, key, tedCall);
+    }
+
+    /**
+     * Writes the rendered HTML to {@code out}, from the cache or by streaming it
+     * from TED. Streamed renders are cached only up to
+     * {@code app.cache.ted.max-streamed-entry-bytes}, larger ones pass through
+     * without being buffered. Concurrent misses are not coalesced, since each
+     * caller needs the stream for its own response.
+     */
+    public void renderTo(String noticeHandle, String language, OutputStream out, StreamingTedCall tedCall)
+            throws IOException {
+        String key = "render:" + noticeHandle + ":" + language;
+        CachedResponse cached = lookup(key);
+        if (cached != null) {
+            out.write(cached.body().getBytes(StandardCharsets.UTF_8));
+            return;
+        }
+        CapturingOutputStream capture = new CapturingOutputStream(out, maxStreamedEntryBytes);
+        tedCall.writeTo(capture);
+        if (!capture.overflowed) {
+            store(key, new CachedResponse(HttpStatus.OK.value(), capture.captured.toString(StandardCharsets.UTF_8)));
+        }
+    }
+
+    @FunctionalInterface
+    public interface StreamingTedCall {
+        void writeTo(OutputStream out) throws IOException;
+    }
+
+    private ResponseEntity<String> get(SingleFlight<String, ResponseEntity<String>> flight, String key,
+            Supplier<ResponseEntity<String>> tedCall) {
+        CachedResponse cached = cache.getIfPresent(key);
+        if (cached != null) {
+            return cached.toResponse();
+        }
+        return flight.execute(key, () -> load(key, tedCall));
+    }
+
+    private ResponseEntity<String> load(String key, Supplier<ResponseEntity<String>> tedCall) {
+        CachedResponse cached = lookup(key);
+        if (cached != null) {
+            return cached.toResponse();
+        }
+
+        ResponseEntity<String> response = tedCall.get();
+        if (response.getStatusCode().is2xxSuccessful() && response.getBody() != null) {
+            store(key, new CachedResponse(response.getStatusCode().value(), response.getBody()));
+        }
+        return response;
+    }
+
+    private CachedResponse lookup(String key) {
+        CachedResponse cached = cache.getIfPresent(key);
+        if (cached == null) {
+            cached = readFromDisk(key);
+            if (cached != null) {
+                diskHits.increment();
+                cache.put(key, cached);
+            }
+        }
+        return cached;
+    }
+
+    private void store(String key, CachedResponse response) {
+        cache.put(key, response);
+        writeToDisk(key, response);
+    }
+
+    @Scheduled(fixedDelayString = "${app.cache.ted.prune-interval:1h}")
+    public void pruneDisk() {
+        if (directory == null) {
+            return;
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            files.filter(file -> file.toString().endsWith(FILE_SUFFIX))
+                    .filter(this::isExpired)
+                    .forEach(this::deleteQuietly);
+        } catch (IOException e) {
+            log.warn("Could not prune TED result cache directory {}", directory, e);
+        }
+    }
+
+    private CachedResponse readFromDisk(String key) {
+        if (directory == null) {
+            return null;
+        }
+        Path file = fileFor(key);
+        if (!Files.exists(file)) {
+            return null;
+        }
+        if (isExpired(file)) {
+            deleteQuietly(file);
+            return null;
+        }
+        try {
+            String content = Files.readString(file, StandardCharsets.UTF_8);
+            int newline = content.indexOf('\n');
+            return new CachedResponse(Integer.parseInt(content.substring(0, newline)), content.substring(newline + 1));
+        } catch (IOException | RuntimeException e) {
+            log.warn("Ignoring unreadable TED result cache file {}", file, e);
+            deleteQuietly(file);
+            return null;
+        }
+    }
+
+    private void writeToDisk(String key, CachedResponse response) {
+        if (directory == null) {
+            return;
+        }
+        Path file = fileFor(key);
+        try {
+            // write to a temporary file first so readers never see a partial entry
+            Path temp = Files.createTempFile(directory, "ted", ".tmp");
+            Files.writeString(temp, response.status() + "\n" + response.body(), StandardCharsets.UTF_8);
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            log.warn("Could not persist TED result to {}", file, e);
+        }
+    }
+
+    private Path fileFor(String key) {
+        return directory.resolve(NoticeDigest.sha256Hex(key) + FILE_SUFFIX);
+    }
+
+    private boolean isExpired(Path file) {
+        try {
+            FileTime modified = Files.getLastModifiedTime(file);
+            return modified.toInstant().plus(ttl).isBefore(Instant.now());
+        } catch (IOException e) {
+            return true;
+        }
+    }
+
+    private void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            log.warn("Could not delete TED result cache file {}", file, e);
+        }
+    }
+
+    // Passes everything through and keeps a copy until it grows past the limit
+    private static class CapturingOutputStream extends FilterOutputStream {
+        private final int limit;
+        private ByteArrayOutputStream captured = new ByteArrayOutputStream();
+        private boolean overflowed;
+
+        CapturingOutputStream(OutputStream out, int limit) {
+            super(out);
+            this.limit = limit;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            capture(new byte[] { (byte) b }, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            capture(b, off, len);
+        }
+
+        private void capture(byte[] b, int off, int len) {
+            if (overflowed) {
+                return;
+            }
+            if (captured.size() + len > limit) {
+                overflowed = true;
+                captured = null;
+                return;
+            }
+            captured.write(b, off, len);
+        }
+    }
+
+    private record CachedResponse(int status, String body) {
+        ResponseEntity<String> toResponse() {
+            return ResponseEntity.status(status).body(body);
+        }
+
+        int weight() {
+            return (int) Math.min(Integer.MAX_VALUE, 2L * body.length());
+        }
+    }
+}
@@ -0,0 +1,12 @@
+package it.polimi.gpplib.eforms_gpp_service.service;
+
+/**
+ * Thrown instead of calling TED when the circuit breaker is open or the
+ * bulkhead has no capacity left.
+ */
+public class TedUnavailableException extends RuntimeException {
+
+    public TedUnavailableException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
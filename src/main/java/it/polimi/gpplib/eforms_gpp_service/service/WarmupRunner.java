@@ -0,0 +1,93 @@
+package it.polimi.gpplib.eforms_gpp_service.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import it.polimi.gpplib.eforms_gpp_service.config.AppConfig;
+import it.polimi.gpplib.model.GppAnalysisResult;
+import it.polimi.gpplib.model.Notice;
+import it.polimi.gpplib.model.SuggestedGppPatch;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Runs the bundled example notices through the whole pipeline before the
+ * application reports itself ready.
+ *
+ * Application runners complete before the readiness state changes to
+ * ACCEPTING_TRAFFIC, so load balancers probing
+ * {@code /actuator/health/readiness} only route requests once every analyzer
+ * is created and the parse, analyze, patch and serialize paths are JIT-warm.
+ * Warm-up failures are logged and never prevent startup.
+ */
+@Slf4j
+@Component
+public class WarmupRunner implements ApplicationRunner {
+
+    private final AnalyzerPool analyzerPool;
+    private final ObjectMapper objectMapper;
+    private final AppConfig.Warmup config;
+
+    public WarmupRunner(AnalyzerPool analyzerPool, ObjectMapper objectMapper, AppConfig appConfig) {
+        this.analyzerPool = analyzerPool;
+        this.objectMapper = objectMapper;
+        this.config = appConfig.getWarmup();
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (!config.isEnabled()) {
+            return;
+        }
+        long start = System.nanoTime();
+        analyzerPool.prestart();
+        List<String> notices = loadNotices();
+        int runs = 0;
+        for (int i = 0; i < config.getIterations(); i++) {
+            for (String noticeXml : notices) {
+                try {
+                    runPipeline(noticeXml);
+                    runs++;
+                } catch (RuntimeException e) {
+                    log.warn("Warm-up run failed, continuing", e);
+                }
+            }
+        }
+        log.info("Warm-up finished in {} ms: {} analyzers, {} pipeline runs over {} notices",
+                (System.nanoTime() - start) / 1_000_000, analyzerPool.getSize(), runs, notices.size());
+    }
+
+    private List<String> loadNotices() {
+        List<String> notices = new ArrayList<>();
+        try {
+            for (Resource resource : new PathMatchingResourcePatternResolver().getResources(config.getNotices())) {
+                notices.add(resource.getContentAsString(StandardCharsets.UTF_8));
+            }
+        } catch (IOException e) {
+            log.warn("Could not load warm-up notices from {}", config.getNotices(), e);
+        }
+        return notices;
+    }
+
+    private void runPipeline(String noticeXml) {
+        analyzerPool.execute(analyzer -> {
+            Notice notice = analyzer.loadNotice(noticeXml);
+            GppAnalysisResult result = analyzer.analyzeNotice(notice);
+            List<SuggestedGppPatch> patches = analyzer.suggestPatches(notice, List.of());
+            String patchedXml = analyzer.applyPatches(notice, patches).toXmlString();
+            XmlDiff.diff(noticeXml, patchedXml);
+            try {
+                return objectMapper.writeValueAsBytes(result);
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+    }
+}
@@ -0,0 +1,279 @@
+package it.polimi.gpplib.eforms_gpp_service.service;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import io.swagger.v3.oas.annotations.media.Schema;
+import org.w3c.dom.Attr;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.NamedNodeMap;
+import org.w3c.dom.Node;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+
+import javax.xml.XMLConstants;
+import javax.xml.parsers.DocumentBuilder;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.transform.OutputKeys;
+import javax.xml.transform.Transformer;
+import javax.xml.transform.TransformerException;
+import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.dom.DOMSource;
+import javax.xml.transform.stream.StreamResult;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Computes the element-level changes between two versions of a notice.
+ *
+ * The changes are meant to be applied in order: every path refers to the
+ * notice as modified by the changes before it.
+ * Elements are matched in document order; whitespace-only text and comments
+ * are ignored, so a re-serialized notice does not differ from its source
+ * only because of formatting. Paths use the prefixes of the notice and a
+ * 1-based position among same-named siblings, e.g.
+ * {@code /ContractNotice/cac:ProcurementProjectLot[1]/cbc:ID[1]}.
+ */
+public final class XmlDiff {
+
+    public static final String REPLACE = "replace";
+    public static final String INSERT = "insert";
+    public static final String REMOVE = "remove";
+
+    // JAXP factories and transformers are not thread-safe, so every diff gets its own
+    private final DocumentBuilder documentBuilder;
+    private final Transformer transformer;
+    private final List<Change> changes = new ArrayList<>();
+
+    private XmlDiff() {
+        try {
+            DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+            factory.setNamespaceAware(true);
+            factory.setFeature("http://apache.org/xml/features/disallow-doctype-decl", true);
+            this.documentBuilder = factory.newDocumentBuilder();
+            this.transformer = TransformerFactory.newInstance().newTransformer();
+            transformer.setOutputProperty(OutputKeys.OMIT_XML_DECLARATION, "yes");
+        } catch (ParserConfigurationException | TransformerException e) {
+            throw new IllegalStateException("XML support is not available", e);
+        }
+    }
+
+    public static List<Change> diff(String oldXml, String newXml) {
+        XmlDiff diff = new XmlDiff();
+        Element oldRoot = diff.parse(oldXml).getDocumentElement();
+        Element newRoot = diff.parse(newXml).getDocumentElement();
+        String rootPath = "/" + newRoot.getNodeName();
+        if (!sameShallow(oldRoot, newRoot)) {
+            diff.replace(rootPath, newRoot);
+        } else {
+            diff.diffChildren(oldRoot, newRoot, rootPath);
+        }
+        return diff.changes;
+    }
+
+    private void diffChildren(Element oldParent, Element newParent, String path) {
+        List<Node> oldChildren = significantChildren(oldParent);
+        List<Node> newChildren = significantChildren(newParent);
+
+        // text content (or mixed content) changes are reported on the enclosing element
+        if (hasText(oldChildren) || hasText(newChildren)) {
+            if (!sameChildren(oldChildren, newChildren)) {
+                replace(path, newParent);
+            }
+            return;
+        }
+
+        int prefix = 0;
+        while (prefix < oldChildren.size() && prefix < newChildren.size()
+                && same(oldChildren.get(prefix), newChildren.get(prefix))) {
+            prefix++;
+        }
+        int suffix = 0;
+        while (suffix < oldChildren.size() - prefix && suffix < newChildren.size() - prefix
+                && same(oldChildren.get(oldChildren.size() - 1 - suffix),
+                        newChildren.get(newChildren.size() - 1 - suffix))) {
+            suffix++;
+        }
+
+        int oldEnd = oldChildren.size() - suffix;
+        int newEnd = newChildren.size() - suffix;
+        int o = prefix;
+        int n = prefix;
+        while (o < oldEnd || n < newEnd) {
+            Element oldChild = o < oldEnd ? (Element) oldChildren.get(o) : null;
+            Element newChild = n < newEnd ? (Element) newChildren.get(n) : null;
+            if (oldChild != null && newChild != null && oldChild.getNodeName().equals(newChild.getNodeName())) {
+                String childPath = path + "/" + step(newChild.getNodeName(), newChildren, n);
+                if (sameShallow(oldChild, newChild)) {
+                    diffChildren(oldChild, newChild, childPath);
+                } else {
+                    replace(childPath, newChild);
+                }
+                o++;
+                n++;
+            } else if (newChild != null && (oldChild == null || newEnd - n > oldEnd - o)) {
+                changes.add(Change.insert(path, n + 1, serialize(newChild)));
+                n++;
+            } else {
+                // at this point the parent holds the new children before n, followed by the old ones from o
+                changes.add(Change.remove(path + "/" + step(oldChild.getNodeName(), newChildren, n)));
+                o++;
+            }
+        }
+    }
+
+    private void replace(String path, Element element) {
+        changes.add(Change.replace(path, serialize(element)));
+    }
+
+    // Path step for an element named name that follows siblings[0, index)
+    private static String step(String name, List<Node> siblings, int index) {
+        int position = 1;
+        for (int i = 0; i < index; i++) {
+            if (siblings.get(i).getNodeName().equals(name)) {
+                position++;
+            }
+        }
+        return name + "[" + position + "]";
+    }
+
+    private static List<Node> significantChildren(Node parent) {
+        List<Node> children = new ArrayList<>();
+        for (Node child = parent.getFirstChild(); child != null; child = child.getNextSibling()) {
+            switch (child.getNodeType()) {
+                case Node.ELEMENT_NODE -> children.add(child);
+                case Node.TEXT_NODE, Node.CDATA_SECTION_NODE -> {
+                    if (!child.getNodeValue().isBlank()) {
+                        children.add(child);
+                    }
+                }
+                default -> {
+                    // comments and processing instructions do not change the notice
+                }
+            }
+        }
+        return children;
+    }
+
+    private static boolean hasText(List<Node> children) {
+        return children.stream().anyMatch(child -> child.getNodeType() != Node.ELEMENT_NODE);
+    }
+
+    private static boolean same(Node a, Node b) {
+        if (a.getNodeType() != Node.ELEMENT_NODE || b.getNodeType() != Node.ELEMENT_NODE) {
+            return a.getNodeType() == b.getNodeType() && a.getNodeValue().equals(b.getNodeValue());
+        }
+        return sameShallow((Element) a, (Element) b)
+                && sameChildren(significantChildren(a), significantChildren(b));
+    }
+
+    private static boolean sameChildren(List<Node> a, List<Node> b) {
+        if (a.size() != b.size()) {
+            return false;
+        }
+        for (int i = 0; i < a.size(); i++) {
+            if (!same(a.get(i), b.get(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Same name, namespace and attributes, ignoring namespace declarations
+    private static boolean sameShallow(Element a, Element b) {
+        if (!a.getNodeName().equals(b.getNodeName()) || !Objects.equals(a.getNamespaceURI(), b.getNamespaceURI())) {
+            return false;
+        }
+        Map<String, String> attributes = attributes(a);
+        return attributes.equals(attributes(b));
+    }
+
+    private static Map<String, String> attributes(Element element) {
+        NamedNodeMap attributes = element.getAttributes();
+        Map<String, String> values = new HashMap<>();
+        for (int i = 0; i < attributes.getLength(); i++) {
+            Attr attribute = (Attr) attributes.item(i);
+            if (!XMLConstants.XMLNS_ATTRIBUTE_NS_URI.equals(attribute.getNamespaceURI())) {
+                values.put(attribute.getName(), attribute.getValue());
+            }
+        }
+        return values;
+    }
+
+    private Document parse(String xml) {
+        try {
+            return documentBuilder.parse(new InputSource(new StringReader(xml)));
+        } catch (SAXException | IOException e) {
+            throw new IllegalArgumentException("Notice is not well-formed XML: " + e.getMessage(), e);
+        }
+    }
+
+    private String serialize(Element element) {
+        try {
+            StringWriter writer = new StringWriter();
+            transformer.transform(new DOMSource(element), new StreamResult(writer));
+            return writer.toString();
+        } catch (TransformerException e) {
+            throw new IllegalStateException("Could not serialize notice fragment", e);
+        }
+    }
+
+    @Schema(description = "A change to one element of a notice")
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public static class Change {
+        @Schema(description = "Kind of change: replace, insert or remove", example = "replace")
+        private String op;
+        @Schema(description = "Path of the changed element (replace, remove) or of the parent the element is inserted into (insert)", example = "/ContractNotice/cac:ProcurementProjectLot[1]/cbc:ID[1]")
+        private String xpath;
+        @Schema(description = "1-based position among the parent's child elements in the patched notice (insert only)")
+        private Integer position;
+        @Schema(description = "XML of the new element (replace, insert)")
+        private String content;
+
+        static Change replace(String xpath, String content) {
+            Change change = new Change();
+            change.op = REPLACE;
+            change.xpath = xpath;
+            change.content = content;
+            return change;
+        }
+
+        static Change insert(String parentXpath, int position, String content) {
+            Change change = new Change();
+            change.op = INSERT;
+            change.xpath = parentXpath;
+            change.position = position;
+            change.content = content;
+            return change;
+        }
+
+        static Change remove(String xpath) {
+            Change change = new Change();
+            change.op = REMOVE;
+            change.xpath = xpath;
+            return change;
+        }
+
+        public String getOp() {
+            return op;
+        }
+
+        public String getXpath() {
+            return xpath;
+        }
+
+        public Integer getPosition() {
+            return position;
+        }
+
+        public String getContent() {
+            return content;
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package it.polimi.gpplib.eforms_gpp_service.web;
+
+import it.polimi.gpplib.eforms_gpp_service.config.AppConfig;
+import it.polimi.gpplib.eforms_gpp_service.service.RateLimiter;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Rejects API requests with 429 and {@code Retry-After} when the client has
+ * run out of tokens for the endpoint or too many requests are in progress,
+ * before the request body is read. Clients are identified by the
+ * {@code app.rate-limit.client-header} if it holds one of
+ * {@code app.rate-limit.api-keys}, and otherwise by their address, so made-up
+ * keys neither get a fresh bucket nor fill the bucket cache. Behind a proxy the
+ * address is the forwarded client address, as resolved by the container with
+ * {@code server.forward-headers-strategy=native} from trusted proxies only.
+ * Paths are matched within the servlet, so limits apply under any context path.
+ *
+ * Streamed responses hold their concurrency slot until they complete; a
+ * request marked with {@link #releaseWhileWaiting} gives it back as soon as
+ * it goes async, since it is only waiting.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 10)
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    private static final String RELEASE_WHILE_WAITING = RateLimitFilter.class.getName() + ".releaseWhileWaiting";
+
+    @Autowired
+    private AppConfig appConfig;
+
+    @Autowired
+    private RateLimiter rateLimiter;
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !appConfig.getRateLimit().isEnabled() || !request.getServletPath().startsWith("/api/");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        long wait = rateLimiter.tryAcquire(clientOf(request), request.getServletPath());
+        if (wait > 0) {
+            reject(response, Math.max(1, TimeUnit.NANOSECONDS.toSeconds(wait + TimeUnit.SECONDS.toNanos(1) - 1)),
+                    "Rate limit exceeded for this endpoint");
+            return;
+        }
+        if (!rateLimiter.tryEnter()) {
+            reject(response, 1, "Too many requests in progress");
+            return;
+        }
+
+        AtomicBoolean released = new AtomicBoolean();
+        Runnable exit = () -> {
+            if (released.compareAndSet(false, true)) {
+                rateLimiter.exit();
+            }
+        };
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            if (request.isAsyncStarted() && request.getAttribute(RELEASE_WHILE_WAITING) == null) {
+                // streamed responses hold their slot until they complete
+                request.getAsyncContext().addListener(new ExitListener(exit));
+            } else {
+                exit.run();
+            }
+        }
+    }
+
+    /**
+     * Marks a request that goes async only to wait, such as a long poll, so it does not
+     * count against {@code app.rate-limit.max-concurrent-requests} while it waits.
+     */
+    public static void releaseWhileWaiting(HttpServletRequest request) {
+        request.setAttribute(RELEASE_WHILE_WAITING, Boolean.TRUE);
+    }
+
+    private String clientOf(HttpServletRequest request) {
+        AppConfig.RateLimit config = appConfig.getRateLimit();
+        String key = request.getHeader(config.getClientHeader());
+        return key != null && config.getApiKeys().contains(key) ? "key:" + key : "ip:" + request.getRemoteAddr();
+    }
+
+    private static void reject(HttpServletResponse response, long retryAfterSeconds, String message)
+            throws IOException {
+        response.setHeader(HttpHeaders.RETRY_AFTER, Long.toString(retryAfterSeconds));
+        response.sendError(HttpStatus.TOO_MANY_REQUESTS.value(), message);
+    }
+
+    private record ExitListener(Runnable exit) implements AsyncListener {
+        @Override
+        public void onComplete(AsyncEvent event) {
+            exit.run();
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+            exit.run();
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+            exit.run();
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+            // keep listening across a re-started async cycle
+            event.getAsyncContext().addListener(this);
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package it.polimi.gpplib.eforms_gpp_service.web;
+
+import it.polimi.gpplib.eforms_gpp_service.service.GppMetrics;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.servlet.mvc.method.annotation.RequestBodyAdviceAdapter;
+
+import java.lang.reflect.Type;
+
+/**
+ * Times the conversion of request bodies and parts into controller arguments
+ * and records the size of each body.
+ */
+@ControllerAdvice
+public class RequestBodyMetricsAdvice extends RequestBodyAdviceAdapter {
+
+    private static final String START_ATTRIBUTE = RequestBodyMetricsAdvice.class.getName() + ".start.";
+
+    private final GppMetrics gppMetrics;
+
+    public RequestBodyMetricsAdvice(GppMetrics gppMetrics) {
+        this.gppMetrics = gppMetrics;
+    }
+
+    @Override
+    public boolean supports(MethodParameter methodParameter, Type targetType,
+            Class<? extends HttpMessageConverter<?>> converterType) {
+        return RequestContextHolder.getRequestAttributes() != null;
+    }
+
+    @Override
+    public HttpInputMessage beforeBodyRead(HttpInputMessage inputMessage, MethodParameter parameter, Type targetType,
+            Class<? extends HttpMessageConverter<?>> converterType) {
+        RequestContextHolder.currentRequestAttributes().setAttribute(START_ATTRIBUTE + parameter.getParameterIndex(),
+                System.nanoTime(), RequestAttributes.SCOPE_REQUEST);
+        long contentLength = inputMessage.getHeaders().getContentLength();
+        if (contentLength >= 0) {
+            gppMetrics.recordSize(GppMetrics.REQUEST_BODY, contentLength);
+        }
+        return inputMessage;
+    }
+
+    @Override
+    public Object afterBodyRead(Object body, HttpInputMessage inputMessage, MethodParameter parameter, Type targetType,
+            Class<? extends HttpMessageConverter<?>> converterType) {
+        Object start = RequestContextHolder.currentRequestAttributes()
+                .getAttribute(START_ATTRIBUTE + parameter.getParameterIndex(), RequestAttributes.SCOPE_REQUEST);
+        if (start instanceof Long startNanos) {
+            gppMetrics.record(GppMetrics.DESERIALIZE, GppMetrics.currentEndpoint(), true,
+                    System.nanoTime() - startNanos);
+        }
+        return body;
+    }
+}
@@ -0,0 +1,137 @@
+package it.polimi.gpplib.eforms_gpp_service.benchmark;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import it.polimi.gpplib.DefaultGppNoticeAnalyzer;
+import it.polimi.gpplib.GppNoticeAnalyzer;
+import it.polimi.gpplib.eforms_gpp_service.service.NoticeSummary;
+import it.polimi.gpplib.eforms_gpp_service.service.NoticeSummaryReader;
+import it.polimi.gpplib.model.GppAnalysisResult;
+import it.polimi.gpplib.model.Notice;
+import it.polimi.gpplib.model.SuggestedGppCriterion;
+import it.polimi.gpplib.model.SuggestedGppPatch;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import javax.xml.stream.XMLStreamException;
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures each library stage the controllers drive, on the example notice
+ * and on scaled-up variants of it.
+ *
+ * suggestPatches and applyPatches need GPP criteria; pass a JSON array of
+ * them (e.g. the criteria returned by analyze-notice) with
+ * {@code -Dbenchmark.criteria=path/to/criteria.json}. Without it both fail
+ * in setup with a message saying so, and the other benchmarks still run.
+ *
+ * readSummary is the streaming read the service uses instead of loadNotice
+ * where it only needs a few fields of the notice; run with the default
+ * {@code -prof gc} to compare allocation as well as latency.
+ */
+@BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+@State(Scope.Benchmark)
+public class NoticePipelineBenchmark {
+
+    @Param({ "1", "20", "100" })
+    public int lots;
+
+    @Param({ "0", "10" })
+    public int additionalCpvs;
+
+    GppNoticeAnalyzer analyzer;
+    String noticeXml;
+    Notice notice;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        analyzer = new DefaultGppNoticeAnalyzer();
+        noticeXml = SyntheticNotices.scaled(lots, additionalCpvs);
+        notice = analyzer.loadNotice(noticeXml);
+    }
+
+    @Benchmark
+    public Notice loadNotice() {
+        return analyzer.loadNotice(noticeXml);
+    }
+
+    @Benchmark
+    public NoticeSummary readSummary() throws XMLStreamException {
+        return NoticeSummaryReader.read(noticeXml);
+    }
+
+    @Benchmark
+    public GppAnalysisResult analyzeNotice() {
+        return analyzer.analyzeNotice(notice);
+    }
+
+    @Benchmark
+    public List<SuggestedGppPatch> suggestPatches(Criteria criteria) {
+        return analyzer.suggestPatches(notice, criteria.criteria);
+    }
+
+    @Benchmark
+    public Notice applyPatches(Criteria criteria, FreshNotice fresh) {
+        return analyzer.applyPatches(fresh.notice, criteria.patches);
+    }
+
+    @Benchmark
+    public String toXmlString() {
+        return notice.toXmlString();
+    }
+
+    /**
+     * The criteria from {@code -Dbenchmark.criteria} and the patches suggested for them.
+     * With no criteria the patch stages do nothing worth measuring, so their setup fails.
+     */
+    @State(Scope.Benchmark)
+    public static class Criteria {
+        List<SuggestedGppCriterion> criteria;
+        List<SuggestedGppPatch> patches;
+
+        @Setup(Level.Trial)
+        public void load(NoticePipelineBenchmark benchmark) throws IOException {
+            String path = System.getProperty("benchmark.criteria");
+            if (path == null || path.isBlank()) {
+                throw new IllegalStateException("suggestPatches and applyPatches need GPP criteria, "
+                        + "run with -Dbenchmark.criteria=path/to/criteria.json or exclude them");
+            }
+            criteria = new ObjectMapper().readValue(new File(path), new TypeReference<List<SuggestedGppCriterion>>() {
+            });
+            if (criteria.isEmpty()) {
+                throw new IllegalStateException("No GPP criteria in " + path);
+            }
+            patches = benchmark.analyzer.suggestPatches(benchmark.notice, criteria);
+        }
+    }
+
+    /**
+     * applyPatches modifies the notice, so every invocation gets a newly parsed one.
+     */
+    @State(Scope.Thread)
+    public static class FreshNotice {
+        Notice notice;
+
+        @Setup(Level.Invocation)
+        public void load(NoticePipelineBenchmark benchmark) {
+            notice = benchmark.analyzer.loadNotice(benchmark.noticeXml);
+        }
+    }
+}
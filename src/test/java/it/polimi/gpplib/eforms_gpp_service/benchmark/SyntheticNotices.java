@@ -0,0 +1,76 @@
+package it.polimi.gpplib.eforms_gpp_service.benchmark;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Builds larger notices from the bundled example by repeating its lot and
+ * adding CPV classifications, so benchmarks can show how cost scales with
+ * notice size.
+ */
+final class SyntheticNotices {
+
+    static final String EXAMPLE = "example_notices/german_furniture.xml";
+
+    private static final String LOT_START = "\t<cac:ProcurementProjectLot>";
+    private static final String LOT_END = "\t</cac:ProcurementProjectLot>\n";
+    private static final String LOT_ID = "LOT-0001";
+    private static final String MAIN_CPV_END = "</cac:MainCommodityClassification>\n";
+
+    // Furniture-related CPV codes, cycled through for the additional classifications
+    private static final String[] CPV_CODES = {
+            "39110000", "39111000", "39112000", "39113000", "39120000", "39121000", "39122000",
+            "39130000", "39131000", "39132000", "39140000", "39141000", "39150000", "39160000"
+    };
+
+    private SyntheticNotices() {
+    }
+
+    static String example() {
+        try (InputStream in = SyntheticNotices.class.getClassLoader().getResourceAsStream(EXAMPLE)) {
+            if (in == null) {
+                throw new IllegalStateException(EXAMPLE + " not found on the classpath");
+            }
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Returns the example notice with {@code lots} lots, each classified with
+     * {@code additionalCpvs} CPV codes on top of its main one.
+     */
+    static String scaled(int lots, int additionalCpvs) {
+        String xml = example();
+        if (lots == 1 && additionalCpvs == 0) {
+            return xml;
+        }
+        int start = xml.indexOf(LOT_START);
+        int end = xml.indexOf(LOT_END, start) + LOT_END.length();
+        String lot = xml.substring(start, end);
+
+        StringBuilder scaled = new StringBuilder(xml.length() + lots * (lot.length() + additionalCpvs * 160));
+        scaled.append(xml, 0, start);
+        for (int i = 1; i <= lots; i++) {
+            scaled.append(withCpvs(lot.replace(LOT_ID, String.format("LOT-%04d", i)), additionalCpvs, i));
+        }
+        scaled.append(xml, end, xml.length());
+        return scaled.toString();
+    }
+
+    private static String withCpvs(String lot, int additionalCpvs, int lotNumber) {
+        int insertAt = lot.lastIndexOf(MAIN_CPV_END) + MAIN_CPV_END.length();
+        StringBuilder classifications = new StringBuilder();
+        for (int i = 0; i < additionalCpvs; i++) {
+            classifications.append("\t\t\t<cac:AdditionalCommodityClassification>\n")
+                    .append("\t\t\t\t<cbc:ItemClassificationCode listName=\"cpv\">")
+                    .append(CPV_CODES[(lotNumber + i) % CPV_CODES.length])
+                    .append("</cbc:ItemClassificationCode>\n")
+                    .append("\t\t\t</cac:AdditionalCommodityClassification>\n");
+        }
+        return lot.substring(0, insertAt) + classifications + lot.substring(insertAt);
+    }
+}
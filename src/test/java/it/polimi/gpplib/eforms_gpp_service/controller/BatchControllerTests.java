@@ -0,0 +1,176 @@
+package it.polimi.gpplib.eforms_gpp_service.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import it.polimi.gpplib.eforms_gpp_service.config.AppConfig;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class BatchControllerTests {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private BatchController batchController;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private NoticeBatchReader noticeBatchReader;
+
+    @Autowired
+    private AppConfig appConfig;
+
+    private String line(String noticeXml) throws IOException {
+        return objectMapper.writeValueAsString(Map.of("noticeXml", noticeXml)) + "\n";
+    }
+
+    private String notice(int i) throws IOException {
+        return new String(GppControllerTests.example(), StandardCharsets.UTF_8)
+                .replace("</cbc:ID>", "</cbc:ID><!-- " + i + " -->");
+    }
+
+    private List<JsonNode> stream(String body) throws Exception {
+        MvcResult started = mockMvc.perform(post("/api/v1/analyze-notices")
+                .contentType(MediaType.APPLICATION_NDJSON).content(body))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        String response = mockMvc.perform(asyncDispatch(started))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_NDJSON))
+                .andReturn().getResponse().getContentAsString();
+        List<JsonNode> results = new ArrayList<>();
+        for (String resultLine : response.split("\n")) {
+            results.add(objectMapper.readTree(resultLine));
+        }
+        results.sort(Comparator.comparingInt(result -> result.get("index").asInt()));
+        return results;
+    }
+
+    @Test
+    void itemErrorsAreReportedPerLine() throws Exception {
+        List<JsonNode> results = stream(line(notice(0)) + line(" ") + line(notice(2)));
+
+        assertEquals(3, results.size());
+        assertTrue(results.get(0).get("error").isNull());
+        assertEquals("noticeXml must be provided", results.get(1).get("error").asText());
+        assertTrue(results.get(2).get("error").isNull());
+        assertFalse(results.get(2).get("noticeHandle").isNull());
+    }
+
+    @Test
+    void malformedLineEndsTheStream() throws Exception {
+        List<JsonNode> results = stream(line(notice(0)) + "{\"noticeXml\": \n" + line(notice(2)));
+
+        assertEquals(2, results.size());
+        assertTrue(results.get(0).get("error").isNull());
+        assertEquals(1, results.get(1).get("index").asInt());
+        assertTrue(results.get(1).get("error").asText().startsWith("Malformed NDJSON input, stopped reading"),
+                results.get(1).get("error").asText());
+    }
+
+    @Test
+    void clientDisconnectStopsTheStream() throws Exception {
+        StringBuilder body = new StringBuilder();
+        for (int i = 0; i < 200; i++) {
+            body.append(line(notice(i)));
+        }
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/v1/analyze-notices");
+        request.setContent(body.toString().getBytes(StandardCharsets.UTF_8));
+        StreamingResponseBody stream = batchController.analyzeNoticesStream(request).getBody();
+        assertNotNull(stream);
+        int[] written = new int[1];
+        OutputStream disconnecting = new OutputStream() {
+            @Override
+            public void write(int b) throws IOException {
+                write(new byte[] { (byte) b }, 0, 1);
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                // the container reports a gone client as an IOException on write
+                if (written[0]++ > 0) {
+                    throw new IOException("Broken pipe");
+                }
+            }
+        };
+
+        assertThrows(UncheckedIOException.class, () -> stream.writeTo(disconnecting));
+        assertEquals(2, written[0]);
+
+        // the batch executor is still usable for the next request
+        assertEquals(2, stream(line(notice(0)) + line(notice(1))).size());
+    }
+
+    @Test
+    void jsonBatchIsAnalyzedInOrder() throws Exception {
+        String body = objectMapper.writeValueAsString(Map.of("notices",
+                List.of(Map.of("noticeXml", notice(0)), Map.of("noticeXml", " "))));
+
+        mockMvc.perform(post("/api/v1/analyze-notices").contentType(MediaType.APPLICATION_JSON).content(body))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.succeeded").value(1))
+                .andExpect(jsonPath("$.results[1].error").value("noticeXml must be provided"));
+    }
+
+    @Test
+    void jsonBatchIsBoundedBeforeBinding() throws Exception {
+        String tooMany = "{\"notices\": [" + "{},".repeat(appConfig.getBatch().getMaxBatchSize()) + "{}]}";
+        mockMvc.perform(post("/api/v1/analyze-notices").contentType(MediaType.APPLICATION_JSON).content(tooMany))
+                .andExpect(status().isPayloadTooLarge());
+
+        String handle = "{\"notices\": [{\"noticeHandle\": \"abc\"}]}";
+        mockMvc.perform(post("/api/v1/analyze-notices").contentType(MediaType.APPLICATION_JSON).content(handle))
+                .andExpect(status().isBadRequest());
+
+        long maxRequestBytes = appConfig.getBatch().getMaxRequestBytes();
+        appConfig.getBatch().setMaxRequestBytes(1024);
+        try {
+            String large = objectMapper.writeValueAsString(Map.of("notices", List.of(Map.of("noticeXml", notice(0)))));
+            mockMvc.perform(post("/api/v1/analyze-notices").contentType(MediaType.APPLICATION_JSON).content(large))
+                    .andExpect(status().isPayloadTooLarge());
+
+            // without a Content-Length the limit applies while reading
+            MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/v1/analyze-notices");
+            request.setContent(large.getBytes(StandardCharsets.UTF_8));
+            HttpServletRequestWrapper chunked = new HttpServletRequestWrapper(request) {
+                @Override
+                public long getContentLengthLong() {
+                    return -1;
+                }
+            };
+            ResponseStatusException e = assertThrows(ResponseStatusException.class, () -> noticeBatchReader.read(chunked));
+            assertEquals(HttpStatus.PAYLOAD_TOO_LARGE, e.getStatusCode());
+        } finally {
+            appConfig.getBatch().setMaxRequestBytes(maxRequestBytes);
+        }
+    }
+}
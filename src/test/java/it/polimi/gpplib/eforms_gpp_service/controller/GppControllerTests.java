@@ -0,0 +1,216 @@
+package it.polimi.gpplib.eforms_gpp_service.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import it.polimi.gpplib.eforms_gpp_service.service.CriteriaCatalog;
+import it.polimi.gpplib.eforms_gpp_service.service.CriteriaIndex;
+import it.polimi.gpplib.eforms_gpp_service.service.NoticeDigest;
+import it.polimi.gpplib.eforms_gpp_service.web.GzipRequestFilterTests;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.multipart;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class GppControllerTests {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private CircuitBreaker tedCircuitBreaker;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private CriteriaCatalog criteriaCatalog;
+
+    static byte[] example() throws IOException {
+        try (InputStream in = GppControllerTests.class.getClassLoader()
+                .getResourceAsStream("example_notices/german_furniture.xml")) {
+            return in.readAllBytes();
+        }
+    }
+
+    @Test
+    void analysisIsNotModifiedForMatchingEtag() throws Exception {
+        byte[] notice = example();
+        String etag = mockMvc.perform(post("/api/v1/analyze-notice").contentType(MediaType.APPLICATION_XML).content(notice))
+                .andExpect(status().isOk())
+                .andExpect(header().exists(GppController.NOTICE_HANDLE_HEADER))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        assertNotNull(etag);
+
+        for (String ifNoneMatch : new String[] { etag, "W/" + etag, "\"other\", " + etag, "*" }) {
+            mockMvc.perform(post("/api/v1/analyze-notice").contentType(MediaType.APPLICATION_XML).content(notice)
+                    .header(HttpHeaders.IF_NONE_MATCH, ifNoneMatch))
+                    .andExpect(status().isNotModified())
+                    .andExpect(header().string(HttpHeaders.ETAG, etag));
+        }
+
+        mockMvc.perform(post("/api/v1/analyze-notice").contentType(MediaType.APPLICATION_XML).content(notice)
+                .header(HttpHeaders.IF_NONE_MATCH, "\"other\""))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, etag));
+    }
+
+    @Test
+    void wildcardOnlyMatchesAnAnalyzedNotice() throws Exception {
+        String notice = new String(example(), StandardCharsets.UTF_8) + "<!-- wildcard -->";
+
+        mockMvc.perform(post("/api/v1/analyze-notice").contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(Map.of("noticeHandle", "0".repeat(64))))
+                .header(HttpHeaders.IF_NONE_MATCH, "*"))
+                .andExpect(status().isNotFound());
+        mockMvc.perform(post("/api/v1/analyze-notice").contentType(MediaType.APPLICATION_XML).content(notice)
+                .header(HttpHeaders.IF_NONE_MATCH, "*"))
+                .andExpect(status().isOk());
+        mockMvc.perform(post("/api/v1/analyze-notice").contentType(MediaType.APPLICATION_XML).content(notice)
+                .header(HttpHeaders.IF_NONE_MATCH, "*"))
+                .andExpect(status().isNotModified());
+    }
+
+    @Test
+    void uploadsAreDecodedWithTheDeclaredEncoding() throws Exception {
+        String noticeXml = "<?xml version=\"1.0\" encoding=\"ISO-8859-1\"?><ContractNotice><Name>Möbel</Name></ContractNotice>";
+        // the part's content type has no charset parameter, so the declaration decides
+        MockMultipartFile latin1 = new MockMultipartFile("notice", "notice.xml", MediaType.APPLICATION_XML_VALUE,
+                noticeXml.getBytes(StandardCharsets.ISO_8859_1));
+        MockMultipartFile utf8 = new MockMultipartFile("notice", "notice.xml", "application/xml; charset=UTF-8",
+                noticeXml.getBytes(StandardCharsets.UTF_8));
+
+        for (MockMultipartFile part : new MockMultipartFile[] { latin1, utf8 }) {
+            mockMvc.perform(multipart("/api/v1/analyze-notice").file(part))
+                    .andExpect(status().isOk())
+                    .andExpect(header().string(GppController.NOTICE_HANDLE_HEADER, NoticeDigest.sha256Hex(noticeXml)));
+        }
+    }
+
+    @Test
+    void gzipRawXmlIsInflated() throws Exception {
+        byte[] notice = example();
+
+        mockMvc.perform(post("/api/v1/analyze-notice").contentType(MediaType.APPLICATION_XML)
+                .header(HttpHeaders.CONTENT_ENCODING, "gzip").content(GzipRequestFilterTests.gzip(notice)))
+                .andExpect(status().isOk())
+                .andExpect(header().string(GppController.NOTICE_HANDLE_HEADER, NoticeDigest.sha256Hex(notice)));
+    }
+
+    @Test
+    void gzipBombIsRejected() throws Exception {
+        byte[] bomb = GzipRequestFilterTests.gzip(new byte[65 * 1024 * 1024]);
+
+        mockMvc.perform(post("/api/v1/analyze-notice").contentType(MediaType.APPLICATION_XML)
+                .header(HttpHeaders.CONTENT_ENCODING, "gzip").content(bomb))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void multipartUploadsAreAnalyzedUnlessCompressed() throws Exception {
+        byte[] notice = example();
+        MockMultipartFile part = new MockMultipartFile("notice", "notice.xml", MediaType.APPLICATION_XML_VALUE, notice);
+
+        mockMvc.perform(multipart("/api/v1/analyze-notice").file(part))
+                .andExpect(status().isOk())
+                .andExpect(header().string(GppController.NOTICE_HANDLE_HEADER, NoticeDigest.sha256Hex(notice)));
+
+        mockMvc.perform(multipart("/api/v1/analyze-notice").file(part).header(HttpHeaders.CONTENT_ENCODING, "gzip"))
+                .andExpect(status().isUnsupportedMediaType());
+    }
+
+    @Test
+    void tedCallsAnswer503WhileTheCircuitIsOpen() throws Exception {
+        byte[] notice = example();
+        tedCircuitBreaker.transitionToOpenState();
+        try {
+            mockMvc.perform(post("/api/v1/validate-notice").contentType(MediaType.APPLICATION_XML).content(notice)
+                    .param("localValidation", "off"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.validationStatus").value(503));
+            mockMvc.perform(post("/api/v1/visualize-notice").contentType(MediaType.APPLICATION_XML).content(notice))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.visualizationStatus").value(503));
+
+            MvcResult html = mockMvc.perform(post("/api/v1/visualize-notice").contentType(MediaType.APPLICATION_XML)
+                    .accept(MediaType.TEXT_HTML).content(notice))
+                    .andExpect(request().asyncStarted())
+                    .andReturn();
+            mockMvc.perform(asyncDispatch(html))
+                    .andExpect(status().isServiceUnavailable());
+        } finally {
+            tedCircuitBreaker.transitionToClosedState();
+        }
+    }
+
+    @Test
+    void largePatchedNoticeIsStreamedIntact() throws Exception {
+        String example = new String(example(), StandardCharsets.UTF_8);
+        // a megabyte of multi-byte characters and surrogate pairs, crossing every chunk boundary
+        String padding = "<!-- " + "a\u00e9\u20ac\ud83d\ude00".repeat(200_000) + " -->";
+        int rootEnd = example.lastIndexOf("</");
+        String noticeXml = example.substring(0, rootEnd) + padding + example.substring(rootEnd);
+
+        MvcResult result = mockMvc.perform(post("/api/v1/apply-patches").contentType(MediaType.APPLICATION_JSON)
+                .accept(MediaType.APPLICATION_XML)
+                .content(objectMapper.writeValueAsBytes(Map.of("noticeXml", noticeXml, "patches", List.of()))))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        byte[] body = mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsByteArray();
+
+        // a surrogate pair split between two chunks would have been encoded as '?'
+        assertTrue(new String(body, StandardCharsets.UTF_8).contains(padding));
+    }
+
+    @Test
+    void suggestionsWithoutCriteriaUseTheIndexedCriteriaForTheNoticeCpvs() throws Exception {
+        String noticeXml = new String(example(), StandardCharsets.UTF_8);
+        JsonNode criteria = objectMapper.readTree("[{\"id\": \"furniture\", \"cpvCodes\": [\"39100000\"]}]");
+        @SuppressWarnings("unchecked")
+        AtomicReference<CriteriaIndex> index = (AtomicReference<CriteriaIndex>) ReflectionTestUtils
+                .getField(criteriaCatalog, "index");
+        CriteriaIndex before = index.getAndSet(
+                CriteriaIndex.build(List.of(criteria.get(0)), "id", "cpvCodes", "test"));
+        try {
+            mockMvc.perform(post("/api/v1/suggest-patches").contentType(MediaType.APPLICATION_JSON)
+                    .content(objectMapper.writeValueAsBytes(Map.of("noticeXml", noticeXml))))
+                    .andExpect(status().isOk())
+                    .andExpect(header().exists(GppController.NOTICE_HANDLE_HEADER));
+        } finally {
+            index.set(before);
+        }
+    }
+
+    @Test
+    void suggestionsWithoutCriteriaNeedACriteriaCatalog() throws Exception {
+        String noticeXml = new String(example(), StandardCharsets.UTF_8);
+
+        mockMvc.perform(post("/api/v1/suggest-patches").contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsBytes(Map.of("noticeXml", noticeXml))))
+                .andExpect(status().isBadRequest())
+                .andExpect(status().reason("No criteria supplied and no criteria catalog configured (app.criteria.file)"));
+    }
+}
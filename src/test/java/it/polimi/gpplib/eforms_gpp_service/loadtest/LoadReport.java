@@ -0,0 +1,103 @@
+package it.polimi.gpplib.eforms_gpp_service.loadtest;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Collects per-endpoint latencies of one scenario and renders them as a
+ * markdown table.
+ */
+class LoadReport {
+
+    private final List<String> sections = new ArrayList<>();
+
+    Scenario scenario(String name, int concurrency) {
+        return new Scenario(name, concurrency);
+    }
+
+    void add(Scenario scenario, Duration elapsed) {
+        StringBuilder section = new StringBuilder()
+                .append("## ").append(scenario.name)
+                .append(" (").append(scenario.concurrency).append(" clients, ")
+                .append(elapsed.toSeconds()).append("s)\n\n")
+                .append("| Endpoint | Requests | Errors | Req/s | p50 ms | p90 ms | p99 ms | Max ms |\n")
+                .append("| --- | ---: | ---: | ---: | ---: | ---: | ---: | ---: |\n");
+        for (Map.Entry<String, Endpoint> entry : new TreeMap<>(scenario.endpoints).entrySet()) {
+            long[] latencies = entry.getValue().sortedLatencies();
+            double seconds = elapsed.toMillis() / 1000.0;
+            section.append(String.format("| %s | %d | %d | %.1f | %.1f | %.1f | %.1f | %.1f |%n",
+                    entry.getKey(), latencies.length, entry.getValue().errors.sum(), latencies.length / seconds,
+                    percentile(latencies, 0.50), percentile(latencies, 0.90), percentile(latencies, 0.99),
+                    percentile(latencies, 1.0)));
+        }
+        sections.add(section.toString());
+    }
+
+    String render(Map<String, Object> settings) {
+        StringBuilder report = new StringBuilder("# eForms GPP Service Load Test\n\n");
+        settings.forEach((key, value) -> report.append("- ").append(key).append(": `").append(value).append("`\n"));
+        report.append('\n');
+        sections.forEach(section -> report.append(section).append('\n'));
+        return report.toString();
+    }
+
+    void write(Path file, Map<String, Object> settings) throws IOException {
+        Files.createDirectories(file.getParent());
+        Files.writeString(file, render(settings));
+    }
+
+    private static double percentile(long[] sortedNanos, double percentile) {
+        if (sortedNanos.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.ceil(percentile * sortedNanos.length) - 1;
+        return sortedNanos[Math.max(0, index)] / 1_000_000.0;
+    }
+
+    static class Scenario {
+        private final String name;
+        private final int concurrency;
+        private final Map<String, Endpoint> endpoints = new ConcurrentHashMap<>();
+
+        private Scenario(String name, int concurrency) {
+            this.name = name;
+            this.concurrency = concurrency;
+        }
+
+        void record(String endpoint, long latencyNanos, boolean error) {
+            Endpoint stats = endpoints.computeIfAbsent(endpoint, e -> new Endpoint());
+            stats.latencies.add(latencyNanos);
+            if (error) {
+                stats.errors.increment();
+            }
+        }
+
+        Map<String, Long> requestCounts() {
+            Map<String, Long> counts = new LinkedHashMap<>();
+            endpoints.forEach((endpoint, stats) -> counts.put(endpoint, (long) stats.latencies.size()));
+            return counts;
+        }
+    }
+
+    private static class Endpoint {
+        private final ConcurrentLinkedQueue<Long> latencies = new ConcurrentLinkedQueue<>();
+        private final LongAdder errors = new LongAdder();
+
+        long[] sortedLatencies() {
+            long[] sorted = latencies.stream().mapToLong(Long::longValue).toArray();
+            Arrays.sort(sorted);
+            return sorted;
+        }
+    }
+}
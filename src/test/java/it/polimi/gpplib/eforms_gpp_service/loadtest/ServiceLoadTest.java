@@ -0,0 +1,261 @@
+package it.polimi.gpplib.eforms_gpp_service.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.convert.DurationStyle;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Drives all /api/v1 notice endpoints against a running service with the
+ * TED API replaced by an in-process {@link TedStub}, and writes a
+ * throughput/latency report to {@code target/loadtest/report.md}.
+ *
+ * Excluded from the normal build; run with {@code mvn -Ploadtest test}.
+ * Every {@code loadtest.*} setting can be overridden with {@code -D}, as can
+ * any service property (e.g. {@code -Dspring.threads.virtual.enabled=true}).
+ */
+@Slf4j
+@Tag("load")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+class ServiceLoadTest {
+
+    private static final String EXAMPLE = "example_notices/german_furniture.xml";
+    private static final int REUSED_NOTICES = 100;
+
+    private static TedStub tedStub;
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${loadtest.concurrency:32}")
+    private int concurrency;
+
+    @Value("${loadtest.duration:30s}")
+    private Duration duration;
+
+    @Value("${loadtest.warmup:10s}")
+    private Duration warmup;
+
+    @Value("${loadtest.cache-hit-ratio:0.0}")
+    private double cacheHitRatio;
+
+    @Value("${loadtest.mix:analyze=40,suggest=20,apply=10,visualize=15,validate=15}")
+    private String mix;
+
+    @Value("${loadtest.criteria:}")
+    private String criteriaFile;
+
+    @Value("${loadtest.patches:}")
+    private String patchesFile;
+
+    @Value("${loadtest.report:target/loadtest/report.md}")
+    private Path reportFile;
+
+    @Value("${spring.threads.virtual.enabled:false}")
+    private boolean virtualThreads;
+
+    private HttpClient client;
+    private String exampleXml;
+    private JsonNode criteria;
+    private JsonNode patches;
+    private final AtomicLong noticeCounter = new AtomicLong();
+
+    @DynamicPropertySource
+    static void tedStub(DynamicPropertyRegistry registry) throws IOException {
+        // the stub has to run before the context starts, so it is configured from system properties directly
+        tedStub = new TedStub(
+                DurationStyle.detectAndParse(System.getProperty("loadtest.ted.latency", "200ms")),
+                Double.parseDouble(System.getProperty("loadtest.ted.error-rate", "0.0")));
+        registry.add("app.api.ted-base-url", tedStub::baseUrl);
+        // every virtual user shares one address, so client limits would measure the limiter instead
+        registry.add("app.rate-limit.enabled", () -> System.getProperty("loadtest.rate-limit", "false"));
+    }
+
+    @AfterAll
+    static void stopTedStub() {
+        tedStub.close();
+    }
+
+    @Test
+    void endpointThroughput() throws Exception {
+        client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+        exampleXml = readExample();
+        criteria = readJsonArray(criteriaFile);
+        patches = readJsonArray(patchesFile);
+
+        LoadReport report = new LoadReport();
+        for (String endpoint : Endpoint.NAMES) {
+            run(report, endpoint, Map.of(endpoint, 1));
+        }
+        run(report, "mixed", parseMix(mix));
+
+        Map<String, Object> settings = new LinkedHashMap<>();
+        settings.put("concurrency", concurrency);
+        settings.put("duration", duration);
+        settings.put("warmup", warmup);
+        settings.put("cache hit ratio", cacheHitRatio);
+        settings.put("mix", mix);
+        settings.put("TED latency", tedStub.latency());
+        settings.put("TED error rate", tedStub.errorRate());
+        settings.put("TED calls", tedStub.calls());
+        settings.put("virtual threads", virtualThreads);
+        settings.put("processors", Runtime.getRuntime().availableProcessors());
+        settings.put("java", Runtime.version());
+        report.write(reportFile, settings);
+        log.info("Load test report written to {}", reportFile.toAbsolutePath());
+    }
+
+    private void run(LoadReport report, String name, Map<String, Integer> weights) throws InterruptedException {
+        drive(report.scenario(name, concurrency), weights, warmup);
+        LoadReport.Scenario scenario = report.scenario(name, concurrency);
+        Duration elapsed = drive(scenario, weights, duration);
+        report.add(scenario, elapsed);
+        assertTrue(scenario.requestCounts().values().stream().mapToLong(Long::longValue).sum() > 0,
+                "No requests completed in scenario " + name);
+    }
+
+    private Duration drive(LoadReport.Scenario scenario, Map<String, Integer> weights, Duration length)
+            throws InterruptedException {
+        List<String> endpoints = new ArrayList<>();
+        weights.forEach((endpoint, weight) -> {
+            for (int i = 0; i < weight; i++) {
+                endpoints.add(endpoint);
+            }
+        });
+        long start = System.nanoTime();
+        long deadline = start + length.toNanos();
+        List<Thread> workers = new ArrayList<>();
+        for (int i = 0; i < concurrency; i++) {
+            workers.add(Thread.ofVirtual().start(() -> {
+                while (System.nanoTime() < deadline) {
+                    String endpoint = endpoints.get(ThreadLocalRandom.current().nextInt(endpoints.size()));
+                    send(scenario, endpoint);
+                }
+            }));
+        }
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        return Duration.ofNanos(System.nanoTime() - start);
+    }
+
+    private void send(LoadReport.Scenario scenario, String endpoint) {
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/api/v1/" + endpoint))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body(endpoint)))
+                .build();
+        long start = System.nanoTime();
+        boolean error;
+        try {
+            HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+            error = response.statusCode() >= 400 || failedTedCall(endpoint, response.body());
+        } catch (IOException e) {
+            error = true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+        scenario.record(endpoint, System.nanoTime() - start, error);
+    }
+
+    private String body(String endpoint) {
+        ObjectNode body = objectMapper.createObjectNode().put("noticeXml", nextNotice());
+        switch (endpoint) {
+            case Endpoint.SUGGEST -> body.set("criteria", criteria);
+            case Endpoint.APPLY -> body.set("patches", patches);
+            case Endpoint.VISUALIZE -> body.put("language", "EN");
+            case Endpoint.VALIDATE -> body.put("language", "EN").put("validationMode", "static");
+            default -> {
+            }
+        }
+        return body.toString();
+    }
+
+    // Unique notices defeat the service caches, reused ones model repeated submissions
+    private String nextNotice() {
+        long id = ThreadLocalRandom.current().nextDouble() < cacheHitRatio
+                ? ThreadLocalRandom.current().nextLong(REUSED_NOTICES)
+                : REUSED_NOTICES + noticeCounter.incrementAndGet();
+        return exampleXml + "<!-- load test notice " + id + " -->\n";
+    }
+
+    // visualize and validate report TED failures inside a 200 response
+    private boolean failedTedCall(String endpoint, String body) throws IOException {
+        String statusField = switch (endpoint) {
+            case Endpoint.VISUALIZE -> "visualizationStatus";
+            case Endpoint.VALIDATE -> "validationStatus";
+            default -> null;
+        };
+        return statusField != null && objectMapper.readTree(body).path(statusField).asInt() != 200;
+    }
+
+    private Map<String, Integer> parseMix(String mix) {
+        Map<String, Integer> weights = new LinkedHashMap<>();
+        for (String entry : mix.split(",")) {
+            String[] parts = entry.trim().split("=");
+            weights.put(Endpoint.forShortName(parts[0]), Integer.parseInt(parts[1]));
+        }
+        return weights;
+    }
+
+    private JsonNode readJsonArray(String file) throws IOException {
+        if (file == null || file.isBlank()) {
+            return objectMapper.createArrayNode();
+        }
+        return objectMapper.readTree(Files.readString(Path.of(file)));
+    }
+
+    private static String readExample() throws IOException {
+        try (InputStream in = ServiceLoadTest.class.getClassLoader().getResourceAsStream(EXAMPLE)) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+
+    private static final class Endpoint {
+        static final String ANALYZE = "analyze-notice";
+        static final String SUGGEST = "suggest-patches";
+        static final String APPLY = "apply-patches";
+        static final String VISUALIZE = "visualize-notice";
+        static final String VALIDATE = "validate-notice";
+        static final List<String> NAMES = List.of(ANALYZE, SUGGEST, APPLY, VISUALIZE, VALIDATE);
+
+        static String forShortName(String name) {
+            return NAMES.stream()
+                    .filter(endpoint -> endpoint.startsWith(name))
+                    .findFirst()
+                    .orElseThrow(() -> new IllegalArgumentException("Unknown endpoint in loadtest.mix: " + name));
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package it.polimi.gpplib.eforms_gpp_service.loadtest;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Stands in for the TED render and validate endpoints during load tests.
+ *
+ * Every call waits for the configured latency and then fails with a 503 at
+ * the configured rate, otherwise it answers with a small fixed document. It
+ * runs on its own server and platform threads so it does not compete with the
+ * service for request threads. Virtual threads would share the service's
+ * carriers, and the JDK server reads request bodies under a monitor, which
+ * pins them: with few CPUs the stub then starves the service it is measuring.
+ */
+class TedStub implements AutoCloseable {
+
+    private static final byte[] HTML = "<html><body>rendered notice</body></html>".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] REPORT = "<svrl:schematron-output xmlns:svrl=\"http://purl.oclc.org/dsdl/svrl\"/>"
+            .getBytes(StandardCharsets.UTF_8);
+    private static final byte[] ERROR = "{\"message\":\"Service temporarily unavailable\"}"
+            .getBytes(StandardCharsets.UTF_8);
+
+    private final HttpServer server;
+    private final Duration latency;
+    private final double errorRate;
+    private final AtomicLong calls = new AtomicLong();
+
+    TedStub(Duration latency, double errorRate) throws IOException {
+        this.latency = latency;
+        this.errorRate = errorRate;
+        this.server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 1024);
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.createContext("/v3/notices/render", exchange -> respond(exchange, "text/html", HTML));
+        server.createContext("/v3/notices/validate", exchange -> respond(exchange, "application/xml", REPORT));
+        server.start();
+    }
+
+    String baseUrl() {
+        return "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    Duration latency() {
+        return latency;
+    }
+
+    double errorRate() {
+        return errorRate;
+    }
+
+    long calls() {
+        return calls.get();
+    }
+
+    private void respond(HttpExchange exchange, String contentType, byte[] body) throws IOException {
+        calls.incrementAndGet();
+        try (exchange) {
+            exchange.getRequestBody().transferTo(OutputStream.nullOutputStream());
+            Thread.sleep(latency);
+            boolean fail = ThreadLocalRandom.current().nextDouble() < errorRate;
+            byte[] response = fail ? ERROR : body;
+            exchange.getResponseHeaders().set("Content-Type", fail ? "application/json" : contentType);
+            exchange.sendResponseHeaders(fail ? 503 : 200, response.length);
+            exchange.getResponseBody().write(response);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+    }
+}
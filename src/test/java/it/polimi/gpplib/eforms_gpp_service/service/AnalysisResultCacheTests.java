@@ -0,0 +1,55 @@
+package it.polimi.gpplib.eforms_gpp_service.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import it.polimi.gpplib.eforms_gpp_service.config.AppConfig;
+import it.polimi.gpplib.model.GppAnalysisResult;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+class AnalysisResultCacheTests {
+
+    private final LibraryVersion libraryVersion = new LibraryVersion();
+    private final AnalysisResultCache cache = new AnalysisResultCache(libraryVersion, new AppConfig(),
+            new SimpleMeterRegistry());
+
+    @Test
+    void etagCombinesNoticeHandleAndLibraryFingerprint() {
+        String etag = cache.etag("abc");
+
+        assertEquals("\"abc-" + libraryVersion.getFingerprint() + "\"", etag);
+        assertNotEquals(etag, cache.etag("abd"));
+    }
+
+    @Test
+    void resultsAreMemoizedPerEtag() {
+        AtomicInteger analyses = new AtomicInteger();
+        GppAnalysisResult first = cache.get(cache.etag("abc"), () -> {
+            analyses.incrementAndGet();
+            return mock(GppAnalysisResult.class);
+        });
+
+        GppAnalysisResult second = cache.get(cache.etag("abc"), () -> {
+            analyses.incrementAndGet();
+            return mock(GppAnalysisResult.class);
+        });
+
+        assertSame(first, second);
+        assertEquals(1, analyses.get());
+    }
+
+    @Test
+    void ifNoneMatchUsesWeakComparison() {
+        assertTrue(AnalysisResultCache.matches("\"abc-1\"", "\"abc-1\""));
+        assertTrue(AnalysisResultCache.matches("W/\"abc-1\"", "\"abc-1\""));
+        assertTrue(AnalysisResultCache.matches("\"other\", W/\"abc-1\"", "\"abc-1\""));
+        assertTrue(AnalysisResultCache.matches("*", "\"abc-1\""));
+
+        assertFalse(AnalysisResultCache.matches(null, "\"abc-1\""));
+        assertFalse(AnalysisResultCache.matches("\"abc-2\"", "\"abc-1\""));
+        assertFalse(AnalysisResultCache.matches("abc-1", "\"abc-1\""));
+    }
+}
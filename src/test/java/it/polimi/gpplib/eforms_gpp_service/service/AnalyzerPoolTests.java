@@ -0,0 +1,88 @@
+package it.polimi.gpplib.eforms_gpp_service.service;
+
+import it.polimi.gpplib.GppNoticeAnalyzer;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+class AnalyzerPoolTests {
+
+    private final AtomicInteger created = new AtomicInteger();
+    private final AnalyzerPool pool = new AnalyzerPool(() -> {
+        created.incrementAndGet();
+        return mock(GppNoticeAnalyzer.class);
+    }, 2);
+
+    @Test
+    void analyzersAreCreatedLazilyUpToThePoolSize() {
+        assertEquals(0, created.get());
+
+        GppNoticeAnalyzer first = pool.execute(analyzer -> analyzer);
+        GppNoticeAnalyzer second = pool.execute(analyzer -> analyzer);
+
+        assertSame(first, second, "an idle analyzer is reused");
+        assertEquals(1, created.get());
+
+        pool.prestart();
+        assertEquals(2, created.get());
+    }
+
+    @Test
+    void analyzersAreNeverSharedBetweenThreads() throws Exception {
+        Set<GppNoticeAnalyzer> inUse = ConcurrentHashMap.newKeySet();
+        AtomicInteger concurrent = new AtomicInteger();
+        AtomicInteger maxConcurrent = new AtomicInteger();
+        AtomicBoolean shared = new AtomicBoolean();
+        ExecutorService threads = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < 32; i++) {
+                futures.add(threads.submit(() -> pool.execute(analyzer -> {
+                    if (!inUse.add(analyzer)) {
+                        shared.set(true);
+                    }
+                    maxConcurrent.accumulateAndGet(concurrent.incrementAndGet(), Math::max);
+                    try {
+                        Thread.sleep(5);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    concurrent.decrementAndGet();
+                    inUse.remove(analyzer);
+                    return null;
+                })));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            threads.shutdownNow();
+        }
+
+        assertFalse(shared.get());
+        assertEquals(2, maxConcurrent.get());
+        assertEquals(2, created.get());
+    }
+
+    @Test
+    void analyzerIsReturnedWhenWorkFails() {
+        assertThrows(IllegalArgumentException.class, () -> pool.execute(analyzer -> {
+            throw new IllegalArgumentException("bad notice");
+        }));
+        pool.execute(analyzer -> analyzer);
+        pool.execute(analyzer -> analyzer);
+
+        assertEquals(1, created.get());
+    }
+}
@@ -0,0 +1,167 @@
+package it.polimi.gpplib.eforms_gpp_service.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import it.polimi.gpplib.GppNoticeAnalyzer;
+import it.polimi.gpplib.eforms_gpp_service.config.AppConfig;
+import it.polimi.gpplib.model.GppAnalysisResult;
+import it.polimi.gpplib.model.Notice;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+class BatchAnalysisServiceTests {
+
+    private final GppNoticeAnalyzer analyzer = mock(GppNoticeAnalyzer.class);
+    private final Map<Notice, String> xmlOf = new ConcurrentHashMap<>();
+    private BatchAnalysisService batchAnalysisService;
+
+    @AfterEach
+    void tearDown() {
+        batchAnalysisService.shutdown();
+    }
+
+    private void setUp(int parallelism, int queueCapacity) {
+        when(analyzer.loadNotice(anyString())).thenAnswer(invocation -> {
+            Notice notice = mock(Notice.class);
+            xmlOf.put(notice, invocation.getArgument(0));
+            return notice;
+        });
+        AppConfig appConfig = new AppConfig();
+        appConfig.getBatch().setParallelism(parallelism);
+        appConfig.getBatch().setQueueCapacity(queueCapacity);
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        batchAnalysisService = new BatchAnalysisService(new AnalyzerPool(() -> analyzer, 4),
+                new AnalysisResultCache(new LibraryVersion(), appConfig, meterRegistry),
+                new GppMetrics(meterRegistry), appConfig);
+    }
+
+    private static List<String> notices(int count) {
+        return IntStream.range(0, count).mapToObj(i -> "<ContractNotice><ID>" + i + "</ID></ContractNotice>").toList();
+    }
+
+    @Test
+    void resultsAreReturnedInInputOrder() {
+        setUp(4, 16);
+        // later notices finish first
+        when(analyzer.analyzeNotice(any())).thenAnswer(invocation -> {
+            String xml = xmlOf.get(invocation.<Notice>getArgument(0));
+            Thread.sleep(40 - 2L * Integer.parseInt(xml.replaceAll("\\D", "")));
+            return mock(GppAnalysisResult.class);
+        });
+        List<String> notices = notices(16);
+
+        List<BatchAnalysisService.ItemResult> results = batchAnalysisService.analyzeAll(notices);
+
+        assertEquals(16, results.size());
+        for (int i = 0; i < notices.size(); i++) {
+            assertEquals(i, results.get(i).getIndex());
+            assertEquals(NoticeDigest.sha256Hex(notices.get(i)), results.get(i).getNoticeHandle());
+            assertNotNull(results.get(i).getResult());
+        }
+    }
+
+    @Test
+    void failedItemsDoNotAffectTheRestOfTheBatch() {
+        setUp(2, 16);
+        when(analyzer.analyzeNotice(any())).thenAnswer(invocation -> {
+            if (xmlOf.get(invocation.<Notice>getArgument(0)).contains("broken")) {
+                throw new IllegalArgumentException("Not an eForms notice");
+            }
+            return mock(GppAnalysisResult.class);
+        });
+
+        List<BatchAnalysisService.ItemResult> results = batchAnalysisService.analyzeAll(
+                Arrays.asList("<ContractNotice/>", " ", null, "<broken/>", "<PriorInformationNotice/>"));
+
+        assertNotNull(results.get(0).getResult());
+        assertEquals("noticeXml must be provided", results.get(1).getError());
+        assertNull(results.get(1).getNoticeHandle());
+        assertEquals("noticeXml must be provided", results.get(2).getError());
+        assertEquals("Not an eForms notice", results.get(3).getError());
+        assertEquals(NoticeDigest.sha256Hex("<broken/>"), results.get(3).getNoticeHandle());
+        assertNull(results.get(3).getResult());
+        assertNotNull(results.get(4).getResult());
+    }
+
+    @Test
+    void inFlightNoticesAreBoundedByTheWindow() {
+        setUp(2, 64);
+        when(analyzer.analyzeNotice(any())).thenAnswer(invocation -> {
+            Thread.sleep(5);
+            return mock(GppAnalysisResult.class);
+        });
+        AtomicInteger pulled = new AtomicInteger();
+        AtomicInteger delivered = new AtomicInteger();
+        AtomicInteger maxOutstanding = new AtomicInteger();
+        Iterator<String> source = notices(40).iterator();
+        Iterator<String> counting = new Iterator<>() {
+            @Override
+            public boolean hasNext() {
+                return source.hasNext();
+            }
+
+            @Override
+            public String next() {
+                maxOutstanding.accumulateAndGet(pulled.incrementAndGet() - delivered.get(), Math::max);
+                return source.next();
+            }
+        };
+
+        batchAnalysisService.analyzeEach(counting, result -> delivered.incrementAndGet());
+
+        assertEquals(40, delivered.get());
+        // 2 * parallelism in flight, plus the one being pulled
+        assertTrue(maxOutstanding.get() <= 4, "outstanding notices: " + maxOutstanding.get());
+    }
+
+    @Test
+    void callerRunsAnalysisWhenTheExecutorIsSaturated() throws Exception {
+        setUp(1, 1);
+        CountDownLatch callerRan = new CountDownLatch(1);
+        AtomicBoolean workerTimedOut = new AtomicBoolean();
+        List<String> callerThreads = new ArrayList<>();
+        // the worker blocks until a caller has run an item itself, which only happens once
+        // the single worker and the single queue slot are taken
+        when(analyzer.analyzeNotice(any())).thenAnswer(invocation -> {
+            if (Thread.currentThread().getName().startsWith("gpp-batch-")) {
+                if (!callerRan.await(5, TimeUnit.SECONDS)) {
+                    workerTimedOut.set(true);
+                }
+            } else {
+                synchronized (callerThreads) {
+                    callerThreads.add(Thread.currentThread().getName());
+                }
+                callerRan.countDown();
+            }
+            return mock(GppAnalysisResult.class);
+        });
+        List<String> notices = notices(4);
+
+        CompletableFuture<List<BatchAnalysisService.ItemResult>> first = CompletableFuture
+                .supplyAsync(() -> batchAnalysisService.analyzeAll(notices.subList(0, 2)));
+        CompletableFuture<List<BatchAnalysisService.ItemResult>> second = CompletableFuture
+                .supplyAsync(() -> batchAnalysisService.analyzeAll(notices.subList(2, 4)));
+
+        assertTrue(first.get(10, TimeUnit.SECONDS).stream().allMatch(item -> item.getResult() != null));
+        assertTrue(second.get(10, TimeUnit.SECONDS).stream().allMatch(item -> item.getResult() != null));
+        assertFalse(workerTimedOut.get());
+        assertFalse(callerThreads.isEmpty());
+    }
+}
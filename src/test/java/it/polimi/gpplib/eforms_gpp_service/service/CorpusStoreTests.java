@@ -0,0 +1,195 @@
+package it.polimi.gpplib.eforms_gpp_service.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import it.polimi.gpplib.eforms_gpp_service.config.AppConfig;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CorpusStoreTests {
+
+    @TempDir
+    Path directory;
+
+    private CorpusStore open(long maxSegmentBytes) throws IOException {
+        return open(maxSegmentBytes, true);
+    }
+
+    private CorpusStore open(long maxSegmentBytes, boolean fsync) throws IOException {
+        AppConfig appConfig = new AppConfig();
+        appConfig.getCorpus().setDirectory(directory.toString());
+        appConfig.getCorpus().setMaxSegmentBytes(maxSegmentBytes);
+        appConfig.getCorpus().setFsync(fsync);
+        appConfig.getCorpus().setCompactionThreshold(0.4);
+        return new CorpusStore(appConfig, new SimpleMeterRegistry());
+    }
+
+    private static CorpusStore.NoticeInput notice(String noticeId, String noticeXml) {
+        return new CorpusStore.NoticeInput(noticeId, noticeXml);
+    }
+
+    @Test
+    void ingestedNoticesAreReadBackAndDeduplicated() throws IOException {
+        CorpusStore store = open(1024 * 1024);
+
+        List<CorpusStore.Ingested> first = store.ingest(List.of(notice("a", "<a>1</a>"), notice(null, "<b>ü</b>")));
+        List<CorpusStore.Ingested> second = store.ingest(List.of(notice("a", "<a>1</a>")));
+
+        assertTrue(first.get(0).stored());
+        assertFalse(second.get(0).stored());
+        assertEquals(NoticeDigest.sha256Hex("<b>ü</b>"), first.get(1).noticeId());
+        assertEquals("<a>1</a>", store.notice("a").orElseThrow());
+        assertEquals("<b>ü</b>", store.noticeByHash(first.get(1).noticeHandle()).orElseThrow());
+        assertTrue(store.notice("missing").isEmpty());
+        store.close();
+    }
+
+    @Test
+    void reopeningRebuildsTheIndexWithLatestVersions() throws IOException {
+        CorpusStore store = open(1024 * 1024);
+        store.ingest(List.of(notice("a", "<a>1</a>"), notice("b", "<b/>")));
+        store.ingest(List.of(notice("a", "<a>2</a>")));
+        store.storeResult("a", "\"etag\"", "{\"name\":\"x\"}".getBytes(StandardCharsets.UTF_8));
+        store.close();
+
+        CorpusStore reopened = open(1024 * 1024);
+
+        assertEquals(2, reopened.noticeHashes().size());
+        assertEquals("<a>2</a>", reopened.notice("a").orElseThrow());
+        assertTrue(reopened.noticeByHash(NoticeDigest.sha256Hex("<a>1</a>")).isEmpty());
+        assertEquals("\"etag\"", reopened.resultTag("a").orElseThrow());
+        CorpusStore.StoredResult result = reopened.openResult("a").orElseThrow();
+        assertEquals("\"etag\"", result.etag());
+        try (InputStream content = result.content()) {
+            assertEquals("{\"name\":\"x\"}", new String(content.readAllBytes(), StandardCharsets.UTF_8));
+        }
+        reopened.close();
+    }
+
+    @Test
+    void tornRecordAtTheEndIsTruncated() throws IOException {
+        CorpusStore store = open(1024 * 1024);
+        store.ingest(List.of(notice("a", "<a/>"), notice("b", "<b/>")));
+        store.close();
+        Path segment = segments().get(0);
+        long size = Files.size(segment);
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+            channel.truncate(size - 3);
+        }
+
+        CorpusStore reopened = open(1024 * 1024);
+
+        assertEquals("<a/>", reopened.notice("a").orElseThrow());
+        assertTrue(reopened.notice("b").isEmpty());
+        reopened.ingest(List.of(notice("c", "<c/>")));
+        assertEquals("<c/>", reopened.notice("c").orElseThrow());
+        reopened.close();
+    }
+
+    @Test
+    void fullSegmentsRollOver() throws IOException {
+        CorpusStore store = open(100);
+        for (int i = 0; i < 5; i++) {
+            store.ingest(List.of(notice("n" + i, "<notice id=\"" + i + "\"/>")));
+        }
+        store.close();
+
+        assertEquals(5, segments().size());
+        CorpusStore reopened = open(100);
+        for (int i = 0; i < 5; i++) {
+            assertEquals("<notice id=\"" + i + "\"/>", reopened.notice("n" + i).orElseThrow());
+        }
+        reopened.close();
+    }
+
+    @Test
+    void ingestForcesEverySegmentItWroteTo() throws IOException {
+        List<CorpusStore.NoticeInput> batch = List.of(notice("n0", "<n0/>"), notice("n1", "<n1/>"),
+                notice("n2", "<n2/>"));
+        CorpusStore unsynced = open(100, false);
+        unsynced.ingest(batch);
+        assertEquals(3, unsynced.unforcedSegmentCount());
+        unsynced.close();
+
+        CorpusStore store = open(100);
+        store.ingest(List.of(notice("n3", "<n3/>"), notice("n4", "<n4/>"), notice("n5", "<n5/>")));
+
+        assertEquals(6, segments().size());
+        assertEquals(0, store.unforcedSegmentCount());
+        store.close();
+    }
+
+    @Test
+    void compactionReclaimsReplacedRecords() throws IOException {
+        // two records per segment
+        CorpusStore store = open(250);
+        store.ingest(List.of(notice("a", "<a>1</a>"), notice("b", "<b>1</b>")));
+        store.ingest(List.of(notice("a", "<a>2</a>"), notice("c", "<c>1</c>")));
+        store.ingest(List.of(notice("d", "<d>1</d>")));
+        Path first = directory.resolve("notices").resolve("00000000.seg");
+        assertTrue((long) store.stats().get("supersededBytes") > 0);
+
+        int segmentsBefore = (int) store.stats().get("segments");
+        long bytesBefore = (long) store.stats().get("noticeBytes");
+
+        store.compact();
+        // b was copied out, the retired segment stays readable until the next compaction
+        assertTrue(Files.exists(first));
+        assertEquals("<b>1</b>", store.notice("b").orElseThrow());
+        // but is no longer counted
+        assertEquals(segmentsBefore - 1, store.stats().get("segments"));
+        assertTrue((long) store.stats().get("noticeBytes") < bytesBefore);
+        assertEquals(0L, store.stats().get("supersededBytes"));
+        store.compact();
+        assertFalse(Files.exists(first));
+
+        for (String id : List.of("a", "b", "c", "d")) {
+            assertEquals("<" + id + ">" + (id.equals("a") ? 2 : 1) + "</" + id + ">", store.notice(id).orElseThrow());
+        }
+        assertTrue(store.noticeByHash(NoticeDigest.sha256Hex("<b>1</b>")).isPresent());
+        store.close();
+
+        CorpusStore reopened = open(250);
+        assertEquals(4, reopened.noticeHashes().size());
+        assertEquals("<a>2</a>", reopened.notice("a").orElseThrow());
+        assertEquals("<b>1</b>", reopened.notice("b").orElseThrow());
+        reopened.ingest(List.of(notice("e", "<e>1</e>")));
+        assertEquals("<e>1</e>", reopened.notice("e").orElseThrow());
+        reopened.close();
+    }
+
+    @Test
+    void repeatedResultsAreCompacted() throws IOException {
+        CorpusStore store = open(250);
+        for (int i = 0; i < 6; i++) {
+            store.storeResult("a", "\"etag\"", ("{\"run\":" + i + "}").getBytes(StandardCharsets.UTF_8));
+        }
+        long before = (long) store.stats().get("resultBytes");
+
+        store.compact();
+        store.compact();
+
+        assertTrue((long) store.stats().get("resultBytes") < before);
+        try (InputStream result = store.openResult("a").orElseThrow().content()) {
+            assertEquals("{\"run\":5}", new String(result.readAllBytes(), StandardCharsets.UTF_8));
+        }
+        store.close();
+    }
+
+    private List<Path> segments() throws IOException {
+        try (Stream<Path> files = Files.list(directory.resolve("notices"))) {
+            return files.sorted().toList();
+        }
+    }
+}
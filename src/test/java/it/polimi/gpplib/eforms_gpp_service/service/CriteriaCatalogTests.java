@@ -0,0 +1,110 @@
+package it.polimi.gpplib.eforms_gpp_service.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import it.polimi.gpplib.eforms_gpp_service.config.AppConfig;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CriteriaCatalogTests {
+
+    @TempDir
+    Path directory;
+
+    private Path file;
+    private SimpleMeterRegistry meterRegistry;
+    private CriteriaCatalog catalog;
+    private int revision;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        file = directory.resolve("criteria.json");
+        write("""
+                [{"id": "furniture", "cpvCodes": ["39100000"]}]
+                """);
+        AppConfig appConfig = new AppConfig();
+        appConfig.getCriteria().setFile(file.toString());
+        meterRegistry = new SimpleMeterRegistry();
+        catalog = new CriteriaCatalog(new ObjectMapper(), appConfig, meterRegistry);
+    }
+
+    // each revision gets a later modification time, as file systems with coarse timestamps may not
+    private void write(String content) throws IOException {
+        Files.writeString(file, content);
+        Files.setLastModifiedTime(file, FileTime.from(Instant.parse("2026-01-01T00:00:00Z").plusSeconds(revision++)));
+    }
+
+    private static List<String> ids(List<JsonNode> criteria) {
+        return criteria.stream().map(criterion -> criterion.get("id").asText()).toList();
+    }
+
+    private double reloads(String outcome) {
+        return meterRegistry.get("gpp.criteria.reloads").tag("outcome", outcome).counter().count();
+    }
+
+    @Test
+    void changedFileIsSwappedIn() throws IOException {
+        CriteriaIndex before = catalog.current();
+        assertEquals(List.of("furniture"), ids(before.forCpv("39111000")));
+
+        write("""
+                [{"id": "furniture", "cpvCodes": ["39100000"]}, {"id": "seats", "cpvCodes": ["39110000"]}]
+                """);
+        catalog.reloadIfChanged();
+
+        CriteriaIndex after = catalog.current();
+        assertEquals(List.of("furniture", "seats"), ids(after.forCpv("39111000")));
+        assertNotEquals(before.version(), after.version());
+        // a request still holding the previous index keeps seeing all of it
+        assertEquals(List.of("furniture"), ids(before.forCpv("39111000")));
+        assertEquals(2, reloads("success"));
+    }
+
+    @Test
+    void unchangedFileIsNotReparsed() {
+        CriteriaIndex before = catalog.current();
+
+        catalog.reloadIfChanged();
+
+        assertSame(before, catalog.current());
+        assertEquals(1, reloads("success"));
+    }
+
+    @Test
+    void brokenFileKeepsThePreviousIndexAndIsReportedOnce() throws IOException {
+        CriteriaIndex before = catalog.current();
+
+        write("[{\"id\": ");
+        catalog.reloadIfChanged();
+        catalog.reloadIfChanged();
+
+        assertSame(before, catalog.current());
+        assertEquals(1, reloads("error"));
+
+        write("""
+                [{"id": "seats", "cpvCodes": ["39110000"]}]
+                """);
+        catalog.reloadIfChanged();
+        assertEquals(List.of("seats"), ids(catalog.current().forCpv("39111000")));
+    }
+
+    @Test
+    void unreadableFileFailsStartup() throws IOException {
+        write("{}");
+        AppConfig appConfig = new AppConfig();
+        appConfig.getCriteria().setFile(file.toString());
+
+        assertThrows(IOException.class, () -> new CriteriaCatalog(new ObjectMapper(), appConfig, new SimpleMeterRegistry()));
+    }
+}
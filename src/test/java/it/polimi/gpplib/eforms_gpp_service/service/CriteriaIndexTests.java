@@ -0,0 +1,78 @@
+package it.polimi.gpplib.eforms_gpp_service.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CriteriaIndexTests {
+
+    private CriteriaIndex index;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        JsonNode criteria = new ObjectMapper().readTree("""
+                [
+                  {"id": "furniture", "cpvCodes": ["39100000-3"]},
+                  {"id": "seats", "cpvCodes": ["39110000", "39111000"]},
+                  {"id": "office", "cpvCodes": ["30000000", "39130000"]},
+                  {"id": "general"}
+                ]
+                """);
+        List<JsonNode> list = new ArrayList<>();
+        criteria.forEach(list::add);
+        index = CriteriaIndex.build(list, "id", "cpvCodes", "v1");
+    }
+
+    @Test
+    void matchesParentCodesMostGeneralFirst() {
+        assertEquals(List.of("furniture", "seats"), ids(index.forCpv("39111100-7")));
+        assertEquals(List.of("furniture", "office"), ids(index.forCpv("39130000")));
+        assertEquals(List.of("furniture"), ids(index.forCpv("39120000")));
+        assertEquals(List.of(), ids(index.forCpv("45000000")));
+    }
+
+    @Test
+    void listsEachCriterionOnceAcrossCodes() {
+        assertEquals(List.of("furniture", "seats", "office"),
+                ids(index.forCpvs(List.of("39111000", "39112000", "30200000"))));
+    }
+
+    @Test
+    void ignoresMalformedCodes() {
+        assertEquals(List.of(), ids(index.forCpv("39x00000")));
+        assertEquals(List.of(), ids(index.forCpv(null)));
+    }
+
+    @Test
+    void normalizesQueries() {
+        assertEquals(List.of("39100000", "39111000"),
+                CriteriaIndex.normalize(List.of("39111000-3", " 39100000", "39111000", "39x00000")));
+        assertEquals(List.of(), CriteriaIndex.normalize(List.of("abc")));
+    }
+
+    @Test
+    void findsCriteriaById() {
+        assertEquals("general", index.byId("general").get("id").asText());
+        assertNull(index.byId("missing"));
+        assertEquals(4, index.size());
+        assertEquals("v1", index.version());
+    }
+
+    @Test
+    void significantPrefixDropsUnusedLevels() {
+        assertEquals("391", CriteriaIndex.significantPrefix("39100000-3"));
+        assertEquals("39", CriteriaIndex.significantPrefix("39000000"));
+        assertEquals("391111", CriteriaIndex.significantPrefix("39111100"));
+        assertEquals("39111111", CriteriaIndex.significantPrefix("39111111"));
+    }
+
+    private static List<String> ids(List<JsonNode> criteria) {
+        return criteria.stream().map(criterion -> criterion.get("id").asText()).toList();
+    }
+}
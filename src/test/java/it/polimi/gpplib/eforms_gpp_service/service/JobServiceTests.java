@@ -0,0 +1,119 @@
+package it.polimi.gpplib.eforms_gpp_service.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import it.polimi.gpplib.eforms_gpp_service.config.AppConfig;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JobServiceTests {
+
+    private InMemoryJobStore jobStore;
+    private JobService jobService;
+
+    @BeforeEach
+    void setUp() {
+        AppConfig appConfig = new AppConfig();
+        appConfig.getJobs().setWorkers(1);
+        appConfig.getJobs().setQueueCapacity(1);
+        appConfig.getJobs().setTtl(Duration.ofMinutes(5));
+        jobStore = new InMemoryJobStore();
+        jobService = new JobService(jobStore, appConfig, new SimpleMeterRegistry());
+    }
+
+    @AfterEach
+    void tearDown() {
+        jobService.shutdown();
+    }
+
+    @Test
+    void finishedJobHoldsResult() throws Exception {
+        Job queued = jobService.submit("analyze", () -> "result");
+        assertEquals(Job.Status.QUEUED, queued.status());
+
+        Job finished = jobService.whenFinished(queued.id()).get(5, TimeUnit.SECONDS);
+
+        assertEquals(Job.Status.SUCCEEDED, finished.status());
+        assertEquals("result", finished.result());
+        assertNotNull(finished.startedAt());
+        assertEquals(finished, jobService.get(queued.id()));
+    }
+
+    @Test
+    void failingWorkFailsJob() throws Exception {
+        Job queued = jobService.submit("validate", () -> {
+            throw new IllegalStateException("boom");
+        });
+
+        Job finished = jobService.whenFinished(queued.id()).get(5, TimeUnit.SECONDS);
+
+        assertEquals(Job.Status.FAILED, finished.status());
+        assertEquals("boom", finished.error());
+        assertNull(finished.result());
+    }
+
+    @Test
+    void workThrowingAnErrorFailsJob() throws Exception {
+        Job queued = jobService.submit("analyze", () -> {
+            throw new StackOverflowError();
+        });
+
+        Job finished = jobService.whenFinished(queued.id()).get(5, TimeUnit.SECONDS);
+
+        assertEquals(Job.Status.FAILED, finished.status());
+        assertEquals("StackOverflowError", finished.error());
+        assertEquals(finished, jobService.get(queued.id()));
+        assertEquals("next", jobService.whenFinished(jobService.submit("analyze", () -> "next").id())
+                .get(5, TimeUnit.SECONDS).result());
+    }
+
+    @Test
+    void fullQueueRejectsSubmissions() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Job running = jobService.submit("analyze", () -> {
+            started.countDown();
+            await(release);
+            return "first";
+        });
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        Job waiting = jobService.submit("analyze", () -> "second");
+
+        ResponseStatusException e = assertThrows(ResponseStatusException.class,
+                () -> jobService.submit("analyze", () -> "third"));
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, e.getStatusCode());
+
+        release.countDown();
+        assertEquals("first", jobService.whenFinished(running.id()).get(5, TimeUnit.SECONDS).result());
+        assertEquals("second", jobService.whenFinished(waiting.id()).get(5, TimeUnit.SECONDS).result());
+    }
+
+    @Test
+    void expiredJobsAreRemoved() throws Exception {
+        Job queued = jobService.submit("analyze", () -> "result");
+        jobService.whenFinished(queued.id()).get(5, TimeUnit.SECONDS);
+
+        assertEquals(0, jobStore.removeFinishedBefore(Instant.now().minus(Duration.ofMinutes(1))));
+        assertEquals(1, jobStore.removeFinishedBefore(Instant.now().plusSeconds(1)));
+
+        ResponseStatusException e = assertThrows(ResponseStatusException.class, () -> jobService.get(queued.id()));
+        assertEquals(HttpStatus.NOT_FOUND, e.getStatusCode());
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
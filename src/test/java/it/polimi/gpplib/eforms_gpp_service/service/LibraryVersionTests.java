@@ -0,0 +1,73 @@
+package it.polimi.gpplib.eforms_gpp_service.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LibraryVersionTests {
+
+    private static final FileTime BUILD_TIME = FileTime.fromMillis(1_700_000_000_000L);
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void fingerprintIsStableForTheSameLibrary() {
+        LibraryVersion first = new LibraryVersion();
+        LibraryVersion second = new LibraryVersion();
+
+        assertNotNull(first.getVersion());
+        assertTrue(first.getFingerprint().matches("[0-9a-f]{16}"), first.getFingerprint());
+        assertEquals(first.getFingerprint(), second.getFingerprint());
+    }
+
+    @Test
+    void rebuiltLibraryIsToldApartInEveryLayout() throws IOException {
+        // two builds of the same SNAPSHOT, same size and time, different code
+        Path oldLibrary = jar(directory.resolve("old-lib.jar"), "Analyzer.class", "return 1;");
+        Path newLibrary = jar(directory.resolve("new-lib.jar"), "Analyzer.class", "return 2;");
+        Path oldApp = jar(directory.resolve("old-app.jar"), "BOOT-INF/lib/lib.jar", Files.readAllBytes(oldLibrary));
+        Path newApp = jar(directory.resolve("new-app.jar"), "BOOT-INF/lib/lib.jar", Files.readAllBytes(newLibrary));
+
+        assertDiffer(oldLibrary.toUri().toURL(), newLibrary.toUri().toURL());
+        // packaged application: the library is an entry of the application jar
+        assertDiffer(new URL("jar:" + oldApp.toUri() + "!/BOOT-INF/lib/lib.jar"),
+                new URL("jar:" + newApp.toUri() + "!/BOOT-INF/lib/lib.jar"));
+        assertDiffer(new URL("jar:" + oldLibrary.toUri() + "!/"), new URL("jar:" + newLibrary.toUri() + "!/"));
+
+        URL packaged = new URL("jar:" + oldApp.toUri() + "!/BOOT-INF/lib/lib.jar");
+        assertEquals(LibraryVersion.describe(packaged), LibraryVersion.describe(packaged));
+        assertEquals(LibraryVersion.describe(oldLibrary.toUri().toURL()), LibraryVersion.describe(packaged));
+    }
+
+    private static void assertDiffer(URL oldLocation, URL newLocation) {
+        assertNotEquals(LibraryVersion.describe(oldLocation), LibraryVersion.describe(newLocation));
+    }
+
+    private static Path jar(Path path, String entry, String content) throws IOException {
+        return jar(path, entry, content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static Path jar(Path path, String entry, byte[] content) throws IOException {
+        try (OutputStream file = Files.newOutputStream(path); JarOutputStream out = new JarOutputStream(file)) {
+            JarEntry jarEntry = new JarEntry(entry);
+            jarEntry.setLastModifiedTime(BUILD_TIME);
+            out.putNextEntry(jarEntry);
+            out.write(content);
+            out.closeEntry();
+        }
+        Files.setLastModifiedTime(path, BUILD_TIME);
+        return path;
+    }
+}
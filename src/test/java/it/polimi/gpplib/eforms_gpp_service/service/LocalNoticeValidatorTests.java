@@ -0,0 +1,117 @@
+package it.polimi.gpplib.eforms_gpp_service.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import it.polimi.gpplib.eforms_gpp_service.config.AppConfig;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LocalNoticeValidatorTests {
+
+    private static final String SCHEMA = """
+            <xs:schema xmlns:xs="http://www.w3.org/2001/XMLSchema">
+              <xs:element name="ContractNotice">
+                <xs:complexType>
+                  <xs:sequence>
+                    <xs:element name="ID" type="xs:int" maxOccurs="unbounded"/>
+                  </xs:sequence>
+                </xs:complexType>
+              </xs:element>
+            </xs:schema>
+            """;
+
+    @TempDir
+    Path schemaDirectory;
+
+    private LocalNoticeValidator validator;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        Path maindoc = Files.createDirectories(schemaDirectory.resolve("1.10/schemas/maindoc"));
+        Files.writeString(maindoc.resolve("UBL-ContractNotice-2.3.xsd"), SCHEMA);
+        validator = validator(50);
+    }
+
+    private LocalNoticeValidator validator(int maxErrors) {
+        AppConfig appConfig = new AppConfig();
+        appConfig.getValidation().setSchemaDirectory(schemaDirectory.toString());
+        appConfig.getValidation().setMaxErrors(maxErrors);
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        return new LocalNoticeValidator(new GppMetrics(meterRegistry), appConfig, meterRegistry);
+    }
+
+    @Test
+    void validNoticePasses() {
+        LocalNoticeValidator.Result result = validator.validate("<ContractNotice><ID>1</ID></ContractNotice>",
+                "ContractNotice", "eforms-sdk-1.10");
+
+        assertTrue(result.checked());
+        assertTrue(result.valid());
+    }
+
+    @Test
+    void schemaErrorsAreReportedWithPosition() {
+        LocalNoticeValidator.Result result = validator.validate("<ContractNotice><ID>x</ID></ContractNotice>",
+                "ContractNotice", "1.10.0");
+
+        assertTrue(result.checked());
+        assertFalse(result.valid());
+        assertTrue(result.errors().get(0).startsWith("line 1, column "), result.errors().get(0));
+    }
+
+    @Test
+    void errorsAreCappedAtMaxErrors() {
+        LocalNoticeValidator.Result result = validator(2).validate(
+                "<ContractNotice><ID>a</ID><ID>b</ID><ID>c</ID><ID>d</ID></ContractNotice>", "ContractNotice",
+                "eforms-sdk-1.10");
+
+        assertEquals(3, result.errors().size());
+        assertEquals("Stopped after 2 errors", result.errors().get(2));
+    }
+
+    @Test
+    void missingSchemaLeavesNoticeUnchecked() {
+        assertFalse(validator.validate("<ContractNotice/>", "ContractNotice", "eforms-sdk-1.9").checked());
+        assertFalse(validator.validate("<PriorInformationNotice/>", "PriorInformationNotice", "eforms-sdk-1.10").checked());
+        assertFalse(validator.validate("<ContractNotice/>", "ContractNotice", "../1.10").checked());
+    }
+
+    @Test
+    void noSchemaDirectoryLeavesNoticeUnchecked() {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        LocalNoticeValidator unconfigured = new LocalNoticeValidator(new GppMetrics(meterRegistry), new AppConfig(),
+                meterRegistry);
+
+        assertFalse(unconfigured.validate("<ContractNotice/>", "ContractNotice", "eforms-sdk-1.10").checked());
+    }
+
+    @Test
+    void schemaThatFailedToCompileIsRetried() throws Exception {
+        Path schema = schemaDirectory.resolve("1.10/schemas/maindoc/UBL-ContractNotice-2.3.xsd");
+        Files.writeString(schema, "<xs:schema xmlns:xs=\"http://www.w3.org/2001/XMLSchema\">");
+
+        assertFalse(validator.validate("<ContractNotice><ID>1</ID></ContractNotice>", "ContractNotice",
+                "eforms-sdk-1.10").checked());
+
+        Files.writeString(schema, SCHEMA);
+
+        assertTrue(validator.validate("<ContractNotice><ID>1</ID></ContractNotice>", "ContractNotice",
+                "eforms-sdk-1.10").valid());
+    }
+
+    @Test
+    void missingSchemaIsPickedUpOnceInstalled() throws Exception {
+        assertFalse(validator.validate("<ContractNotice/>", "ContractNotice", "eforms-sdk-1.11").checked());
+
+        Path maindoc = Files.createDirectories(schemaDirectory.resolve("1.11/schemas/maindoc"));
+        Files.writeString(maindoc.resolve("UBL-ContractNotice-2.3.xsd"), SCHEMA);
+
+        assertTrue(validator.validate("<ContractNotice><ID>1</ID></ContractNotice>", "ContractNotice",
+                "eforms-sdk-1.11").valid());
+    }
+}
@@ -0,0 +1,68 @@
+package it.polimi.gpplib.eforms_gpp_service.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import it.polimi.gpplib.GppNoticeAnalyzer;
+import it.polimi.gpplib.eforms_gpp_service.config.AppConfig;
+import it.polimi.gpplib.model.Notice;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.server.ResponseStatusException;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+class NoticeCacheTests {
+
+    private static final String NOTICE_XML = "<ContractNotice/>";
+
+    private GppNoticeAnalyzer analyzer;
+    private NoticeCache noticeCache;
+
+    @BeforeEach
+    void setUp() {
+        analyzer = mock(GppNoticeAnalyzer.class);
+        when(analyzer.loadNotice(anyString())).thenAnswer(invocation -> mock(Notice.class));
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        noticeCache = new NoticeCache(new AnalyzerPool(() -> analyzer, 1), new GppMetrics(meterRegistry),
+                new AppConfig(), meterRegistry);
+    }
+
+    @Test
+    void reusesReleasedCopy() {
+        Notice first;
+        try (NoticeCache.Lease lease = noticeCache.acquire(NOTICE_XML)) {
+            first = lease.getNotice();
+        }
+        try (NoticeCache.Lease lease = noticeCache.acquire(NOTICE_XML)) {
+            assertSame(first, lease.getNotice());
+            assertEquals(NoticeDigest.sha256Hex(NOTICE_XML), lease.getHandle());
+        }
+        verify(analyzer, times(1)).loadNotice(NOTICE_XML);
+    }
+
+    @Test
+    void concurrentLeasesGetDistinctCopies() {
+        try (NoticeCache.Lease first = noticeCache.acquire(NOTICE_XML);
+                NoticeCache.Lease second = noticeCache.acquireByHandle(first.getHandle())) {
+            assertNotSame(first.getNotice(), second.getNotice());
+        }
+    }
+
+    @Test
+    void detachedCopyIsNotReused() {
+        Notice modified;
+        try (NoticeCache.Lease lease = noticeCache.acquire(NOTICE_XML)) {
+            lease.detach();
+            modified = lease.getNotice();
+        }
+        try (NoticeCache.Lease lease = noticeCache.acquire(NOTICE_XML)) {
+            assertNotSame(modified, lease.getNotice());
+        }
+    }
+
+    @Test
+    void unknownHandleIsRejected() {
+        assertThrows(ResponseStatusException.class, () -> noticeCache.acquireByHandle("unknown"));
+    }
+}
@@ -0,0 +1,102 @@
+package it.polimi.gpplib.eforms_gpp_service.service;
+
+import org.junit.jupiter.api.Test;
+
+import javax.xml.stream.XMLStreamException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class NoticeSummaryReaderTests {
+
+    private static final String MULTI_LOT = """
+            <ContractNotice xmlns="urn:oasis:names:specification:ubl:schema:xsd:ContractNotice-2"
+                xmlns:cac="urn:oasis:names:specification:ubl:schema:xsd:CommonAggregateComponents-2"
+                xmlns:cbc="urn:oasis:names:specification:ubl:schema:xsd:CommonBasicComponents-2">
+              <cbc:CustomizationID>eforms-sdk-1.9</cbc:CustomizationID>
+              <cbc:ID schemeName="notice-id">n-1</cbc:ID>
+              <cac:ProcurementProject>
+                <cac:MainCommodityClassification>
+                  <cbc:ItemClassificationCode listName="cpv">34100000</cbc:ItemClassificationCode>
+                </cac:MainCommodityClassification>
+              </cac:ProcurementProject>
+              <cac:ProcurementProjectLot>
+                <cbc:ID schemeName="Lot">LOT-0001</cbc:ID>
+                <cac:ProcurementProject>
+                  <cbc:ID>internal</cbc:ID>
+                  <cac:ProcurementAdditionalType>
+                    <cbc:ProcurementTypeCode listName="strategic-procurement">env-imp</cbc:ProcurementTypeCode>
+                  </cac:ProcurementAdditionalType>
+                  <cac:MainCommodityClassification>
+                    <cbc:ItemClassificationCode listName="cpv">34110000</cbc:ItemClassificationCode>
+                  </cac:MainCommodityClassification>
+                  <cac:AdditionalCommodityClassification>
+                    <cbc:ItemClassificationCode listName="cpv">34144900</cbc:ItemClassificationCode>
+                  </cac:AdditionalCommodityClassification>
+                  <cac:AdditionalCommodityClassification>
+                    <cbc:ItemClassificationCode listName="other">xyz</cbc:ItemClassificationCode>
+                  </cac:AdditionalCommodityClassification>
+                </cac:ProcurementProject>
+              </cac:ProcurementProjectLot>
+              <cac:ProcurementProjectLot>
+                <cbc:ID schemeName="Lot">LOT-0002</cbc:ID>
+                <cac:ProcurementProject>
+                  <cac:MainCommodityClassification>
+                    <cbc:ItemClassificationCode listName="cpv"> 60100000 </cbc:ItemClassificationCode>
+                  </cac:MainCommodityClassification>
+                </cac:ProcurementProject>
+              </cac:ProcurementProjectLot>
+            </ContractNotice>
+            """;
+
+    @Test
+    void readsExampleNotice() throws IOException, XMLStreamException {
+        NoticeSummary summary = NoticeSummaryReader.read(example());
+
+        assertEquals("ContractNotice", summary.rootElement());
+        assertEquals("eforms-sdk-1.10", summary.eFormsSdkVersion());
+        assertEquals("888aceb2-1f2b-4915-924f-844cad571513", summary.noticeId());
+        assertEquals("cn-standard", summary.noticeType());
+        assertEquals(List.of("39100000"), summary.cpvCodes());
+        assertEquals(List.of(), summary.strategicProcurement());
+        assertEquals(List.of(new NoticeSummary.Lot("LOT-0001", List.of("39100000"), List.of("none"))), summary.lots());
+    }
+
+    @Test
+    void separatesNoticeAndLotFields() throws XMLStreamException {
+        NoticeSummary summary = NoticeSummaryReader.read(MULTI_LOT);
+
+        assertEquals("eforms-sdk-1.9", summary.eFormsSdkVersion());
+        assertEquals("n-1", summary.noticeId());
+        assertEquals(List.of("34100000"), summary.cpvCodes());
+        assertEquals(List.of(), summary.strategicProcurement());
+        assertEquals(List.of(
+                new NoticeSummary.Lot("LOT-0001", List.of("34110000", "34144900"), List.of("env-imp")),
+                new NoticeSummary.Lot("LOT-0002", List.of("60100000"), List.of())), summary.lots());
+    }
+
+    @Test
+    void collectsNoticeAndLotCpvCodes() throws XMLStreamException {
+        NoticeSummary summary = NoticeSummaryReader.read(MULTI_LOT);
+
+        assertEquals(List.of("34100000", "34110000", "34144900", "60100000"), List.copyOf(summary.allCpvCodes()));
+    }
+
+    @Test
+    void rejectsMalformedXml() {
+        assertThrows(XMLStreamException.class, () -> NoticeSummaryReader.read("<ContractNotice><cbc:ID>"));
+        assertThrows(XMLStreamException.class, () -> NoticeSummaryReader.read(""));
+        assertThrows(XMLStreamException.class,
+                () -> NoticeSummaryReader.read("<!DOCTYPE x [<!ENTITY e SYSTEM \"file:///etc/passwd\">]><x>&e;</x>"));
+    }
+
+    private static String example() throws IOException {
+        try (InputStream in = NoticeSummaryReaderTests.class.getClassLoader()
+                .getResourceAsStream("example_notices/german_furniture.xml")) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package it.polimi.gpplib.eforms_gpp_service.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import it.polimi.gpplib.GppNoticeAnalyzer;
+import it.polimi.gpplib.eforms_gpp_service.config.AppConfig;
+import it.polimi.gpplib.model.Notice;
+import it.polimi.gpplib.model.SuggestedGppCriterion;
+import it.polimi.gpplib.model.SuggestedGppPatch;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+class PatchSuggesterTests {
+
+    private static final String THREE_LOTS = "<ContractNotice>"
+            + "<ProcurementProjectLot><ID>LOT-1</ID></ProcurementProjectLot>"
+            + "<ProcurementProjectLot><ID>LOT-2</ID></ProcurementProjectLot>"
+            + "<ProcurementProjectLot><ID>LOT-3</ID></ProcurementProjectLot>"
+            + "</ContractNotice>";
+
+    private final List<SuggestedGppCriterion> criteria = IntStream.range(0, 10)
+            .mapToObj(i -> mock(SuggestedGppCriterion.class))
+            .toList();
+    private final Map<SuggestedGppCriterion, SuggestedGppPatch> patchFor = new ConcurrentHashMap<>();
+    private final Set<Notice> inUse = ConcurrentHashMap.newKeySet();
+    private final AtomicBoolean shared = new AtomicBoolean();
+    private PatchSuggester patchSuggester;
+    private NoticeCache noticeCache;
+    private GppNoticeAnalyzer analyzer;
+
+    @AfterEach
+    void tearDown() {
+        if (patchSuggester != null) {
+            patchSuggester.shutdown();
+        }
+    }
+
+    private void setUp(int minLots) {
+        criteria.forEach(criterion -> patchFor.put(criterion, mock(SuggestedGppPatch.class)));
+        analyzer = mock(GppNoticeAnalyzer.class);
+        when(analyzer.loadNotice(anyString())).thenAnswer(invocation -> mock(Notice.class));
+        when(analyzer.suggestPatches(any(), anyList())).thenAnswer(invocation -> {
+            Notice notice = invocation.getArgument(0);
+            if (!inUse.add(notice)) {
+                shared.set(true);
+            }
+            Thread.sleep(20);
+            inUse.remove(notice);
+            List<SuggestedGppCriterion> chunk = invocation.getArgument(1);
+            return chunk.stream().map(patchFor::get).toList();
+        });
+
+        AppConfig appConfig = new AppConfig();
+        appConfig.getAnalyzer().setPoolSize(4);
+        appConfig.getAnalyzer().setParallelSuggestMinLots(minLots);
+        appConfig.getAnalyzer().setParallelSuggestChunkSize(2);
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        AnalyzerPool analyzerPool = new AnalyzerPool(() -> analyzer, 4);
+        noticeCache = new NoticeCache(analyzerPool, new GppMetrics(meterRegistry), appConfig, meterRegistry);
+        patchSuggester = new PatchSuggester(analyzerPool, noticeCache, appConfig);
+    }
+
+    private List<SuggestedGppPatch> suggest() {
+        try (NoticeCache.Lease lease = noticeCache.acquire(THREE_LOTS)) {
+            return patchSuggester.suggest(lease, criteria);
+        }
+    }
+
+    @Test
+    void splitSuggestionsKeepCriteriaOrder() {
+        setUp(3);
+
+        List<SuggestedGppPatch> patches = suggest();
+
+        assertEquals(criteria.stream().map(patchFor::get).toList(), patches);
+        verify(analyzer, times(4)).suggestPatches(any(), anyList());
+        assertFalse(shared.get(), "concurrent chunks must not share a copy of the notice");
+    }
+
+    @Test
+    void noticesWithFewLotsAreNotSplit() {
+        setUp(4);
+
+        List<SuggestedGppPatch> patches = suggest();
+
+        assertEquals(criteria.stream().map(patchFor::get).toList(), patches);
+        verify(analyzer, times(1)).suggestPatches(any(), eq(criteria));
+    }
+
+    @Test
+    void missingCriteriaAreLeftToTheLibrary() {
+        setUp(1);
+
+        try (NoticeCache.Lease lease = noticeCache.acquire(THREE_LOTS)) {
+            assertEquals(List.of(), patchSuggester.suggest(lease, null));
+        }
+        verify(analyzer, times(1)).suggestPatches(any(), isNull());
+    }
+
+    @Test
+    void chunksAreContiguousAndBalanced() {
+        List<Integer> items = IntStream.range(0, 10).boxed().toList();
+
+        assertEquals(List.of(List.of(0, 1, 2, 3), List.of(4, 5, 6), List.of(7, 8, 9)), PatchSuggester.chunks(items, 3));
+    }
+}
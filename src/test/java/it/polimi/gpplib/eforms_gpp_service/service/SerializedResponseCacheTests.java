@@ -0,0 +1,93 @@
+package it.polimi.gpplib.eforms_gpp_service.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import it.polimi.gpplib.eforms_gpp_service.config.AppConfig;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SerializedResponseCacheTests {
+
+    private SerializedResponseCache cache;
+
+    @BeforeEach
+    void setUp() {
+        AppConfig appConfig = new AppConfig();
+        appConfig.getCache().getResponses().setGzipMinBytes(100);
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        cache = new SerializedResponseCache(new ObjectMapper(), new GppMetrics(meterRegistry), appConfig,
+                meterRegistry);
+    }
+
+    @Test
+    void analysisIsSerializedOncePerKey() {
+        AtomicInteger calls = new AtomicInteger();
+
+        SerializedResponseCache.SerializedResponse first = cache.analysis("k", () -> Map.of("n", calls.incrementAndGet()));
+        SerializedResponseCache.SerializedResponse second = cache.analysis("k", () -> Map.of("n", calls.incrementAndGet()));
+
+        assertSame(first, second);
+        assertEquals(1, calls.get());
+        assertEquals("{\"n\":1}", new String(first.json()));
+    }
+
+    @Test
+    void criteriaOfEarlierIndexVersionsAreDropped() {
+        AtomicInteger calls = new AtomicInteger();
+
+        SerializedResponseCache.SerializedResponse first = cache.criteria("v1", "*", () -> Map.of("n", calls.incrementAndGet()));
+        assertSame(first, cache.criteria("v1", "*", () -> Map.of("n", calls.incrementAndGet())));
+        cache.criteria("v2", "*", () -> Map.of("n", calls.incrementAndGet()));
+        SerializedResponseCache.SerializedResponse again = cache.criteria("v1", "*", () -> Map.of("n", calls.incrementAndGet()));
+
+        assertNotSame(first, again);
+        assertEquals(3, calls.get());
+        // criteria lookups do not share the analysis cache
+        assertNotSame(first, cache.analysis("v1:*", () -> Map.of("n", calls.incrementAndGet())));
+    }
+
+    @Test
+    void onlyLargeBodiesAreGzipped() throws IOException {
+        SerializedResponseCache.SerializedResponse small = cache.serialize(Map.of("n", 1));
+        SerializedResponseCache.SerializedResponse large = cache.serialize(Map.of("text", "x".repeat(500)));
+
+        assertNull(small.gzip());
+        assertArrayEquals(large.json(),
+                new GZIPInputStream(new ByteArrayInputStream(large.gzip())).readAllBytes());
+    }
+
+    @Test
+    void encodingFollowsAcceptEncoding() {
+        SerializedResponseCache.SerializedResponse large = cache.serialize(Map.of("text", "x".repeat(500)));
+
+        ResponseEntity<byte[]> gzipped = large.toResponse(ResponseEntity.ok(), "\"e\"", "br, gzip;q=0.5");
+        assertEquals("gzip", gzipped.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING));
+        assertEquals("W/\"e\"", gzipped.getHeaders().getETag());
+        assertSame(large.gzip(), gzipped.getBody());
+
+        ResponseEntity<byte[]> identity = large.toResponse(ResponseEntity.ok(), "\"e\"", "gzip;q=0");
+        assertNull(identity.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING));
+        assertEquals("\"e\"", identity.getHeaders().getETag());
+        assertSame(large.json(), identity.getBody());
+        assertEquals("Accept-Encoding", identity.getHeaders().getFirst(HttpHeaders.VARY));
+    }
+
+    @Test
+    void parsesAcceptEncoding() {
+        assertTrue(SerializedResponseCache.acceptsGzip("gzip, deflate"));
+        assertTrue(SerializedResponseCache.acceptsGzip("*"));
+        assertFalse(SerializedResponseCache.acceptsGzip(null));
+        assertFalse(SerializedResponseCache.acceptsGzip("identity"));
+        assertFalse(SerializedResponseCache.acceptsGzip("gzip; q=0.0"));
+    }
+}
@@ -0,0 +1,185 @@
+package it.polimi.gpplib.eforms_gpp_service.service;
+
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import it.polimi.gpplib.eforms_gpp_service.config.AppConfig;
+import it.polimi.gpplib.eforms_gpp_service.config.TedResilienceConfig;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.client.ExpectedCount;
+import org.springframework.test.web.client.MockRestServiceServer;
+import org.springframework.test.web.client.ResponseCreator;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestClient;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.SocketTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.method;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.requestTo;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.*;
+
+class TedApiClientTests {
+
+    private static final String VALIDATE_URL = "https://ted.test/v3/notices/validate";
+
+    private final AppConfig appConfig = new AppConfig();
+    private MockRestServiceServer ted;
+    private CircuitBreaker circuitBreaker;
+    private Bulkhead bulkhead;
+    private TedApiClient client;
+    // available bulkhead permits seen by each attempt
+    private final List<Integer> permitsDuringAttempts = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        appConfig.getApi().setTedBaseUrl("https://ted.test");
+        appConfig.getResilience().getRetry().setInitialBackoff(Duration.ofMillis(1));
+        appConfig.getResilience().getBulkhead().setMaxConcurrentCalls(2);
+        appConfig.getResilience().getBulkhead().setMaxWaitDuration(Duration.ZERO);
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        TedResilienceConfig resilience = new TedResilienceConfig();
+        ReflectionTestUtils.setField(resilience, "appConfig", appConfig);
+        ReflectionTestUtils.setField(resilience, "meterRegistry", meterRegistry);
+        circuitBreaker = resilience.tedCircuitBreaker();
+        bulkhead = resilience.tedBulkhead();
+
+        RestClient.Builder builder = RestClient.builder().baseUrl(appConfig.getApi().getTedBaseUrl());
+        ted = MockRestServiceServer.bindTo(builder).build();
+        client = new TedApiClient(builder.build(), new GppMetrics(meterRegistry), appConfig, circuitBreaker,
+                bulkhead, resilience.tedRetry(), meterRegistry);
+    }
+
+    private ResponseEntity<String> validate() {
+        return client.validate("<ContractNotice/>", "en", "static", "eforms-sdk-1.10");
+    }
+
+    private void expectAttempts(int attempts, ResponseCreator response) {
+        ted.expect(ExpectedCount.times(attempts), requestTo(VALIDATE_URL))
+                .andExpect(method(HttpMethod.POST))
+                .andRespond(request -> {
+                    permitsDuringAttempts.add(bulkhead.getMetrics().getAvailableConcurrentCalls());
+                    return response.createResponse(request);
+                });
+    }
+
+    @Test
+    void serverErrorsAreRetriedWithinOneBulkheadPermit() {
+        expectAttempts(3, withServerError());
+
+        assertThrows(HttpServerErrorException.class, this::validate);
+
+        ted.verify();
+        // one permit of two is taken for the whole call, not one per attempt
+        assertEquals(List.of(1, 1, 1), permitsDuringAttempts);
+        assertEquals(2, bulkhead.getMetrics().getAvailableConcurrentCalls());
+        // the circuit breaker sits inside the retry and records every attempt
+        assertEquals(3, circuitBreaker.getMetrics().getNumberOfFailedCalls());
+    }
+
+    @Test
+    void connectFailuresAreRetried() {
+        expectAttempts(2, withException(new ConnectException("Connection refused")));
+        ted.expect(requestTo(VALIDATE_URL)).andRespond(withSuccess("<report/>", MediaType.APPLICATION_XML));
+
+        assertEquals("<report/>", validate().getBody());
+        ted.verify();
+    }
+
+    @Test
+    void readTimeoutsAreNotRetried() {
+        expectAttempts(1, withException(new SocketTimeoutException("Read timed out")));
+
+        assertThrows(ResourceAccessException.class, this::validate);
+
+        ted.verify();
+        assertEquals(1, circuitBreaker.getMetrics().getNumberOfFailedCalls());
+    }
+
+    @Test
+    void clientErrorsAreNeitherRetriedNorCountedAsFailures() {
+        expectAttempts(1, withStatus(HttpStatus.UNPROCESSABLE_ENTITY));
+
+        assertThrows(HttpClientErrorException.class, this::validate);
+
+        ted.verify();
+        assertEquals(0, circuitBreaker.getMetrics().getNumberOfFailedCalls());
+    }
+
+    @Test
+    void noRetryIsStartedAfterTheRetryWindow() {
+        appConfig.getResilience().getRetry().setMaxDuration(Duration.ZERO);
+        expectAttempts(1, withServerError());
+
+        assertThrows(HttpServerErrorException.class, this::validate);
+
+        ted.verify();
+    }
+
+    @Test
+    void openCircuitFailsFastWithoutCallingTed() {
+        circuitBreaker.transitionToOpenState();
+
+        TedUnavailableException e = assertThrows(TedUnavailableException.class, this::validate);
+
+        assertEquals("TED API is failing, calls are suspended", e.getMessage());
+        ted.verify();
+    }
+
+    @Test
+    void fullBulkheadFailsFastWithoutCallingTed() {
+        bulkhead.acquirePermission();
+        bulkhead.acquirePermission();
+        try {
+            TedUnavailableException e = assertThrows(TedUnavailableException.class, this::validate);
+
+            assertEquals("Too many concurrent TED API calls", e.getMessage());
+            ted.verify();
+        } finally {
+            bulkhead.onComplete();
+            bulkhead.onComplete();
+        }
+    }
+
+    @Test
+    void requestBodyLengthMatchesTheBytesWritten() throws IOException {
+        String boundary = "a".repeat(8191);
+        List<String> notices = List.of(
+                "<Notice>plain ASCII</Notice>",
+                "<Notice>M\u00f6bel \u20ac</Notice>",
+                "<Notice>\ud83d\ude00</Notice>",
+                boundary + "\ud83d\ude00" + boundary,
+                "<Notice>\ud83d lone high</Notice>",
+                "\ude00 lone low",
+                boundary + "\ud83db",
+                "trailing high \ud83d");
+        for (String notice : notices) {
+            TedApiClient.TedRequestBody body = new TedApiClient.TedRequestBody("notice", notice, "}");
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            body.writeTo(out);
+
+            byte[] written = out.toByteArray();
+            assertEquals(written.length, body.contentLength(), () -> "Content-Length of " + notice.length() + " chars");
+            String json = new String(written, StandardCharsets.US_ASCII);
+            byte[] decoded = Base64.getDecoder().decode(json.substring("{\"notice\":\"".length(), json.length() - 2));
+            // lone surrogates are sent as '?', as String.getBytes encodes them
+            assertArrayEquals(notice.getBytes(StandardCharsets.UTF_8), decoded);
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package it.polimi.gpplib.eforms_gpp_service.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import it.polimi.gpplib.eforms_gpp_service.config.AppConfig;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TedResultCacheTests {
+
+    @TempDir
+    Path directory;
+
+    private final AtomicInteger tedCalls = new AtomicInteger();
+
+    private TedResultCache cache() throws IOException {
+        AppConfig appConfig = new AppConfig();
+        appConfig.getCache().getTed().setDirectory(directory.toString());
+        appConfig.getCache().getTed().setTtl(Duration.ofHours(1));
+        appConfig.getCache().getTed().setMaxStreamedEntryBytes(16);
+        return new TedResultCache(appConfig, new SimpleMeterRegistry());
+    }
+
+    private ResponseEntity<String> validate(TedResultCache cache, String handle, HttpStatus status) {
+        return cache.validation(handle, "en", "static", "eforms-sdk-1.10", () -> {
+            tedCalls.incrementAndGet();
+            return ResponseEntity.status(status).body("report " + tedCalls.get());
+        });
+    }
+
+    private List<Path> files() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.toList();
+        }
+    }
+
+    private void age(Path file, Duration age) throws IOException {
+        Files.setLastModifiedTime(file, FileTime.from(Instant.now().minus(age)));
+    }
+
+    @Test
+    void responsesSurviveARestart() throws IOException {
+        assertEquals("report 1", validate(cache(), "n1", HttpStatus.OK).getBody());
+
+        ResponseEntity<String> restored = validate(cache(), "n1", HttpStatus.OK);
+
+        assertEquals(HttpStatus.OK, restored.getStatusCode());
+        assertEquals("report 1", restored.getBody());
+        assertEquals(1, tedCalls.get());
+        // entries are written to a temporary file and moved into place, nothing else is left behind
+        List<Path> files = files();
+        assertEquals(1, files.size());
+        assertTrue(files.get(0).getFileName().toString().endsWith(".ted"), files.toString());
+    }
+
+    @Test
+    void errorResponsesAreNotPersisted() throws IOException {
+        validate(cache(), "n1", HttpStatus.BAD_GATEWAY);
+
+        assertEquals(List.of(), files());
+        assertEquals("report 2", validate(cache(), "n1", HttpStatus.OK).getBody());
+    }
+
+    @Test
+    void expiredFilesAreIgnoredAndDeletedOnRead() throws IOException {
+        validate(cache(), "n1", HttpStatus.OK);
+        Path file = files().get(0);
+        age(file, Duration.ofHours(2));
+
+        assertEquals("report 2", validate(cache(), "n1", HttpStatus.OK).getBody());
+        // replaced by the fresh response
+        assertEquals(List.of(file), files());
+        assertTrue(Files.getLastModifiedTime(file).toInstant().isAfter(Instant.now().minus(Duration.ofMinutes(1))));
+    }
+
+    @Test
+    void pruneDeletesOnlyExpiredEntries() throws IOException {
+        TedResultCache cache = cache();
+        validate(cache, "n1", HttpStatus.OK);
+        Path expired = files().get(0);
+        validate(cache, "n2", HttpStatus.OK);
+        age(expired, Duration.ofHours(2));
+        Path unrelated = Files.writeString(directory.resolve("notes.txt"), "keep");
+        age(unrelated, Duration.ofDays(2));
+
+        cache.pruneDisk();
+
+        List<Path> remaining = files();
+        assertEquals(2, remaining.size());
+        assertFalse(remaining.contains(expired));
+        assertTrue(remaining.contains(unrelated));
+    }
+
+    @Test
+    void unreadableFilesAreDiscarded() throws IOException {
+        validate(cache(), "n1", HttpStatus.OK);
+        Path file = files().get(0);
+        Files.writeString(file, "not a cached response");
+
+        assertEquals("report 2", validate(cache(), "n1", HttpStatus.OK).getBody());
+    }
+
+    @Test
+    void onlySmallStreamedRendersAreCached() throws IOException {
+        TedResultCache cache = cache();
+        ByteArrayOutputStream small = new ByteArrayOutputStream();
+        cache.renderTo("n1", "en", small, out -> {
+            tedCalls.incrementAndGet();
+            out.write("<p>ok</p>".getBytes(StandardCharsets.UTF_8));
+        });
+        cache.renderTo("n2", "en", new ByteArrayOutputStream(), out -> {
+            tedCalls.incrementAndGet();
+            out.write("<p>far too long to be kept</p>".getBytes(StandardCharsets.UTF_8));
+        });
+
+        ByteArrayOutputStream again = new ByteArrayOutputStream();
+        cache().renderTo("n1", "en", again, out -> fail("served from disk"));
+
+        assertEquals("<p>ok</p>", again.toString(StandardCharsets.UTF_8));
+        assertEquals(1, files().size());
+        assertEquals(2, tedCalls.get());
+    }
+}
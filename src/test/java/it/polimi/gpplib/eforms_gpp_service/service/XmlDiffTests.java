@@ -0,0 +1,67 @@
+package it.polimi.gpplib.eforms_gpp_service.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class XmlDiffTests {
+
+    private static final String NOTICE = """
+            <ContractNotice xmlns="urn:notice" xmlns:cbc="urn:cbc" xmlns:cac="urn:cac">
+                <cbc:ID>1</cbc:ID>
+                <cac:Lot>
+                    <cbc:ID>LOT-0001</cbc:ID>
+                    <cbc:Name>Chairs</cbc:Name>
+                </cac:Lot>
+                <cac:Lot>
+                    <cbc:ID>LOT-0002</cbc:ID>
+                </cac:Lot>
+            </ContractNotice>
+            """;
+
+    @Test
+    void formattingIsNotAChange() {
+        String reformatted = NOTICE.replaceAll(">\\s+<", "><");
+        assertTrue(XmlDiff.diff(NOTICE, reformatted).isEmpty());
+    }
+
+    @Test
+    void changedTextReplacesTheElement() {
+        List<XmlDiff.Change> changes = XmlDiff.diff(NOTICE, NOTICE.replace("Chairs", "Tables"));
+
+        assertEquals(1, changes.size());
+        XmlDiff.Change change = changes.get(0);
+        assertEquals(XmlDiff.REPLACE, change.getOp());
+        assertEquals("/ContractNotice/cac:Lot[1]/cbc:Name[1]", change.getXpath());
+        assertTrue(change.getContent().contains(">Tables</cbc:Name>"));
+    }
+
+    @Test
+    void addedElementIsInserted() {
+        String patched = NOTICE.replace("<cbc:ID>LOT-0002</cbc:ID>",
+                "<cbc:ID>LOT-0002</cbc:ID><cac:Criterion><cbc:Name>Recycled</cbc:Name></cac:Criterion>");
+
+        List<XmlDiff.Change> changes = XmlDiff.diff(NOTICE, patched);
+
+        assertEquals(1, changes.size());
+        XmlDiff.Change change = changes.get(0);
+        assertEquals(XmlDiff.INSERT, change.getOp());
+        assertEquals("/ContractNotice/cac:Lot[2]", change.getXpath());
+        assertEquals(2, change.getPosition());
+        assertTrue(change.getContent().startsWith("<cac:Criterion"));
+    }
+
+    @Test
+    void missingElementIsRemoved() {
+        String patched = NOTICE.replace("<cbc:Name>Chairs</cbc:Name>", "");
+
+        List<XmlDiff.Change> changes = XmlDiff.diff(NOTICE, patched);
+
+        assertEquals(1, changes.size());
+        assertEquals(XmlDiff.REMOVE, changes.get(0).getOp());
+        assertEquals("/ContractNotice/cac:Lot[1]/cbc:Name[1]", changes.get(0).getXpath());
+        assertNull(changes.get(0).getContent());
+    }
+}
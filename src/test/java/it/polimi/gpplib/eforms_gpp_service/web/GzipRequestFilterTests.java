@@ -0,0 +1,142 @@
+package it.polimi.gpplib.eforms_gpp_service.web;
+
+import it.polimi.gpplib.eforms_gpp_service.config.AppConfig;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class GzipRequestFilterTests {
+
+    private final GzipRequestFilter filter = new GzipRequestFilter();
+    private final MockHttpServletResponse response = new MockHttpServletResponse();
+    private final MockFilterChain chain = new MockFilterChain();
+
+    @BeforeEach
+    void setUp() {
+        AppConfig appConfig = new AppConfig();
+        appConfig.getRequests().setMaxInflatedBytes(1024);
+        ReflectionTestUtils.setField(filter, "appConfig", appConfig);
+    }
+
+    public static byte[] gzip(byte[] content) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (GZIPOutputStream out = new GZIPOutputStream(bytes)) {
+            out.write(content);
+        }
+        return bytes.toByteArray();
+    }
+
+    private MockHttpServletRequest gzipRequest(String contentType, byte[] content) throws IOException {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/v1/analyze-notice");
+        request.setContentType(contentType);
+        request.addHeader(HttpHeaders.CONTENT_ENCODING, "gzip");
+        request.setContent(gzip(content));
+        return request;
+    }
+
+    private HttpServletRequest filteredRequest() {
+        return (HttpServletRequest) chain.getRequest();
+    }
+
+    @Test
+    void bodyIsInflatedAndEncodingHeadersAreHidden() throws Exception {
+        filter.doFilter(gzipRequest(MediaType.APPLICATION_XML_VALUE, "<ContractNotice/>".getBytes()), response, chain);
+
+        HttpServletRequest request = filteredRequest();
+        assertEquals("<ContractNotice/>", new String(request.getInputStream().readAllBytes(), StandardCharsets.UTF_8));
+        assertTrue(request.getInputStream().isFinished());
+        assertNull(request.getHeader(HttpHeaders.CONTENT_ENCODING));
+        assertNull(request.getHeader(HttpHeaders.CONTENT_LENGTH));
+        assertEquals(-1, request.getContentLengthLong());
+    }
+
+    @Test
+    void uncompressedRequestsPassThrough() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/v1/analyze-notice");
+        request.setContent("<ContractNotice/>".getBytes());
+
+        filter.doFilter(request, response, chain);
+
+        assertSame(request, chain.getRequest());
+    }
+
+    @Test
+    void inflatedSizeIsCapped() throws Exception {
+        // 1 MB of zeros compresses to about 1 KB
+        filter.doFilter(gzipRequest(MediaType.APPLICATION_XML_VALUE, new byte[1024 * 1024]), response, chain);
+
+        ServletInputStream in = filteredRequest().getInputStream();
+        IOException e = assertThrows(IOException.class, in::readAllBytes);
+        assertEquals("Decompressed request body exceeds 1024 bytes", e.getMessage());
+    }
+
+    @Test
+    void compressedMultipartIsRejected() throws Exception {
+        filter.doFilter(gzipRequest(MediaType.MULTIPART_FORM_DATA_VALUE + "; boundary=x", new byte[10]), response, chain);
+
+        assertEquals(415, response.getStatus());
+        assertNull(chain.getRequest());
+    }
+
+    @Test
+    void readListenerGetsTheWholeBody() throws Exception {
+        MockHttpServletRequest original = gzipRequest(MediaType.APPLICATION_XML_VALUE, "<ContractNotice/>".getBytes());
+        original.setAsyncSupported(true);
+        filter.doFilter(original, response, chain);
+        HttpServletRequest request = filteredRequest();
+        ServletInputStream in = request.getInputStream();
+        assertThrows(IllegalStateException.class, () -> in.setReadListener(new Collector(in)));
+
+        request.startAsync();
+        Collector collector = new Collector(in);
+        in.setReadListener(collector);
+
+        assertEquals("<ContractNotice/>", collector.body.toString(StandardCharsets.UTF_8));
+        assertTrue(collector.allRead.get());
+    }
+
+    private static class Collector implements ReadListener {
+        private final ServletInputStream in;
+        private final ByteArrayOutputStream body = new ByteArrayOutputStream();
+        private final AtomicBoolean allRead = new AtomicBoolean();
+
+        Collector(ServletInputStream in) {
+            this.in = in;
+        }
+
+        @Override
+        public void onDataAvailable() throws IOException {
+            byte[] buffer = new byte[4];
+            int n;
+            while (in.isReady() && (n = in.read(buffer)) != -1) {
+                body.write(buffer, 0, n);
+            }
+        }
+
+        @Override
+        public void onAllDataRead() {
+            allRead.set(true);
+        }
+
+        @Override
+        public void onError(Throwable t) {
+            fail(t);
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package it.polimi.gpplib.eforms_gpp_service.web;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import it.polimi.gpplib.eforms_gpp_service.config.AppConfig;
+import it.polimi.gpplib.eforms_gpp_service.service.RateLimiter;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.http.HttpServletRequest;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RateLimitFilterTests {
+
+    private final AppConfig appConfig = new AppConfig();
+    private final RateLimitFilter filter = new RateLimitFilter();
+    private RateLimiter rateLimiter;
+
+    @BeforeEach
+    void setUp() {
+        appConfig.getRateLimit().setDefaults(new AppConfig.RateLimit.Limit(1, 0.001));
+        appConfig.getRateLimit().setApiKeys(Set.of("known", "other"));
+        appConfig.getRateLimit().setMaxConcurrentRequests(1);
+        rateLimiter = new RateLimiter(appConfig, new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(filter, "appConfig", appConfig);
+        ReflectionTestUtils.setField(filter, "rateLimiter", rateLimiter);
+    }
+
+    private static MockHttpServletRequest request(String apiKey) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/v1/criteria");
+        request.setServletPath("/api/v1/criteria");
+        request.setRemoteAddr("192.0.2.1");
+        request.setAsyncSupported(true);
+        if (apiKey != null) {
+            request.addHeader("X-API-Key", apiKey);
+        }
+        return request;
+    }
+
+    private MockHttpServletResponse perform(MockHttpServletRequest request, FilterChain chain) throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, chain);
+        return response;
+    }
+
+    @Test
+    void exhaustedBucketIsRejectedWithRetryAfter() throws Exception {
+        assertEquals(200, perform(request(null), new MockFilterChain()).getStatus());
+
+        MockHttpServletResponse rejected = perform(request(null), new MockFilterChain());
+        assertEquals(429, rejected.getStatus());
+        assertEquals("Rate limit exceeded for this endpoint", rejected.getErrorMessage());
+        assertTrue(Long.parseLong(rejected.getHeader(HttpHeaders.RETRY_AFTER)) >= 1);
+    }
+
+    @Test
+    void unknownKeysShareTheBucketOfTheirAddress() throws Exception {
+        assertEquals(200, perform(request("made-up-1"), new MockFilterChain()).getStatus());
+        assertEquals(429, perform(request("made-up-2"), new MockFilterChain()).getStatus());
+        assertEquals(429, perform(request(null), new MockFilterChain()).getStatus());
+
+        assertEquals(200, perform(request("known"), new MockFilterChain()).getStatus());
+        // one bucket for the address and one for the known key
+        assertEquals(2L, rateLimiter.stats().get("trackedBuckets"));
+    }
+
+    @Test
+    void streamedResponsesHoldTheirSlotUntilTheyComplete() throws Exception {
+        MockHttpServletRequest streaming = request(null);
+        perform(streaming, (req, res) -> req.startAsync());
+        assertEquals(1, rateLimiter.activeRequests());
+
+        MockHttpServletResponse rejected = perform(request("known"), new MockFilterChain());
+        assertEquals(429, rejected.getStatus());
+        assertEquals("Too many requests in progress", rejected.getErrorMessage());
+
+        streaming.getAsyncContext().complete();
+        assertEquals(0, rateLimiter.activeRequests());
+        assertEquals(200, perform(request("other"), new MockFilterChain()).getStatus());
+    }
+
+    @Test
+    void longPollsDoNotHoldASlotWhileWaiting() throws Exception {
+        MockHttpServletRequest poll = request(null);
+        perform(poll, (req, res) -> {
+            RateLimitFilter.releaseWhileWaiting((HttpServletRequest) req);
+            req.startAsync();
+        });
+        assertTrue(poll.isAsyncStarted());
+        assertEquals(0, rateLimiter.activeRequests());
+
+        assertEquals(200, perform(request("known"), new MockFilterChain()).getStatus());
+        // completing the poll later does not release a second time
+        poll.getAsyncContext().complete();
+        assertEquals(0, rateLimiter.activeRequests());
+    }
+
+    @Test
+    void apiPathsAreLimitedUnderAContextPath() throws Exception {
+        MockHttpServletRequest first = request(null);
+        first.setRequestURI("/gpp/api/v1/criteria");
+        first.setContextPath("/gpp");
+        assertEquals(200, perform(first, new MockFilterChain()).getStatus());
+
+        MockHttpServletRequest second = request(null);
+        second.setRequestURI("/gpp/api/v1/criteria");
+        second.setContextPath("/gpp");
+        assertEquals(429, perform(second, new MockFilterChain()).getStatus());
+    }
+}